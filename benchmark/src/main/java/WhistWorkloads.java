@@ -0,0 +1,186 @@
+import ch.aplu.jcardgame.Deck;
+import ch.aplu.jcardgame.Hand;
+import whist.bench.Workloads;
+
+import java.util.SplittableRandom;
+
+/**
+ * the benchmarked operations, next to the game classes in the default package. Games are headless,
+ * so they are not paced
+ */
+public class WhistWorkloads implements Workloads {
+    private static final String[] playerConfiguration = {"legal,0", "legal,1", "legal,2", "legal,3"};
+    private static final int nbTricks = 1024;
+
+    private final Table game = new Table();
+    private final LegalStrategy legal = new LegalStrategy();
+    private final RandomStrategy random = new RandomStrategy();
+    private SmartStrategy smart;
+    private long hand;
+    // the cards of the hand the player may play, as the engine computes them
+    private long legalCards;
+    private int position;
+    private final int[] tricks = new int[nbTricks * Whist.nbPlayers];
+    private final Whist.Suit[] trickTrumps = new Whist.Suit[nbTricks];
+    private final int[] trumpOrdinals = new int[nbTricks];
+    private final long[] packedTricks = new long[nbTricks];
+    private final int[] winners = new int[nbTricks];
+    private final long[] roundHands = new long[Whist.nbPlayers];
+    private final int[] roundCards = new int[CardSet.nbCards];
+    private Deck deck;
+
+    /**
+     * a headless game whose trumps and lead are set by the benchmark instead of a round
+     */
+    private static class Table extends WhistEngine {
+        private Whist.Suit trumps;
+        private Whist.Suit lead;
+
+        Table() {
+            super(30006, playerConfiguration, 13, 13, RulePolicy.LOG);
+        }
+
+        @Override
+        Whist.Suit getTrumps() {
+            return trumps;
+        }
+
+        @Override
+        Whist.Suit getLead() {
+            return lead;
+        }
+    }
+
+    @Override
+    public void setUp(int trickPosition, long seed) {
+        SplittableRandom generator = new SplittableRandom(seed);
+        game.trumps = Whist.Suit.values()[generator.nextInt(CardSet.nbSuits)];
+        // the player to move sits after the trickPosition players already in the trick
+        dealRound(generator);
+        position = trickPosition;
+        hand = roundHands[position];
+        smart = new SmartStrategy(hand);
+        game.lead = trickPosition == 0 ? null : CardSet.suitOf(roundCards[0]);
+        legalCards = CardSet.legal(hand, game.lead);
+        for (int i = 0; i < trickPosition; i++) {
+            smart.responseToCardPlayed(i % Whist.nbPlayers, roundCards[i]);
+        }
+        for (int i = 0; i < nbTricks; i++) {
+            trickTrumps[i] = Whist.Suit.values()[generator.nextInt(CardSet.nbSuits)];
+            dealRound(generator);
+            System.arraycopy(roundCards, 0, tricks, i * Whist.nbPlayers, Whist.nbPlayers);
+            trumpOrdinals[i] = trickTrumps[i].ordinal();
+            packedTricks[i] = TrickEvaluator.pack(tricks, i * Whist.nbPlayers, trickTrumps[i]);
+        }
+        dealRound(generator);
+    }
+
+    /**
+     * deal four random hands, then play them out legally in roundCards, one trick after the other
+     */
+    private void dealRound(SplittableRandom generator) {
+        int[] cards = new int[CardSet.nbCards];
+        for (int i = 0; i < CardSet.nbCards; i++) {
+            int j = generator.nextInt(i + 1);
+            cards[i] = cards[j];
+            cards[j] = i;
+        }
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            roundHands[i] = CardSet.EMPTY;
+            for (int j = 0; j < CardSet.nbRanks; j++) {
+                roundHands[i] = CardSet.add(roundHands[i], cards[i * CardSet.nbRanks + j]);
+            }
+        }
+        long[] rest = roundHands.clone();
+        for (int i = 0; i < CardSet.nbCards; i++) {
+            int seat = i % Whist.nbPlayers;
+            long follow = i % Whist.nbPlayers == 0
+                    ? CardSet.EMPTY : CardSet.suit(rest[seat], CardSet.suitOf(roundCards[i - seat]));
+            long choice = CardSet.isEmpty(follow) ? rest[seat] : follow;
+            roundCards[i] = CardSet.nth(choice, generator.nextInt(CardSet.size(choice)));
+            rest[seat] = CardSet.remove(rest[seat], roundCards[i]);
+        }
+    }
+
+    @Override
+    public int smartSelectCard() {
+        return smart.selectCard(position, hand, legalCards, game);
+    }
+
+    @Override
+    public int legalSelectCard() {
+        return legal.selectCard(position, hand, legalCards, game);
+    }
+
+    @Override
+    public int randomSelectCard() {
+        return random.selectCard(position, hand, legalCards, game);
+    }
+
+    @Override
+    public int trickWinners() {
+        int sum = 0;
+        for (int i = 0; i < nbTricks; i++) {
+            int first = i * Whist.nbPlayers;
+            int winner = 0;
+            int winningCard = tricks[first];
+            for (int j = 1; j < Whist.nbPlayers; j++) {
+                if (TrickEvaluator.beats(tricks[first + j], winningCard, trickTrumps[i])) {
+                    winner = j;
+                    winningCard = tricks[first + j];
+                }
+            }
+            sum += winner;
+        }
+        return sum;
+    }
+
+    @Override
+    public int batchTrickWinners() {
+        TrickEvaluator.winners(tricks, trumpOrdinals, nbTricks, winners);
+        return sumWinners();
+    }
+
+    @Override
+    public int packedTrickWinners() {
+        TrickEvaluator.winners(packedTricks, nbTricks, winners);
+        return sumWinners();
+    }
+
+    private int sumWinners() {
+        int sum = 0;
+        for (int winner : winners) {
+            sum += winner;
+        }
+        return sum;
+    }
+
+    @Override
+    public Object smartResponseToCardPlayed() {
+        SmartStrategy strategy = new SmartStrategy(roundHands[0]);
+        for (int i = 0; i < roundCards.length; i++) {
+            strategy.responseToCardPlayed(i % Whist.nbPlayers, roundCards[i]);
+        }
+        return strategy;
+    }
+
+    @Override
+    public long engineDeal() {
+        game.deal();
+        return game.getHand(0) ^ game.getHand(1) ^ game.getHand(2) ^ game.getHand(3);
+    }
+
+    @Override
+    public void setUpDeck() {
+        deck = new Deck(Whist.Suit.values(), Whist.Rank.values(), "cover");
+    }
+
+    @Override
+    public Object jcardgameDealAndSort() {
+        Hand[] hands = deck.dealingOut(Whist.nbPlayers, CardSet.nbRanks);
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            hands[i].sort(Hand.SortType.SUITPRIORITY, true);
+        }
+        return hands;
+    }
+}
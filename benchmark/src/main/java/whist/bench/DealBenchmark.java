@@ -0,0 +1,56 @@
+package whist.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * dealing a round: the CardSet deal of the engine, and the JCardGame deal and sort of the game board.
+ * The JCardGame deck loads the card images, so jcardgameDealAndSort fails without a graphics device
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DealBenchmark {
+    @State(Scope.Thread)
+    public static class Engine {
+        Workloads workloads;
+
+        @Setup
+        public void setUp() {
+            workloads = Workloads.create();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Board {
+        Workloads workloads;
+
+        @Setup
+        public void setUp() {
+            workloads = Workloads.create();
+            workloads.setUpDeck();
+        }
+    }
+
+    @Benchmark
+    public long engineDeal(Engine state) {
+        return state.workloads.engineDeal();
+    }
+
+    @Benchmark
+    public Object jcardgameDealAndSort(Board state) {
+        return state.workloads.jcardgameDealAndSort();
+    }
+}
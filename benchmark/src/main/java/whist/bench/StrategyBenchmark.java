@@ -0,0 +1,52 @@
+package whist.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * card selection of the computer strategies, with 0 to 3 cards already in the trick
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StrategyBenchmark {
+    @Param({"0", "1", "2", "3"})
+    public int trickPosition;
+
+    private Workloads workloads;
+
+    @Setup
+    public void setUp() {
+        workloads = Workloads.create();
+        workloads.setUp(trickPosition, 30006);
+    }
+
+    @Benchmark
+    public int smartSelectCard() {
+        return workloads.smartSelectCard();
+    }
+
+    @Benchmark
+    public int legalSelectCard() {
+        return workloads.legalSelectCard();
+    }
+
+    @Benchmark
+    public int randomSelectCard() {
+        return workloads.randomSelectCard();
+    }
+}
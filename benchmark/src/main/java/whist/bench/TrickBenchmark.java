@@ -0,0 +1,60 @@
+package whist.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the trick-winner rule of the engine card by card and in batches, and the card bookkeeping of SmartStrategy over a round
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrickBenchmark {
+    private Workloads workloads;
+
+    @Setup
+    public void setUp() {
+        workloads = Workloads.create();
+        workloads.setUp(0, 30006);
+    }
+
+    /**
+     * one operation is one trick of the batch resolved
+     */
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public int trickWinner() {
+        return workloads.trickWinners();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public int batchTrickWinner() {
+        return workloads.batchTrickWinners();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public int packedTrickWinner() {
+        return workloads.packedTrickWinners();
+    }
+
+    @Benchmark
+    public Object smartResponseToCardPlayed() {
+        return workloads.smartResponseToCardPlayed();
+    }
+}
@@ -0,0 +1,82 @@
+package whist.bench;
+
+/**
+ * the operations of the game that are benchmarked. The game classes live in the default package,
+ * which a named package cannot import, so the benchmarks reach them through this interface. It is
+ * implemented by WhistWorkloads in the default package and loaded once per benchmark setup.
+ */
+public interface Workloads {
+    /**
+     * load the implementation next to the game classes
+     *
+     * @return a new set of workloads
+     */
+    static Workloads create() {
+        try {
+            return (Workloads) Class.forName("WhistWorkloads").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("WhistWorkloads is not on the class path", e);
+        }
+    }
+
+    /**
+     * deal a seeded position where the player to move has trickPosition cards already in the trick
+     *
+     * @param trickPosition number of cards played in the current trick, from 0 to 3
+     * @param seed          the seed of the position
+     */
+    void setUp(int trickPosition, long seed);
+
+    int smartSelectCard();
+
+    int legalSelectCard();
+
+    int randomSelectCard();
+
+    /**
+     * resolve a batch of prepared tricks with the trick-winner rule of the engine
+     *
+     * @return the sum of the winning positions, to keep the work alive
+     */
+    int trickWinners();
+
+    /**
+     * resolve the same batch with TrickEvaluator.winners, four cards per trick in an int[]
+     *
+     * @return the sum of the winning positions, to keep the work alive
+     */
+    int batchTrickWinners();
+
+    /**
+     * resolve the same batch with TrickEvaluator.winners, one trick packed per long
+     *
+     * @return the sum of the winning positions, to keep the work alive
+     */
+    int packedTrickWinners();
+
+    /**
+     * create a SmartStrategy and notify it of every card of a round
+     *
+     * @return the strategy, to keep the work alive
+     */
+    Object smartResponseToCardPlayed();
+
+    /**
+     * shuffle and deal the four hands of a round into CardSets, as the engine does
+     *
+     * @return the hands combined, to keep the work alive
+     */
+    long engineDeal();
+
+    /**
+     * create the JCardGame deck. JCardGame loads the card images, so this needs a graphics device
+     */
+    void setUpDeck();
+
+    /**
+     * deal with deck.dealingOut and sort each hand by suit priority, as the game board did
+     *
+     * @return the hands, to keep the work alive
+     */
+    Object jcardgameDealAndSort();
+}
@@ -0,0 +1,150 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * the canonical keys of positions of random rounds, read from the seat of the player to move like the
+ * perfect player does: the positions that only differ by the order of the suits, the trumps following their
+ * suit, have the same key, and a decision taken on the canonical position of one of them, mapped back in
+ * another, is a card the player may play there
+ */
+class CanonicalizerTest {
+    private static final int nbPositions = Integer.getInteger("positions", 5000);
+
+    /**
+     * a position of a random round, with the cards and the voids by seat from the player to move
+     */
+    private static final class Position {
+        final long[] cards = new long[Canonicalizer.nbCodes];
+        final long[] voids = new long[Whist.nbPlayers];
+        Whist.Suit trumps;
+        Whist.Suit lead;
+
+        long hand() {
+            return cards[0];
+        }
+
+        long legal() {
+            return lead == null ? hand() : CardSet.legal(hand(), lead);
+        }
+
+        /**
+         * the same position with the suits renamed
+         *
+         * @param permutation the new suit of every suit
+         */
+        Position permute(int[] permutation) {
+            Position permuted = new Position();
+            for (int code = 0; code < Canonicalizer.nbCodes; code++) {
+                permuted.cards[code] = permute(cards[code], permutation);
+            }
+            for (int i = 0; i < Whist.nbPlayers; i++) {
+                permuted.voids[i] = permute(voids[i], permutation);
+            }
+            permuted.trumps = Whist.Suit.values()[permutation[trumps.ordinal()]];
+            permuted.lead = lead == null ? null : Whist.Suit.values()[permutation[lead.ordinal()]];
+            return permuted;
+        }
+
+        private static long permute(long cards, int[] permutation) {
+            long permuted = CardSet.EMPTY;
+            for (long rest = cards; rest != 0; rest &= rest - 1) {
+                int card = Long.numberOfTrailingZeros(rest);
+                permuted = CardSet.add(permuted, permutation[card / CardSet.nbRanks] * CardSet.nbRanks + card % CardSet.nbRanks);
+            }
+            return permuted;
+        }
+    }
+
+    private static Position randomPosition(SplittableRandom random, GameState state) {
+        long[] hands = new long[Whist.nbPlayers];
+        int nbCards = 1 + random.nextInt(CardSet.nbRanks);
+        long deck = CardSet.ALL;
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            for (int k = 0; k < nbCards; k++) {
+                int card = CardSet.nth(deck, random.nextInt(CardSet.size(deck)));
+                deck = CardSet.remove(deck, card);
+                hands[i] = CardSet.add(hands[i], card);
+            }
+        }
+        Position position = new Position();
+        position.trumps = Whist.Suit.values()[random.nextInt(CardSet.nbSuits)];
+        state.start(hands, position.trumps, random.nextInt(Whist.nbPlayers));
+        CardTracker tracker = new CardTracker(CardSet.EMPTY);
+        for (int ply = random.nextInt(nbCards * Whist.nbPlayers); ply > 0; ply--) {
+            long legal = state.legal();
+            int card = CardSet.nth(legal, random.nextInt(CardSet.size(legal)));
+            tracker.cardPlayed(state.getToMove(), card);
+            state.play(card);
+        }
+        int seat = state.getToMove();
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            position.cards[i] = state.getHand((seat + i) % Whist.nbPlayers);
+            position.voids[i] = tracker.getVoids((seat + i) % Whist.nbPlayers);
+        }
+        for (int i = 0; i < state.getTrickSize(); i++) {
+            position.cards[Canonicalizer.trickCode + i] = CardSet.of(state.getTrickCard(i));
+        }
+        position.lead = state.getLead();
+        return position;
+    }
+
+    private static int[] randomPermutation(SplittableRandom random) {
+        int[] permutation = {0, 1, 2, 3};
+        for (int i = CardSet.nbSuits - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int suit = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = suit;
+        }
+        return permutation;
+    }
+
+    @Test
+    void permutedSuitsHaveTheSameKey() {
+        SplittableRandom random = new SplittableRandom(8);
+        GameState state = new GameState();
+        Canonicalizer canonicalizer = new Canonicalizer();
+        for (int p = 0; p < nbPositions; p++) {
+            Position position = randomPosition(random, state);
+            Canonicalizer.Key key = canonicalizer.canonicalize(position.cards, position.trumps, position.voids, p);
+            Position permuted = position.permute(randomPermutation(random));
+            assertEquals(key, canonicalizer.canonicalize(permuted.cards, permuted.trumps, permuted.voids, p), "position " + p);
+            // without the voids, or with another context, it is another position
+            assertEquals(key.equals(canonicalizer.canonicalize(permuted.cards, permuted.trumps, null, p)),
+                    CardSet.isEmpty(position.voids[0] | position.voids[1] | position.voids[2] | position.voids[3]));
+            assertTrue(!key.equals(canonicalizer.canonicalize(permuted.cards, permuted.trumps, permuted.voids, p + 1)));
+        }
+    }
+
+    @Test
+    void decisionsMapBackToLegalCards() {
+        SplittableRandom random = new SplittableRandom(9);
+        GameState state = new GameState();
+        Canonicalizer canonicalizer = new Canonicalizer();
+        for (int p = 0; p < nbPositions; p++) {
+            Position position = randomPosition(random, state);
+            canonicalizer.canonicalize(position.cards, position.trumps, position.voids, 0);
+            // every live card goes to the canonical position and back
+            for (int code = 0; code < Canonicalizer.nbCodes; code++) {
+                for (long rest = position.cards[code]; rest != 0; rest &= rest - 1) {
+                    int card = Long.numberOfTrailingZeros(rest);
+                    assertEquals(card, canonicalizer.fromCanonical(canonicalizer.toCanonical(card)), "position " + p);
+                }
+            }
+            // a legal card of the canonical position, as a strategy decides it
+            Whist.Suit lead = position.lead == null ? null : CardSet.suitOf(canonicalizer.toCanonical(CardSet.lowest(position.cards[Canonicalizer.trickCode])));
+            long hand = canonicalizer.toCanonical(position.hand());
+            long legal = lead == null ? hand : CardSet.legal(hand, lead);
+            int decision = CardSet.nth(legal, random.nextInt(CardSet.size(legal)));
+            assertTrue(CardSet.contains(position.legal(), canonicalizer.fromCanonical(decision)), "position " + p);
+            // the decision found in a cache by the key of a permuted position is legal there
+            Position permuted = position.permute(randomPermutation(random));
+            canonicalizer.canonicalize(permuted.cards, permuted.trumps, permuted.voids, 0);
+            assertTrue(CardSet.contains(permuted.legal(), canonicalizer.fromCanonical(decision)), "permuted position " + p);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import ch.aplu.jcardgame.Card;
+import ch.aplu.jcardgame.Deck;
+import ch.aplu.jcardgame.Hand;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.awt.GraphicsEnvironment;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * the card indices of CardSet against the JCardGame cards of the game board: every card and random hands
+ * go to JCardGame and back unchanged, and the rank order is the one of Whist.rankGreater. A JCardGame deck
+ * loads the card images, so the tests only run with a display
+ */
+class CardSetTest {
+    private static Deck deck;
+
+    @BeforeAll
+    static void setUpDeck() {
+        assumeFalse(GraphicsEnvironment.isHeadless(), "a JCardGame deck needs a display");
+        deck = new Deck(Whist.Suit.values(), Whist.Rank.values(), "cover");
+    }
+
+    @Test
+    void cardsRoundTrip() {
+        for (int card = 0; card < CardSet.nbCards; card++) {
+            Card jcard = CardSet.toCard(deck, card);
+            assertSame(CardSet.suitOf(card), jcard.getSuit(), CardSet.cardToString(card));
+            assertSame(CardSet.rankOf(card), jcard.getRank(), CardSet.cardToString(card));
+            assertEquals(card, CardSet.fromCard(jcard));
+        }
+    }
+
+    @Test
+    void handsRoundTrip() {
+        SplittableRandom random = new SplittableRandom(2);
+        for (int i = 0; i < 1000; i++) {
+            long cards = random.nextLong() & CardSet.ALL;
+            Hand hand = CardSet.toHand(deck, cards);
+            assertEquals(CardSet.size(cards), hand.getNumberOfCards());
+            assertEquals(cards, CardSet.fromHand(hand));
+        }
+        assertEquals(CardSet.EMPTY, CardSet.fromHand(CardSet.toHand(deck, CardSet.EMPTY)));
+        assertEquals(CardSet.ALL, CardSet.fromHand(CardSet.toHand(deck, CardSet.ALL)));
+    }
+
+    @Test
+    void rankOrderMatchesJCardGame() {
+        for (int card1 = 0; card1 < CardSet.nbCards; card1++) {
+            for (int card2 = 0; card2 < CardSet.nbCards; card2++) {
+                assertEquals(Whist.rankGreater(CardSet.toCard(deck, card1), CardSet.toCard(deck, card2)),
+                        CardSet.rankGreater(card1, card2), CardSet.cardToString(card1) + " " + CardSet.cardToString(card2));
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * the card tracker follows rounds from the seat of a player: a seat that does not follow the lead is void
+ * in the suit led, and stops being void if it plays the suit after all. On random rounds played by the rules,
+ * the tracker agrees with the game state on the cards played, the cards unseen and the trick
+ */
+class CardTrackerTest {
+    private static final int nbRounds = Integer.getInteger("rounds", 2000);
+
+    private static int card(Whist.Suit suit, Whist.Rank rank) {
+        return CardSet.cardIndex(suit, rank);
+    }
+
+    @Test
+    void voidAfterNotFollowing() {
+        CardTracker tracker = new CardTracker(CardSet.of(card(Whist.Suit.CLUBS, Whist.Rank.TWO)));
+        tracker.cardPlayed(1, card(Whist.Suit.HEARTS, Whist.Rank.TEN));
+        tracker.cardPlayed(2, card(Whist.Suit.SPADES, Whist.Rank.TWO));
+        tracker.cardPlayed(3, card(Whist.Suit.HEARTS, Whist.Rank.ACE));
+        assertTrue(tracker.isVoid(2, Whist.Suit.HEARTS));
+        assertEquals(CardSet.suitMask(Whist.Suit.HEARTS), tracker.getVoids(2));
+        assertFalse(tracker.isVoid(1, Whist.Suit.HEARTS));
+        assertFalse(tracker.isVoid(3, Whist.Suit.HEARTS));
+        assertFalse(tracker.isVoid(2, Whist.Suit.SPADES));
+        tracker.cardPlayed(0, card(Whist.Suit.DIAMONDS, Whist.Rank.TWO));
+        assertTrue(tracker.isVoid(0, Whist.Suit.HEARTS));
+        assertEquals(0, tracker.getTrickSize());
+
+        // a void on a trump lead, then the seat broke the rule: it plays the suit it showed out of
+        tracker.cardPlayed(3, card(Whist.Suit.CLUBS, Whist.Rank.ACE));
+        tracker.cardPlayed(0, card(Whist.Suit.DIAMONDS, Whist.Rank.THREE));
+        assertTrue(tracker.isVoid(0, Whist.Suit.CLUBS));
+        assertTrue(tracker.isVoid(0, Whist.Suit.HEARTS));
+        tracker.cardPlayed(1, card(Whist.Suit.CLUBS, Whist.Rank.KING));
+        tracker.cardPlayed(2, card(Whist.Suit.HEARTS, Whist.Rank.TWO));
+        assertFalse(tracker.isVoid(2, Whist.Suit.HEARTS));
+        assertTrue(tracker.isVoid(2, Whist.Suit.CLUBS));
+    }
+
+    @Test
+    void followsRandomRounds() {
+        SplittableRandom random = new SplittableRandom(5);
+        GameState state = new GameState();
+        long[] hands = new long[Whist.nbPlayers];
+        long[] played = new long[Whist.nbPlayers];
+        long[] voids = new long[Whist.nbPlayers];
+        CardTracker tracker = new CardTracker(CardSet.EMPTY);
+        for (int r = 0; r < nbRounds; r++) {
+            // short rounds too, with cards not dealt that the player never sees
+            int nbCards = 1 + random.nextInt(CardSet.nbRanks);
+            long deck = CardSet.ALL;
+            for (int i = 0; i < Whist.nbPlayers; i++) {
+                hands[i] = CardSet.EMPTY;
+                for (int k = 0; k < nbCards; k++) {
+                    int card = CardSet.nth(deck, random.nextInt(CardSet.size(deck)));
+                    deck = CardSet.remove(deck, card);
+                    hands[i] = CardSet.add(hands[i], card);
+                }
+                played[i] = CardSet.EMPTY;
+                voids[i] = CardSet.EMPTY;
+            }
+            int position = random.nextInt(Whist.nbPlayers);
+            // a tracker reset for a new round follows it like a new one
+            tracker.reset(hands[position]);
+            state.start(hands, Whist.Suit.values()[random.nextInt(CardSet.nbSuits)], random.nextInt(Whist.nbPlayers));
+            for (int ply = 0; ply < nbCards * Whist.nbPlayers; ply++) {
+                int seat = state.getToMove();
+                long legal = state.legal();
+                int card = CardSet.nth(legal, random.nextInt(CardSet.size(legal)));
+                Whist.Suit lead = state.getLead();
+                if (lead != null && CardSet.suitOf(card) != lead) {
+                    voids[seat] |= CardSet.suitMask(lead);
+                }
+                played[seat] = CardSet.add(played[seat], card);
+                state.play(card);
+                tracker.cardPlayed(seat, card);
+
+                long all = CardSet.EMPTY;
+                for (int i = 0; i < Whist.nbPlayers; i++) {
+                    assertEquals(voids[i], tracker.getVoids(i), "voids of seat " + i);
+                    assertEquals(played[i], tracker.getPlayed(i), "cards played by seat " + i);
+                    // a seat void in a suit has none of it left
+                    assertEquals(CardSet.EMPTY, CardSet.intersection(voids[i], state.getHand(i)));
+                    all = CardSet.union(all, played[i]);
+                }
+                assertEquals(all, tracker.getPlayed());
+                assertEquals(CardSet.minus(CardSet.minus(CardSet.ALL, hands[position]), all), tracker.getUnseen());
+                assertEquals(state.getTrickSize(), tracker.getTrickSize());
+                assertEquals(state.getLead(), tracker.getLead());
+                for (int i = 0; i < state.getTrickSize(); i++) {
+                    assertEquals(state.getTrickCard(i), tracker.getTrickCard(i));
+                    assertEquals((state.getLeader() + i) % Whist.nbPlayers, tracker.getTrickSeat(i));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * the deal sampler against positions of random rounds: every layout gives every player its number of cards,
+ * its known cards and no card of a suit it showed out of, and deals only unseen cards. On a position small
+ * enough to enumerate its layouts, the layouts drawn are uniform within a chi-square bound
+ */
+class DealSamplerTest {
+    private static final int nbPositions = Integer.getInteger("positions", 1000);
+    private static final int layoutsPerPosition = 50;
+
+    @Test
+    void layoutsKeepVoidsAndSizes() {
+        SplittableRandom random = new SplittableRandom(6);
+        GameState state = new GameState();
+        DealSampler sampler = new DealSampler();
+        long[] hands = new long[Whist.nbPlayers];
+        int[] sizes = new int[Whist.nbPlayers];
+        long[] known = new long[Whist.nbPlayers];
+        long[] layout = new long[Whist.nbPlayers];
+        int[] cards = new int[CardSet.nbRanks];
+        for (int p = 0; p < nbPositions; p++) {
+            int nbCards = 1 + random.nextInt(CardSet.nbRanks);
+            long deck = CardSet.ALL;
+            for (int i = 0; i < Whist.nbPlayers; i++) {
+                hands[i] = CardSet.EMPTY;
+                for (int k = 0; k < nbCards; k++) {
+                    int card = CardSet.nth(deck, random.nextInt(CardSet.size(deck)));
+                    deck = CardSet.remove(deck, card);
+                    hands[i] = CardSet.add(hands[i], card);
+                }
+            }
+            int position = random.nextInt(Whist.nbPlayers);
+            CardTracker tracker = new CardTracker(hands[position]);
+            state.start(hands, Whist.Suit.values()[random.nextInt(CardSet.nbSuits)], random.nextInt(Whist.nbPlayers));
+            for (int ply = random.nextInt(nbCards * Whist.nbPlayers); ply > 0; ply--) {
+                long legal = state.legal();
+                int card = CardSet.nth(legal, random.nextInt(CardSet.size(legal)));
+                tracker.cardPlayed(state.getToMove(), card);
+                state.play(card);
+            }
+            long[] voids = new long[Whist.nbPlayers];
+            for (int i = 0; i < Whist.nbPlayers; i++) {
+                sizes[i] = i == position ? 0 : CardSet.size(state.getHand(i));
+                voids[i] = tracker.getVoids(i);
+                // now and then a card a player is known to hold, as a card it showed
+                known[i] = CardSet.EMPTY;
+                if (i != position && sizes[i] > 0 && random.nextInt(4) == 0) {
+                    known[i] = CardSet.of(CardSet.nth(state.getHand(i), random.nextInt(sizes[i])));
+                }
+            }
+            // the actual deal keeps the voids, they are never ignored
+            assertTrue(sampler.prepare(position, tracker.getUnseen(), sizes, voids, known), "position " + p);
+            for (int s = 0; s < layoutsPerPosition; s++) {
+                sampler.sample(random, layout, cards);
+                long dealt = CardSet.EMPTY;
+                for (int i = 0; i < Whist.nbPlayers; i++) {
+                    assertEquals(sizes[i], CardSet.size(layout[i]), "cards of seat " + i + " at position " + p);
+                    assertEquals(CardSet.EMPTY, CardSet.intersection(layout[i], voids[i]), "voids of seat " + i + " at position " + p);
+                    assertEquals(known[i], CardSet.intersection(layout[i], known[i]), "known cards of seat " + i + " at position " + p);
+                    assertEquals(CardSet.EMPTY, CardSet.intersection(dealt, layout[i]), "card dealt twice at position " + p);
+                    dealt = CardSet.union(dealt, layout[i]);
+                }
+                assertEquals(dealt, CardSet.intersection(dealt, tracker.getUnseen()), "card seen dealt at position " + p);
+            }
+        }
+    }
+
+    /**
+     * every layout of the unseen cards by brute force, each card to one of the other players or not dealt
+     */
+    private static List<Long> enumerate(int position, long unseen, int[] sizes, long[] voids) {
+        int[] unseenCards = new int[CardSet.size(unseen)];
+        for (int i = 0; i < unseenCards.length; i++) {
+            unseenCards[i] = CardSet.nth(unseen, i);
+        }
+        List<Long> layouts = new ArrayList<>();
+        int nbLayouts = 1;
+        for (int i = 0; i < unseenCards.length; i++) {
+            nbLayouts *= Whist.nbPlayers;
+        }
+        long[] layout = new long[Whist.nbPlayers];
+        for (int code = 0; code < nbLayouts; code++) {
+            Arrays.fill(layout, CardSet.EMPTY);
+            for (int i = 0, c = code; i < unseenCards.length; i++, c /= Whist.nbPlayers) {
+                // the receiver of the player's own seat stands for the cards not dealt
+                layout[c % Whist.nbPlayers] = CardSet.add(layout[c % Whist.nbPlayers], unseenCards[i]);
+            }
+            boolean valid = true;
+            for (int i = 0; i < Whist.nbPlayers; i++) {
+                valid &= i == position || CardSet.size(layout[i]) == sizes[i] && CardSet.intersection(layout[i], voids[i]) == CardSet.EMPTY;
+            }
+            if (valid) {
+                layouts.add(key(position, unseen, layout));
+            }
+        }
+        return layouts;
+    }
+
+    /**
+     * a layout as the receiver of every unseen card, two bits per card in the order of the cards
+     */
+    private static long key(int position, long unseen, long[] layout) {
+        long key = 0;
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            if (i != position) {
+                for (long rest = layout[i]; rest != 0; rest &= rest - 1) {
+                    int card = Long.numberOfTrailingZeros(rest);
+                    key |= (long) i << 2 * Long.bitCount(unseen & (1L << card) - 1);
+                }
+            }
+        }
+        return key;
+    }
+
+    @Test
+    void uniformOnSmallPosition() {
+        int position = 0;
+        // nine unseen cards of three suits, one of them not dealt, and two seats void in a suit
+        long unseen = CardSet.EMPTY;
+        for (Whist.Rank rank : new Whist.Rank[]{Whist.Rank.ACE, Whist.Rank.KING, Whist.Rank.QUEEN, Whist.Rank.TWO}) {
+            unseen = CardSet.add(unseen, CardSet.cardIndex(Whist.Suit.HEARTS, rank));
+        }
+        for (Whist.Rank rank : new Whist.Rank[]{Whist.Rank.ACE, Whist.Rank.TEN, Whist.Rank.THREE}) {
+            unseen = CardSet.add(unseen, CardSet.cardIndex(Whist.Suit.SPADES, rank));
+        }
+        unseen = CardSet.add(unseen, CardSet.cardIndex(Whist.Suit.CLUBS, Whist.Rank.JACK));
+        unseen = CardSet.add(unseen, CardSet.cardIndex(Whist.Suit.CLUBS, Whist.Rank.FIVE));
+        int[] sizes = {0, 3, 3, 2};
+        long[] voids = {CardSet.EMPTY, CardSet.suitMask(Whist.Suit.HEARTS), CardSet.EMPTY, CardSet.suitMask(Whist.Suit.CLUBS)};
+        List<Long> layouts = enumerate(position, unseen, sizes, voids);
+        Map<Long, Integer> index = new HashMap<>();
+        for (long layout : layouts) {
+            index.put(layout, index.size());
+        }
+        assertEquals(layouts.size(), index.size());
+        DealSampler sampler = new DealSampler();
+        assertTrue(sampler.prepare(position, unseen, sizes, voids, null));
+
+        int draws = 200 * layouts.size();
+        int[] counts = new int[layouts.size()];
+        SplittableRandom random = new SplittableRandom(7);
+        long[] layout = new long[Whist.nbPlayers];
+        int[] cards = new int[CardSet.nbRanks];
+        for (int s = 0; s < draws; s++) {
+            sampler.sample(random, layout, cards);
+            Integer found = index.get(key(position, unseen, layout));
+            assertNotNull(found, "a layout that breaks the constraints");
+            counts[found]++;
+        }
+        double expected = (double) draws / layouts.size();
+        double chiSquare = 0;
+        for (int count : counts) {
+            chiSquare += (count - expected) * (count - expected) / expected;
+        }
+        // the 0.999 quantile of the chi-square law, by the Wilson-Hilferty approximation
+        int freedom = layouts.size() - 1;
+        double h = 2.0 / (9 * freedom);
+        double bound = freedom * Math.pow(1 - h + 3.09 * Math.sqrt(h), 3);
+        assertTrue(chiSquare < bound, "chi-square " + chiSquare + " over " + bound + " for " + layouts.size() + " layouts");
+    }
+}
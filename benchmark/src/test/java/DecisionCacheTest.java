@@ -0,0 +1,62 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * the clock eviction of the decision cache: once full, a decision found since the hand of the clock last
+ * passed it gets a second chance, and the first one not found since is replaced
+ */
+class DecisionCacheTest {
+    private static Canonicalizer.Key key(int i) {
+        return new Canonicalizer.Key(new long[]{i, 0, 0, 0}, 0);
+    }
+
+    @Test
+    void evictsWithTheClock() {
+        DecisionCache cache = new DecisionCache("test", 4);
+        for (int i = 0; i < 4; i++) {
+            cache.put(key(i), i);
+        }
+        assertEquals(4, cache.size());
+        assertEquals(1, cache.get(key(1)));
+        assertEquals(3, cache.get(key(3)));
+
+        // the hand is on 0, not found since: replaced
+        cache.put(key(4), 4);
+        assertFalse(cache.contains(key(0)));
+        assertEquals(4, cache.size());
+        // 1 was found, its second chance, then 2 is replaced
+        cache.put(key(5), 5);
+        assertTrue(cache.contains(key(1)));
+        assertFalse(cache.contains(key(2)));
+        // 3 was found and passes, 4 was only put, not found: replaced
+        cache.put(key(6), 6);
+        assertTrue(cache.contains(key(3)));
+        assertFalse(cache.contains(key(4)));
+        // the hand passed 1 and 3 without them being found again since: 1 is next
+        cache.put(key(7), 7);
+        assertFalse(cache.contains(key(1)));
+        for (int i : new int[]{3, 5, 6, 7}) {
+            assertEquals(i, cache.get(key(i)));
+        }
+        assertEquals(4, cache.size());
+
+        // a decision put again does not change, nor take another place
+        cache.put(key(7), 0);
+        assertEquals(7, cache.get(key(7)));
+        assertEquals(4, cache.size());
+        assertEquals(-1, cache.get(key(0)));
+        assertEquals(7, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void emptyCacheHoldsNothing() {
+        DecisionCache cache = new DecisionCache("empty", 0);
+        cache.put(key(0), 0);
+        assertEquals(0, cache.size());
+        assertEquals(-1, cache.get(key(0)));
+    }
+}
@@ -0,0 +1,157 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * cross-check of the double-dummy solver against a brute-force minimax of every legal card, on random
+ * positions of a few cards per player, with a trick in progress or not, and for any side. Every position
+ * is solved by a new solver, and by one solver that solves them all in a row, so that the results it
+ * keeps in its transposition table are used on positions they were not searched on. Run with
+ * -Dpositions=50000 for a longer check, the positions of 5 cards take most of the time
+ */
+class DoubleDummySolverTest {
+    private static final int tableBits = 12;
+    private static final int solvedBits = 20;
+    private static final int positionCount = Integer.getInteger("positions", 4000);
+
+    // the positions the brute force solved, by hash, open addressing. A slot is used when it holds the
+    // number of the current position
+    private final long[] solvedKeys = new long[1 << solvedBits];
+    private final byte[] solvedValues = new byte[1 << solvedBits];
+    private final int[] solvedFor = new int[1 << solvedBits];
+    private int positions;
+
+    /**
+     * the tricks the side wins from the current trick on, with best play of everyone, by trying every legal
+     * card. The positions already solved are kept by their hash, for the current position only
+     */
+    private int bruteForce(GameState state, int side) {
+        if (state.getTrickSize() == 0 && CardSet.isEmpty(state.getHand(state.getLeader()))) {
+            return 0;
+        }
+        long hash = state.getHash();
+        int slot = slot(hash);
+        if (solvedFor[slot] == positions) {
+            return solvedValues[slot];
+        }
+        boolean maximizing = (side >>> state.getToMove() & 1) != 0;
+        int best = maximizing ? -1 : CardSet.nbCards;
+        for (long rest = state.legal(); rest != 0; rest &= rest - 1) {
+            state.play(Long.numberOfTrailingZeros(rest));
+            int value = bruteForce(state, side);
+            if (state.getTrickSize() == 0) {
+                value += side >>> state.getWinner() & 1;
+            }
+            state.undo();
+            best = maximizing ? Math.max(best, value) : Math.min(best, value);
+        }
+        slot = slot(hash);
+        solvedKeys[slot] = hash;
+        solvedFor[slot] = positions;
+        solvedValues[slot] = (byte) best;
+        return best;
+    }
+
+    /**
+     * the slot of a position solved, or the free slot for it
+     */
+    private int slot(long hash) {
+        int slot = (int) (hash ^ hash >>> 32) & solvedKeys.length - 1;
+        while (solvedFor[slot] == positions && solvedKeys[slot] != hash) {
+            slot = slot + 1 & solvedKeys.length - 1;
+        }
+        return slot;
+    }
+
+    private static long hand(String... cards) {
+        long hand = CardSet.EMPTY;
+        for (String card : cards) {
+            int suit = "SHDC".indexOf(card.charAt(card.length() - 1));
+            int rank = "AKQJT98765432".indexOf(card.charAt(0));
+            hand = CardSet.add(hand, suit * CardSet.nbRanks + rank);
+        }
+        return hand;
+    }
+
+    /**
+     * a position where a result of the transposition table was used on a position it did not hold for
+     */
+    @Test
+    void solvesReportedPosition() {
+        long[] hands = {hand("2D", "JC", "TC", "4C"), hand("9H", "TD", "8C", "2C"),
+                hand("TS", "TH", "9C", "6C"), hand("QH", "9D", "AC", "5C")};
+        assertEquals(3, new DoubleDummySolver(tableBits, null).solve(hands, Whist.Suit.CLUBS, 1, new int[0], 0, 0b0101));
+    }
+
+    @Test
+    void matchesBruteForce() {
+        SplittableRandom random = new SplittableRandom(30006);
+        DoubleDummySolver reused = new DoubleDummySolver(tableBits, null);
+        GameState state = new GameState();
+        int[] trick = new int[Whist.nbPlayers];
+        for (int n = 0; n < positionCount; n++) {
+            int nbCards = 2 + n % 4;
+            long[] hands = new long[Whist.nbPlayers];
+            long deck = CardSet.ALL;
+            for (int i = 0; i < Whist.nbPlayers * nbCards; i++) {
+                int card = CardSet.nth(deck, random.nextInt(CardSet.size(deck)));
+                deck = CardSet.remove(deck, card);
+                hands[i % Whist.nbPlayers] = CardSet.add(hands[i % Whist.nbPlayers], card);
+            }
+            Whist.Suit trumps = Whist.Suit.values()[random.nextInt(CardSet.nbSuits)];
+            int side = random.nextInt(1, (1 << Whist.nbPlayers) - 1);
+            state.start(hands, trumps, random.nextInt(Whist.nbPlayers));
+            int trickSize = random.nextInt(Whist.nbPlayers);
+            for (int i = 0; i < trickSize; i++) {
+                long legal = state.legal();
+                state.play(CardSet.nth(legal, random.nextInt(CardSet.size(legal))));
+            }
+            long[] position = state.getHands().clone();
+            for (int i = 0; i < trickSize; i++) {
+                trick[i] = state.getTrickCard(i);
+            }
+            int leader = state.getLeader();
+            positions++;
+            int expected = bruteForce(state, side);
+            String message = "position " + n;
+            assertEquals(expected, new DoubleDummySolver(tableBits, null).solve(position, trumps, leader, trick, trickSize, side),
+                    message);
+            assertEquals(expected, reused.solve(position, trumps, leader, trick, trickSize, side), message);
+        }
+    }
+
+    /**
+     * the tablebase only saves the search of the last tricks, the results must not change with it.
+     * skipped when there is no tablebase file, given by -Dtablebase=<path>
+     */
+    @Test
+    void tablebaseMatchesSearch() {
+        Path path = Paths.get(System.getProperty("tablebase", EndgameTablebase.defaultFile));
+        assumeTrue(Files.exists(path), "no tablebase at " + path.toAbsolutePath());
+        DoubleDummySolver withTablebase = new DoubleDummySolver(tableBits, EndgameTablebase.open(path));
+        DoubleDummySolver searchOnly = new DoubleDummySolver(tableBits, null);
+        SplittableRandom random = new SplittableRandom(30019);
+        int[] trick = new int[0];
+        for (int n = 0; n < positionCount; n++) {
+            int nbCards = 4 + n % 3;
+            long[] hands = new long[Whist.nbPlayers];
+            long deck = CardSet.ALL;
+            for (int i = 0; i < Whist.nbPlayers * nbCards; i++) {
+                int card = CardSet.nth(deck, random.nextInt(CardSet.size(deck)));
+                deck = CardSet.remove(deck, card);
+                hands[i % Whist.nbPlayers] = CardSet.add(hands[i % Whist.nbPlayers], card);
+            }
+            Whist.Suit trumps = Whist.Suit.values()[random.nextInt(CardSet.nbSuits)];
+            int side = random.nextInt(1, (1 << Whist.nbPlayers) - 1);
+            int leader = random.nextInt(Whist.nbPlayers);
+            assertEquals(searchOnly.solve(hands, trumps, leader, trick, 0, side),
+                    withTablebase.solve(hands, trumps, leader, trick, 0, side), "position " + n);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * games written to an archive, read back and replayed: the replay must end like the game, with the same
+ * winner and the same scores, under the rule policy the game was played with, an aborted game included
+ */
+class GameRecordTest {
+    private static final String[] players = {"random,0", "smart,1", "random,2", "smart,3"};
+
+    @TempDir
+    Path folder;
+
+    /**
+     * a game where the players given replace the ones of the configuration
+     */
+    private static class Game extends WhistEngine {
+        private final ISelectCard selection;
+
+        Game(long seed, RulePolicy rulePolicy, ISelectCard selection) {
+            super(seed, players, 5, 3, rulePolicy);
+            this.selection = selection;
+        }
+
+        @Override
+        Player[] createPlayers(long[] hands) {
+            Player[] created = super.createPlayers(hands);
+            for (int i = 0; selection != null && i < Whist.nbPlayers; i++) {
+                created[i] = new Player(selection, this, i);
+            }
+            return created;
+        }
+    }
+
+    /**
+     * play a game recorded in a new archive, then replay its record read back from the archive
+     *
+     * @return the record read back
+     */
+    private GameRecord playAndReplay(Game game, String name) throws IOException {
+        Path path = folder.resolve(name);
+        int winner;
+        try (GameArchiveWriter archive = new GameArchiveWriter(path)) {
+            game.addObserver(new GameRecorder(archive));
+            winner = game.play();
+        }
+        GameArchive archive = new GameArchive(path);
+        assertEquals(1, archive.size());
+        GameRecord record = archive.get(0);
+        assertEquals(winner, record.getWinner());
+        assertEquals(game.getRulePolicy(), record.getRulePolicy());
+        GameReplayer replay = new GameReplayer(record, null);
+        assertEquals(winner, replay.play());
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            assertEquals(game.getScore(i), replay.getScore(i), "score of player " + i);
+        }
+        return record;
+    }
+
+    @Test
+    void replaysEveryPolicy() throws IOException {
+        for (RulePolicy policy : RulePolicy.values()) {
+            for (long seed = 0; seed < 20; seed++) {
+                playAndReplay(new Game(seed, policy, null), policy + "-" + seed);
+            }
+        }
+    }
+
+    /**
+     * a game aborted on the lead of its first round, before any card is played: the leader of the round
+     * is recorded when the round starts
+     */
+    @Test
+    void replaysGameAbortedOnLead() throws IOException {
+        ISelectCard cheat = new ISelectCard() {
+            @Override
+            public int selectCard(int position, long hand, long legal, WhistEngine game) {
+                return game.getLead() == null ? 99 : CardSet.lowest(legal);
+            }
+
+            @Override
+            public void responseToCardPlayed(int position, int cardPlayed) {
+            }
+        };
+        Game game = new Game(7, RulePolicy.ABORT, cheat);
+        GameRecord record = playAndReplay(game, "aborted");
+        assertEquals(-1, record.getWinner());
+        assertEquals(1, record.getNbRounds());
+        assertEquals(0, record.getRound(0).getNbCards());
+        assertEquals(game.getTrickLeader(), record.getRound(0).getLeader());
+    }
+}
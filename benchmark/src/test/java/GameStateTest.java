@@ -0,0 +1,109 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * random rounds played on a game state and taken back: every undo restores the hands, the tricks won, the
+ * leader, the trick and the hash exactly, and the hash only depends on the position, not on the cards that
+ * led to it
+ */
+class GameStateTest {
+    private static final int nbRounds = Integer.getInteger("rounds", 2000);
+
+    /**
+     * what a card played may change, taken before it is played
+     */
+    private static final class Snapshot {
+        private final long[] hands;
+        private final int[] tricks = new int[Whist.nbPlayers];
+        private final int leader;
+        private final int toMove;
+        private final int trickSize;
+        private final Whist.Suit lead;
+        private final int winner;
+        private final int winningCard;
+        private final long hash;
+
+        Snapshot(GameState state) {
+            hands = state.getHands().clone();
+            for (int i = 0; i < Whist.nbPlayers; i++) {
+                tricks[i] = state.getTricks(i);
+            }
+            leader = state.getLeader();
+            toMove = state.getToMove();
+            trickSize = state.getTrickSize();
+            lead = state.getLead();
+            winner = state.getWinner();
+            winningCard = state.getWinningCard();
+            hash = state.getHash();
+        }
+
+        void check(GameState state, int ply) {
+            Snapshot now = new Snapshot(state);
+            assertArrayEquals(hands, now.hands, "hands at ply " + ply);
+            assertArrayEquals(tricks, now.tricks, "tricks at ply " + ply);
+            assertEquals(leader, now.leader, "leader at ply " + ply);
+            assertEquals(toMove, now.toMove, "player to move at ply " + ply);
+            assertEquals(trickSize, now.trickSize, "trick size at ply " + ply);
+            assertEquals(lead, now.lead, "lead at ply " + ply);
+            assertEquals(winner, now.winner, "winner at ply " + ply);
+            assertEquals(winningCard, now.winningCard, "winning card at ply " + ply);
+            assertEquals(hash, now.hash, "hash at ply " + ply);
+        }
+    }
+
+    private static long[] deal(SplittableRandom random) {
+        int[] deck = new int[CardSet.nbCards];
+        for (int i = 0; i < deck.length; i++) {
+            int j = random.nextInt(i + 1);
+            deck[i] = deck[j];
+            deck[j] = i;
+        }
+        long[] hands = new long[Whist.nbPlayers];
+        for (int i = 0; i < deck.length; i++) {
+            hands[i % Whist.nbPlayers] = CardSet.add(hands[i % Whist.nbPlayers], deck[i]);
+        }
+        return hands;
+    }
+
+    @Test
+    void undoRestoresEveryCard() {
+        SplittableRandom random = new SplittableRandom(4);
+        GameState state = new GameState();
+        GameState fresh = new GameState();
+        Snapshot[] snapshots = new Snapshot[CardSet.nbCards];
+        int[] trick = new int[Whist.nbPlayers];
+        for (int r = 0; r < nbRounds; r++) {
+            Whist.Suit trumps = Whist.Suit.values()[random.nextInt(CardSet.nbSuits)];
+            state.start(deal(random), trumps, random.nextInt(Whist.nbPlayers));
+            for (int ply = 0; ply < CardSet.nbCards; ply++) {
+                snapshots[ply] = new Snapshot(state);
+                // the same position started from its hands and its trick has the same hash
+                for (int i = 0; i < state.getTrickSize(); i++) {
+                    trick[i] = state.getTrickCard(i);
+                }
+                fresh.start(state.getHands(), trumps, state.getLeader(), trick, state.getTrickSize());
+                assertEquals(state.getHash(), fresh.getHash(), "hash at ply " + ply);
+                // a card played and taken back at once changes nothing
+                long legal = state.legal();
+                int card = CardSet.nth(legal, random.nextInt(CardSet.size(legal)));
+                state.play(card);
+                state.undo();
+                snapshots[ply].check(state, ply);
+                state.play(card);
+            }
+            int total = 0;
+            for (int i = 0; i < Whist.nbPlayers; i++) {
+                total += state.getTricks(i);
+            }
+            assertEquals(CardSet.nbRanks, total);
+            for (int ply = CardSet.nbCards - 1; ply >= 0; ply--) {
+                state.undo();
+                snapshots[ply].check(state, ply);
+            }
+        }
+    }
+}
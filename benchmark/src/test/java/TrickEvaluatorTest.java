@@ -0,0 +1,95 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * the trick-winner rule on card indices against the rule of the original game, which went through the cards
+ * of a trick keeping the winning card: a card of the suit of the winning card and of a greater rank, or a
+ * trump over a card that is not, became the winning card. The original rule read the suit and the rank id of
+ * the JCardGame cards, the rank id being the order of Whist.Rank, so it is replayed on the suits and ranks
+ * of the card indices. The random tricks mix the trumps with two other suits, so that tricks are followed,
+ * trumped, overtrumped and discarded on, and led in trumps or in another suit
+ */
+class TrickEvaluatorTest {
+    private static final int nbTricks = Integer.getInteger("tricks", 100000);
+
+    /**
+     * the winner of a trick as the original game found it
+     *
+     * @return the position in the trick of the winning card
+     */
+    private static int originalWinner(int[] cards, int from, Whist.Suit trumps) {
+        int winner = 0;
+        int winningCard = cards[from];
+        for (int i = 1; i < Whist.nbPlayers; i++) {
+            int selected = cards[from + i];
+            if ( // beat current winner with higher card
+                    (CardSet.suitOf(selected) == CardSet.suitOf(winningCard)
+                            && CardSet.rankOf(selected).ordinal() < CardSet.rankOf(winningCard).ordinal()) ||
+                            // trumped when non-trump was winning
+                            (CardSet.suitOf(selected) == trumps && CardSet.suitOf(winningCard) != trumps)) {
+                winner = i;
+                winningCard = selected;
+            }
+        }
+        return winner;
+    }
+
+    /**
+     * four different cards of the trumps and two other suits
+     */
+    private static void deal(SplittableRandom random, Whist.Suit trumps, int[] cards, int from) {
+        int[] suits = {trumps.ordinal(), (trumps.ordinal() + 1 + random.nextInt(3)) % CardSet.nbSuits,
+                (trumps.ordinal() + 1 + random.nextInt(3)) % CardSet.nbSuits};
+        long dealt = CardSet.EMPTY;
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            int card;
+            do {
+                card = suits[random.nextInt(suits.length)] * CardSet.nbRanks + random.nextInt(CardSet.nbRanks);
+            } while (CardSet.contains(dealt, card));
+            dealt = CardSet.add(dealt, card);
+            cards[from + i] = card;
+        }
+    }
+
+    @Test
+    void winnerMatchesOriginalRule() {
+        SplittableRandom random = new SplittableRandom(3);
+        int[] cards = new int[nbTricks * Whist.nbPlayers];
+        int[] trumps = new int[nbTricks];
+        long[] packed = new long[nbTricks];
+        int[] expected = new int[nbTricks];
+        GameState state = new GameState();
+        long[] hands = new long[Whist.nbPlayers];
+        for (int t = 0; t < nbTricks; t++) {
+            Whist.Suit trump = Whist.Suit.values()[random.nextInt(CardSet.nbSuits)];
+            int from = t * Whist.nbPlayers;
+            deal(random, trump, cards, from);
+            trumps[t] = trump.ordinal();
+            packed[t] = TrickEvaluator.pack(cards, from, trump);
+            expected[t] = originalWinner(cards, from, trump);
+            assertEquals(expected[t], TrickEvaluator.winner(cards, from, Whist.nbPlayers, trump), "trick " + t);
+            // the game state plays the trick card by card, from a random leader
+            int leader = random.nextInt(Whist.nbPlayers);
+            for (int i = 0; i < Whist.nbPlayers; i++) {
+                hands[(leader + i) % Whist.nbPlayers] = CardSet.of(cards[from + i]);
+            }
+            state.start(hands, trump, leader);
+            for (int i = 0; i < Whist.nbPlayers; i++) {
+                state.play(cards[from + i]);
+            }
+            assertEquals((leader + expected[t]) % Whist.nbPlayers, state.getLeader(), "trick " + t);
+        }
+        int[] winners = new int[nbTricks];
+        TrickEvaluator.winners(cards, trumps, nbTricks, winners);
+        for (int t = 0; t < nbTricks; t++) {
+            assertEquals(expected[t], winners[t], "trick " + t);
+        }
+        TrickEvaluator.winners(packed, nbTricks, winners);
+        for (int t = 0; t < nbTricks; t++) {
+            assertEquals(expected[t], winners[t], "packed trick " + t);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+import ch.aplu.jcardgame.*;
+
+/**
+ * the view of the cards on the game board, kept from one card to the next. The layouts of the hands and
+ * of the trick are made once from the BoardLocation, the trick is one hand emptied after every trick, and
+ * a card played only moves that card and makes room for it in the trick. JGameGrid repaints the whole
+ * board on every frame of its simulation loop, so the loop runs at most frameRate times a second, and in
+ * fast forward it does not run at all: the cards are put at their place without sliding and the board is
+ * repainted once per change
+ */
+final class BoardRenderer {
+    static final int defaultFrameRate = 30;
+    private final Whist board;
+    private final BoardLocation boardLocation;
+    private final boolean fastForward;
+    private final RowLayout[] handLayouts = new RowLayout[Whist.nbPlayers];
+    private final RowLayout trickLayout;
+    // the cards played slide to the trick, or jump there in fast forward
+    private final TargetArea trickArea;
+    private final Hand trick;
+
+    /**
+     * board renderer constructor.
+     *
+     * @param board         the game board
+     * @param deck          the deck of the cards
+     * @param boardLocation the coordinates of the game board
+     * @param frameRate     the most frames per second painted while cards slide
+     * @param fastForward   if the cards are played without sliding, when no human plays
+     */
+    BoardRenderer(Whist board, Deck deck, BoardLocation boardLocation, int frameRate, boolean fastForward) {
+        this.board = board;
+        this.boardLocation = boardLocation;
+        this.fastForward = fastForward;
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            handLayouts[i] = new RowLayout(boardLocation.handLocations[i], boardLocation.handWidth);
+            handLayouts[i].setRotationAngle(90 * i);
+        }
+        trickLayout = new RowLayout(boardLocation.trickLocation, 2 * boardLocation.trickWidth);
+        trickArea = fastForward ? new TargetArea(boardLocation.trickLocation, CardOrientation.NORTH, 0, true)
+                : new TargetArea(boardLocation.trickLocation);
+        trick = new Hand(deck);
+        trick.setView(board, trickLayout);
+        board.setSimulationPeriod(1000 / Math.max(1, frameRate));
+        if (fastForward) {
+            board.doPause();
+        }
+    }
+
+    /**
+     * lay out the hands dealt, face up for the player at seat 0 and face down for the others
+     *
+     * @param hands the hands of the players
+     */
+    void handsDealt(Hand[] hands) {
+        beginChange();
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            hands[i].setView(board, handLayouts[i]);
+            hands[i].setTargetArea(trickArea);
+            hands[i].draw();
+            if (i > 0) {
+                hands[i].setVerso(true);
+            }
+        }
+        endChange();
+    }
+
+    /**
+     * move a card from the hand of its player to the trick, which grows by one card
+     *
+     * @param card the card played, in the hand of its player
+     */
+    void cardPlayed(Card card) {
+        beginChange();
+        trickLayout.setRowWidth((trick.getNumberOfCards() + 2) * boardLocation.trickWidth);
+        trick.draw();
+        // In case it is upside down
+        card.setVerso(false);
+        // transfer to trick (includes graphic effect, unless in fast forward)
+        card.transfer(trick, true);
+        endChange();
+    }
+
+    /**
+     * take the cards of the trick off the board, the trick is empty for the next lead
+     */
+    void trickCleared() {
+        beginChange();
+        trick.removeAll(false);
+        endChange();
+    }
+
+    /**
+     * in fast forward, the changes of the board are painted together when they are done
+     */
+    private void beginChange() {
+        if (fastForward) {
+            board.setAutoRefresh(false);
+        }
+    }
+
+    private void endChange() {
+        if (fastForward) {
+            board.setAutoRefresh(true);
+            board.refresh();
+        }
+    }
+}
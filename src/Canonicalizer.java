@@ -0,0 +1,203 @@
+/**
+ * maps the position a player decides on to a canonical key, the same for all the positions that only differ
+ * by the order of the non-trump suits or by cards that make no difference. Only the live cards count, the
+ * cards not played yet and the cards of the current trick, and a card of a suit is only known by its order
+ * among the live cards of the suit: two cards of a hand with no live card between them are then the same
+ * card. Every live card has a code, who holds it or where it is, so a suit is the codes of its cards from
+ * the highest one, with the suits some players showed out of. The trump suit comes first and the other
+ * suits are sorted on these. The canonical position is the position played with the suits in that order
+ * and the live cards of every suit at the top of the suit, so it can be decided instead of the real one
+ * and its decision mapped back. A canonicalizer remembers the last position it canonicalized, it is not
+ * thread-safe.
+ */
+final class Canonicalizer {
+    // the codes of the cards of the current trick, by their position in the trick
+    static final int trickCode = Whist.nbPlayers;
+    static final int nbCodes = trickCode + Whist.nbPlayers - 1;
+    private static final int codeBits = 3;
+    private static final int voidBits = Whist.nbPlayers;
+    private static final long[] suitMasks = new long[CardSet.nbSuits];
+
+    static {
+        for (int suit = 0; suit < CardSet.nbSuits; suit++) {
+            suitMasks[suit] = CardSet.suit(CardSet.ALL, suit);
+        }
+    }
+
+    // the real suit of every canonical suit, the canonical suit of every real suit, and the live cards
+    private final int[] suits = new int[CardSet.nbSuits];
+    private final int[] slots = new int[CardSet.nbSuits];
+    private long live;
+
+    /**
+     * the key of a position, a long per canonical suit with the codes of its cards, its length and the
+     * seats void in it, and a long for what the decision also depends on
+     */
+    static final class Key {
+        private final long suit0;
+        private final long suit1;
+        private final long suit2;
+        private final long suit3;
+        private final long context;
+
+        Key(long[] suits, long context) {
+            this.suit0 = suits[0];
+            this.suit1 = suits[1];
+            this.suit2 = suits[2];
+            this.suit3 = suits[3];
+            this.context = context;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return suit0 == key.suit0 && suit1 == key.suit1 && suit2 == key.suit2 && suit3 == key.suit3
+                    && context == key.context;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(mix());
+        }
+
+        /**
+         * a well mixed 64 bit hash of the key, also a seed for deciding the position
+         *
+         * @return the hash
+         */
+        long mix() {
+            long h = context;
+            h = mix(h, suit0);
+            h = mix(h, suit1);
+            h = mix(h, suit2);
+            h = mix(h, suit3);
+            return h ^ h >>> 32;
+        }
+
+        private static long mix(long h, long value) {
+            h = (h ^ value) * 0x9E3779B97F4A7C15L;
+            return h ^ h >>> 29;
+        }
+    }
+
+    /**
+     * canonicalize a position. The codes are up to the caller, but a card of the current trick has the code
+     * trickCode plus its position in the trick, so that the lead is known
+     *
+     * @param cards   the live cards of every code, from 0 to nbCodes - 1, empty for the unused codes
+     * @param trumps  the trump suit
+     * @param voids   the suits every seat showed out of, as CardTracker.getVoids, from the player deciding
+     *                on, or null
+     * @param context what else the decision depends on, like the parameters of the strategy
+     * @return the key of the position
+     */
+    Key canonicalize(long[] cards, Whist.Suit trumps, long[] voids, long context) {
+        live = CardSet.EMPTY;
+        for (int code = 0; code < nbCodes; code++) {
+            live |= cards[code];
+        }
+        long[] patterns = new long[CardSet.nbSuits];
+        for (int suit = 0; suit < CardSet.nbSuits; suit++) {
+            long pattern = 0;
+            int length = 0;
+            for (long rest = CardSet.suit(live, suit); rest != 0; rest &= rest - 1) {
+                long card = rest & -rest;
+                int code = 0;
+                while ((cards[code] & card) == 0) {
+                    code++;
+                }
+                pattern |= (long) code << codeBits * length++;
+            }
+            int voidSeats = 0;
+            for (int seat = 0; voids != null && seat < Whist.nbPlayers; seat++) {
+                if ((voids[seat] & suitMasks[suit]) != 0) {
+                    voidSeats |= 1 << seat;
+                }
+            }
+            // the longest suits first, then the patterns, then the voids
+            patterns[suit] = (long) length << codeBits * CardSet.nbRanks + voidBits | pattern << voidBits | voidSeats;
+            suits[suit] = suit;
+        }
+        // the trumps first, then the other suits sorted from the largest pattern
+        int trump = trumps.ordinal();
+        suits[trump] = 0;
+        suits[0] = trump;
+        for (int i = 2; i < CardSet.nbSuits; i++) {
+            for (int j = i; j > 1 && patterns[suits[j]] > patterns[suits[j - 1]]; j--) {
+                int suit = suits[j];
+                suits[j] = suits[j - 1];
+                suits[j - 1] = suit;
+            }
+        }
+        long[] key = new long[CardSet.nbSuits];
+        for (int slot = 0; slot < CardSet.nbSuits; slot++) {
+            slots[suits[slot]] = slot;
+            key[slot] = patterns[suits[slot]];
+        }
+        return new Key(key, context);
+    }
+
+    /**
+     * the canonical card of a live card of the last position canonicalized
+     *
+     * @param card the real card
+     * @return the card of the canonical position, its canonical suit and its order in the suit
+     */
+    int toCanonical(int card) {
+        int suit = card / CardSet.nbRanks;
+        return slots[suit] * CardSet.nbRanks + CardSet.size(CardSet.higher(live, card));
+    }
+
+    /**
+     * the canonical cards of live cards of the last position canonicalized
+     *
+     * @param cards the real cards
+     * @return the cards of the canonical position
+     */
+    long toCanonical(long cards) {
+        long canonical = CardSet.EMPTY;
+        for (long rest = cards & live; rest != 0; rest &= rest - 1) {
+            canonical = CardSet.add(canonical, toCanonical(Long.numberOfTrailingZeros(rest)));
+        }
+        return canonical;
+    }
+
+    /**
+     * the suits of the canonical position
+     *
+     * @param mask the mask of the real suits, as CardTracker.getVoids
+     * @return the mask of their canonical suits
+     */
+    long toCanonicalSuits(long mask) {
+        long canonical = CardSet.EMPTY;
+        for (int suit = 0; suit < CardSet.nbSuits; suit++) {
+            if ((mask & suitMasks[suit]) != 0) {
+                canonical |= suitMasks[slots[suit]];
+            }
+        }
+        return canonical;
+    }
+
+    /**
+     * the real card of a canonical card of the last position canonicalized
+     *
+     * @param card the canonical card
+     * @return the live card of the real position
+     */
+    int fromCanonical(int card) {
+        long suit = CardSet.suit(live, suits[card / CardSet.nbRanks]);
+        return CardSet.nth(suit, card % CardSet.nbRanks);
+    }
+
+    /**
+     * the trump suit of the canonical positions
+     *
+     * @return the suit of the first canonical suit
+     */
+    static Whist.Suit canonicalTrumps() {
+        return Whist.Suit.values()[0];
+    }
+}
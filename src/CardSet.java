@@ -0,0 +1,286 @@
+import ch.aplu.jcardgame.Card;
+import ch.aplu.jcardgame.Deck;
+import ch.aplu.jcardgame.Hand;
+
+/**
+ * Helper class for sets of cards packed in a long. Card i is bit i, with i = suit * 13 + rank where
+ * suit and rank are the ordinals of Whist.Suit and Whist.Rank, so each suit is a lane of 13 bits and
+ * inside a lane the ACE is the lowest bit. The highest card of a set is therefore its lowest bit.
+ * The card index is the card number JCardGame gives the same card.
+ */
+final class CardSet {
+    static final int nbRanks = Whist.Rank.values().length;
+    static final int nbSuits = Whist.Suit.values().length;
+    static final int nbCards = nbSuits * nbRanks;
+    static final long EMPTY = 0L;
+    static final long ALL = (1L << nbCards) - 1;
+
+    private static final Whist.Suit[] suits = Whist.Suit.values();
+    private static final Whist.Rank[] ranks = Whist.Rank.values();
+    private static final long LANE = (1L << nbRanks) - 1;
+    private static final long[] suitMasks = new long[nbSuits];
+    private static final long[] rankMasks = new long[nbRanks];
+
+    static {
+        for (int suit = 0; suit < nbSuits; suit++) {
+            suitMasks[suit] = LANE << (suit * nbRanks);
+        }
+        for (int rank = 0; rank < nbRanks; rank++) {
+            for (int suit = 0; suit < nbSuits; suit++) {
+                rankMasks[rank] |= 1L << (suit * nbRanks + rank);
+            }
+        }
+    }
+
+    private CardSet() {
+    }
+
+    /**
+     * the index of a card
+     *
+     * @param suit suit of the card
+     * @param rank rank of the card
+     * @return the index of the card, from 0 to 51
+     */
+    static int cardIndex(Whist.Suit suit, Whist.Rank rank) {
+        return suit.ordinal() * nbRanks + rank.ordinal();
+    }
+
+    static Whist.Suit suitOf(int card) {
+        return suits[card / nbRanks];
+    }
+
+    static Whist.Rank rankOf(int card) {
+        return ranks[card % nbRanks];
+    }
+
+    /**
+     * Compare the rank of two cards
+     *
+     * @param card1 index of card one
+     * @param card2 index of card two
+     * @return True if card 1 > card 2, other wise false
+     * Warning: Reverse rank order of cards, same as Whist.rankGreater()
+     */
+    static boolean rankGreater(int card1, int card2) {
+        return card1 % nbRanks < card2 % nbRanks;
+    }
+
+    static String cardToString(int card) {
+        return rankOf(card) + "-" + suitOf(card);
+    }
+
+    static long of(int card) {
+        return 1L << card;
+    }
+
+    static boolean contains(long cards, int card) {
+        return (cards & (1L << card)) != 0;
+    }
+
+    static long add(long cards, int card) {
+        return cards | (1L << card);
+    }
+
+    static long remove(long cards, int card) {
+        return cards & ~(1L << card);
+    }
+
+    static long union(long cards1, long cards2) {
+        return cards1 | cards2;
+    }
+
+    static long intersection(long cards1, long cards2) {
+        return cards1 & cards2;
+    }
+
+    static long minus(long cards1, long cards2) {
+        return cards1 & ~cards2;
+    }
+
+    static boolean isEmpty(long cards) {
+        return cards == 0;
+    }
+
+    static int size(long cards) {
+        return Long.bitCount(cards);
+    }
+
+    static long suitMask(Whist.Suit suit) {
+        return suitMasks[suit.ordinal()];
+    }
+
+    /**
+     * the cards of one suit
+     *
+     * @param cards the set of cards
+     * @param suit  the suit wanted, or null
+     * @return the cards with the suit, empty if the suit is null
+     */
+    static long suit(long cards, Whist.Suit suit) {
+        return suit == null ? EMPTY : cards & suitMasks[suit.ordinal()];
+    }
+
+    static long suit(long cards, int suit) {
+        return cards & suitMasks[suit];
+    }
+
+    /**
+     * the cards a player may play: the cards of the lead suit if there are some, otherwise any card
+     *
+     * @param hand the cards of the player
+     * @param lead the suit led in the trick, or null when the player leads
+     * @return the legal cards, the whole hand when the player leads or cannot follow suit
+     */
+    static long legal(long hand, Whist.Suit lead) {
+        long follow = suit(hand, lead);
+        return follow == EMPTY ? hand : follow;
+    }
+
+    static long legal(long hand, int lead) {
+        long follow = hand & suitMasks[lead];
+        return follow == EMPTY ? hand : follow;
+    }
+
+    /**
+     * the cards of one rank, one card per suit at most
+     *
+     * @param cards the set of cards
+     * @param rank  the rank wanted
+     * @return the cards with the rank
+     */
+    static long rank(long cards, Whist.Rank rank) {
+        return cards & rankMasks[rank.ordinal()];
+    }
+
+    /**
+     * the ranks present in any suit of a set, folded into a single 13 bit lane
+     *
+     * @param cards the set of cards
+     * @return bit r is set if a card of rank ordinal r is in the set
+     */
+    static int ranks(long cards) {
+        return (int) ((cards | cards >>> nbRanks | cards >>> 2 * nbRanks | cards >>> 3 * nbRanks) & LANE);
+    }
+
+    /**
+     * the highest card of a set, the first suit wins if several suits have it
+     *
+     * @param cards the set of cards
+     * @return the index of the card, or -1 if the set is empty
+     */
+    static int highest(long cards) {
+        return cards == 0 ? -1 : Long.numberOfTrailingZeros(cards);
+    }
+
+    /**
+     * the lowest card of a set, only meaningful for cards of one suit
+     *
+     * @param cards the set of cards
+     * @return the index of the card, or -1 if the set is empty
+     */
+    static int lowest(long cards) {
+        return 63 - Long.numberOfLeadingZeros(cards);
+    }
+
+    /**
+     * the smallest card of a set over all suits, the first suit wins if several suits have it
+     *
+     * @param cards the set of cards
+     * @return the index of the card, or -1 if the set is empty
+     */
+    static int lowestRank(long cards) {
+        if (cards == 0) {
+            return -1;
+        }
+        int rank = 31 - Integer.numberOfLeadingZeros(ranks(cards));
+        return Long.numberOfTrailingZeros(cards & rankMasks[rank]);
+    }
+
+    /**
+     * the cards in the suit of a card that have a higher rank than it
+     *
+     * @param cards the set of cards
+     * @param card  the card to beat
+     * @return the cards of the same suit ranked above the card
+     */
+    static long higher(long cards, int card) {
+        return cards & suitMasks[card / nbRanks] & ((1L << card) - 1);
+    }
+
+    /**
+     * the n-th card of a set, counted from the lowest index
+     *
+     * @param cards the set of cards
+     * @param n     position of the card, from 0 to size - 1
+     * @return the index of the card
+     */
+    static int nth(long cards, int n) {
+        for (int i = 0; i < n; i++) {
+            cards &= cards - 1;
+        }
+        return Long.numberOfTrailingZeros(cards);
+    }
+
+    static String toString(long cards) {
+        StringBuilder builder = new StringBuilder("[");
+        for (long rest = cards; rest != 0; rest &= rest - 1) {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(cardToString(Long.numberOfTrailingZeros(rest)));
+        }
+        return builder.append(']').toString();
+    }
+
+    /**
+     * the index of a JCardGame card
+     *
+     * @param card the card of a deck built from Whist.Suit and Whist.Rank
+     * @return the index of the card
+     */
+    static int fromCard(Card card) {
+        return card.getSuitId() * nbRanks + card.getRankId();
+    }
+
+    /**
+     * the set of the cards in a JCardGame hand
+     *
+     * @param hand the hand
+     * @return the cards of the hand
+     */
+    static long fromHand(Hand hand) {
+        long cards = EMPTY;
+        for (Card card : hand.getCardList()) {
+            cards |= 1L << fromCard(card);
+        }
+        return cards;
+    }
+
+    /**
+     * the card of a deck with the given index
+     *
+     * @param deck the deck of the game
+     * @param card index of the card
+     * @return the card in the deck
+     */
+    static Card toCard(Deck deck, int card) {
+        return deck.cards[card / nbRanks][card % nbRanks];
+    }
+
+    /**
+     * create a new JCardGame hand holding the cards of a set
+     *
+     * @param deck  the deck of the game
+     * @param cards the set of cards
+     * @return a new hand with one new card per card of the set
+     */
+    static Hand toHand(Deck deck, long cards) {
+        Hand hand = new Hand(deck);
+        for (long rest = cards; rest != 0; rest &= rest - 1) {
+            int card = Long.numberOfTrailingZeros(rest);
+            hand.insert(suitOf(card), rankOf(card), false);
+        }
+        return hand;
+    }
+}
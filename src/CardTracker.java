@@ -0,0 +1,166 @@
+import java.util.Arrays;
+
+/**
+ * follows the cards of a round from the seat of one player: the cards it has not seen yet (held by the other
+ * players or not dealt), the cards every seat played, the current trick, and the suits every seat proved
+ * to be void in by not following the lead. Every card played is a constant time update of a few bitmasks
+ */
+final class CardTracker {
+    private long unseen;
+    private long played = CardSet.EMPTY;
+    private final long[] playedBy = new long[Whist.nbPlayers];
+    // the suit masks of the suits each seat showed out of
+    private final long[] voids = new long[Whist.nbPlayers];
+    private final int[] trick = new int[Whist.nbPlayers];
+    private final int[] trickSeats = new int[Whist.nbPlayers];
+    private long trickCards = CardSet.EMPTY;
+    private int trickSize;
+    private Whist.Suit lead;
+
+    /**
+     * card tracker constructor.
+     *
+     * @param hand the cards dealt to the player, which it does not need to see played
+     */
+    CardTracker(long hand) {
+        unseen = CardSet.minus(CardSet.ALL, hand);
+    }
+
+    /**
+     * copy constructor, to follow cards that may be played without changing the tracker
+     *
+     * @param other the tracker copied
+     */
+    CardTracker(CardTracker other) {
+        unseen = other.unseen;
+        played = other.played;
+        System.arraycopy(other.playedBy, 0, playedBy, 0, Whist.nbPlayers);
+        System.arraycopy(other.voids, 0, voids, 0, Whist.nbPlayers);
+        System.arraycopy(other.trick, 0, trick, 0, Whist.nbPlayers);
+        System.arraycopy(other.trickSeats, 0, trickSeats, 0, Whist.nbPlayers);
+        trickCards = other.trickCards;
+        trickSize = other.trickSize;
+        lead = other.lead;
+    }
+
+    /**
+     * follow a new round from the start, with the cards dealt to the player
+     *
+     * @param hand the cards dealt to the player
+     */
+    void reset(long hand) {
+        unseen = CardSet.minus(CardSet.ALL, hand);
+        played = CardSet.EMPTY;
+        Arrays.fill(playedBy, CardSet.EMPTY);
+        Arrays.fill(voids, CardSet.EMPTY);
+        trickCards = CardSet.EMPTY;
+        trickSize = 0;
+        lead = null;
+    }
+
+    /**
+     * follow a card played. A trick is over after the fourth card, and the next card leads a new one
+     *
+     * @param position where the player who played the card seat
+     * @param card     the card played
+     */
+    void cardPlayed(int position, int card) {
+        Whist.Suit suit = CardSet.suitOf(card);
+        unseen = CardSet.remove(unseen, card);
+        played = CardSet.add(played, card);
+        playedBy[position] = CardSet.add(playedBy[position], card);
+        // a player who plays a suit it showed out of broke the rule then, it was not void
+        voids[position] = CardSet.minus(voids[position], CardSet.suitMask(suit));
+        if (trickSize == 0) {
+            lead = suit;
+            trickCards = CardSet.EMPTY;
+        } else if (suit != lead) {
+            voids[position] |= CardSet.suitMask(lead);
+        }
+        trick[trickSize] = card;
+        trickSeats[trickSize] = position;
+        trickCards = CardSet.add(trickCards, card);
+        if (++trickSize == Whist.nbPlayers) {
+            trickSize = 0;
+            trickCards = CardSet.EMPTY;
+            lead = null;
+        }
+    }
+
+    /**
+     * the cards not played yet and not dealt to the player, the cards the other players may hold
+     *
+     * @return the CardSet of the unseen cards
+     */
+    long getUnseen() {
+        return unseen;
+    }
+
+    long getPlayed() {
+        return played;
+    }
+
+    long getPlayed(int position) {
+        return playedBy[position];
+    }
+
+    /**
+     * the suits a seat showed out of, as the union of their suit masks
+     *
+     * @param position where the player seat
+     * @return the mask of the cards the player cannot hold
+     */
+    long getVoids(int position) {
+        return voids[position];
+    }
+
+    boolean isVoid(int position, Whist.Suit suit) {
+        return (voids[position] & CardSet.suitMask(suit)) != 0;
+    }
+
+    /**
+     * the number of cards of the current trick, 0 before its lead
+     *
+     * @return the size of the trick
+     */
+    int getTrickSize() {
+        return trickSize;
+    }
+
+    /**
+     * the card played at a position of the current trick
+     *
+     * @param i the position in the trick, from 0 (the lead) to getTrickSize() - 1
+     * @return the card played
+     */
+    int getTrickCard(int i) {
+        return trick[i];
+    }
+
+    int getTrickSeat(int i) {
+        return trickSeats[i];
+    }
+
+    /**
+     * the card winning the current trick so far
+     *
+     * @param trumps the trump suit
+     * @return the position in the trick of the winning card, from 0 (the lead) to getTrickSize() - 1
+     */
+    int getTrickWinner(Whist.Suit trumps) {
+        return TrickEvaluator.winner(trick, 0, trickSize, trumps);
+    }
+
+    long getTrickCards() {
+        return trickCards;
+    }
+
+    /**
+     * the suit of the lead of the current trick
+     *
+     * @return the suit led, or null before the lead
+     */
+    Whist.Suit getLead() {
+        return lead;
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * the time a player has to select its card, and the signal to stop thinking. An anytime strategy checks
+ * isOver() while it thinks and plays its best card so far as soon as it is over. It is over an eighth of the
+ * budget before the card is due, time enough to return it, or as soon as the deadline is cancelled, which
+ * any thread can do. The pacing of a game board extends the deadline by the time it waits, that time is not
+ * the player's. A deadline is created by the game for every card it asks for, and for every pondering
+ */
+final class Deadline {
+    private final long start;
+    private final long budget;
+    private long extension;
+    private volatile boolean cancelled;
+
+    /**
+     * deadline constructor, the budget starts now
+     *
+     * @param budget the nanoseconds the player has, or Long.MAX_VALUE for no limit
+     */
+    Deadline(long budget) {
+        // no limit, no time to measure: the clock is only read for a budget
+        this.start = budget != Long.MAX_VALUE ? System.nanoTime() : 0;
+        this.budget = budget;
+    }
+
+    /**
+     * a deadline that is only over when it is cancelled
+     *
+     * @return the deadline
+     */
+    static Deadline unlimited() {
+        return new Deadline(Long.MAX_VALUE);
+    }
+
+    boolean isLimited() {
+        return budget != Long.MAX_VALUE;
+    }
+
+    long getBudget() {
+        return budget;
+    }
+
+    /**
+     * the time the player thought so far, the time of the pacing excluded. Only measured with a limit
+     *
+     * @return the nanoseconds since the deadline started
+     */
+    long elapsed() {
+        return System.nanoTime() - start - extension;
+    }
+
+    /**
+     * the time left to think, before the deadline is over
+     *
+     * @return the nanoseconds left, or Long.MAX_VALUE for no limit
+     */
+    long remaining() {
+        if (cancelled) {
+            return 0;
+        }
+        return isLimited() ? Math.max(0, budget - budget / 8 - elapsed()) : Long.MAX_VALUE;
+    }
+
+    /**
+     * if the player should play its best card so far now
+     *
+     * @return true if the deadline is cancelled or most of the budget is spent
+     */
+    boolean isOver() {
+        return cancelled || isLimited() && elapsed() >= budget - budget / 8;
+    }
+
+    /**
+     * if the card came too late, after the whole budget
+     *
+     * @return true if the time the player thought is more than its budget
+     */
+    boolean isOverrun() {
+        return isLimited() && elapsed() > budget;
+    }
+
+    /**
+     * give the player more time, for the time spent waiting for others
+     *
+     * @param nanos the nanoseconds added to the budget
+     */
+    void extend(long nanos) {
+        extension += nanos;
+    }
+
+    /**
+     * tell the player to play now, from any thread
+     */
+    void cancel() {
+        cancelled = true;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+}
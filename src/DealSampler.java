@@ -0,0 +1,241 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * deals the unseen cards of a round to the other players at random, uniformly among the layouts that give
+ * every player its number of cards, none of a suit it showed out of, and the cards it is known to hold.
+ * The cards no player gets are the ones not dealt in the round.
+ * <p>
+ * Nothing is rejected: voids are per suit, so a layout is a split of every suit between the other players
+ * and the undealt cards. prepare() counts the layouts that follow each split, suit after suit, and keeps the
+ * splits reachable with their cumulative counts; sample() then draws one split per suit and the cards of
+ * each share. Once prepared the sampler is only read, so tasks running in parallel can share it, each
+ * with its own random stream and its own buffer of cards.
+ */
+final class DealSampler {
+    // the other three players, then the undealt cards
+    private static final int nbReceivers = Whist.nbPlayers;
+    private static final int pool = nbReceivers - 1;
+    // the state of the needs of the three players, 4 bits each
+    private static final int needBits = 4;
+    private static final int nbStates = 1 << 3 * needBits;
+    private static final double[] factorials = new double[CardSet.nbCards + 1];
+
+    static {
+        factorials[0] = 1;
+        for (int i = 1; i <= CardSet.nbCards; i++) {
+            factorials[i] = factorials[i - 1] * i;
+        }
+    }
+
+    private final int[] seats = new int[pool];
+    private final long[] known = new long[Whist.nbPlayers];
+    private final int[][] suitCards = new int[CardSet.nbSuits][];
+    // the cards of the suits from a suit on, and which receivers may get the cards of a suit
+    private final int[] cardsLeft = new int[CardSet.nbSuits + 1];
+    private final boolean[][] allowed = new boolean[CardSet.nbSuits][nbReceivers];
+    // per suit and state of the needs, the number of layouts and the splits with their cumulative counts
+    private final double[][] counts = new double[CardSet.nbSuits][nbStates];
+    private final int[][][] splits = new int[CardSet.nbSuits][nbStates][];
+    private final double[][][] cumulative = new double[CardSet.nbSuits][nbStates][];
+    private int start;
+    private boolean constrained;
+
+    /**
+     * prepare the layouts of the unseen cards of a player from the cards it tracked in the round,
+     * the other players holding the number of cards everyone sees on the table
+     *
+     * @param tracker  the cards the player tracked
+     * @param position where the player seat
+     * @param game     the game the player is playing
+     * @return true if the layouts keep the suits the players showed out of, false if that was impossible
+     */
+    boolean prepare(CardTracker tracker, int position, WhistEngine game) {
+        int[] sizes = new int[Whist.nbPlayers];
+        long[] voids = new long[Whist.nbPlayers];
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            sizes[i] = i == position ? 0 : CardSet.size(game.getHand(i));
+            voids[i] = tracker.getVoids(i);
+        }
+        return prepare(position, tracker.getUnseen(), sizes, voids, null);
+    }
+
+    /**
+     * prepare the layouts of unseen cards. If the voids leave no layout, for example because a player did
+     * not follow suit although it could, they are ignored
+     *
+     * @param position where the player who does not get cards seat
+     * @param unseen   the cards to deal
+     * @param sizes    the number of cards of every player, the known cards included
+     * @param voids    the mask of the cards every player cannot hold, as CardTracker.getVoids
+     * @param known    the unseen cards every player is known to hold, or null
+     * @return true if the layouts keep the voids, false if they were ignored
+     */
+    boolean prepare(int position, long unseen, int[] sizes, long[] voids, long[] known) {
+        int[] needs = new int[pool];
+        long rest = unseen;
+        for (int i = 0, r = 0; i < Whist.nbPlayers; i++) {
+            this.known[i] = known == null ? CardSet.EMPTY : known[i];
+            rest = CardSet.minus(rest, this.known[i]);
+            if (i != position) {
+                seats[r] = i;
+                needs[r++] = sizes[i] - CardSet.size(this.known[i]);
+            }
+        }
+        for (int r = 0; r < pool; r++) {
+            if (needs[r] < 0 || needs[r] >= 1 << needBits) {
+                throw new IllegalArgumentException("player " + seats[r] + " cannot hold " + sizes[seats[r]] + " cards");
+            }
+        }
+        cardsLeft[CardSet.nbSuits] = 0;
+        for (int suit = CardSet.nbSuits - 1; suit >= 0; suit--) {
+            long cards = CardSet.suit(rest, suit);
+            suitCards[suit] = new int[CardSet.size(cards)];
+            for (int i = 0; cards != 0; cards &= cards - 1) {
+                suitCards[suit][i++] = Long.numberOfTrailingZeros(cards);
+            }
+            cardsLeft[suit] = cardsLeft[suit + 1] + suitCards[suit].length;
+        }
+        if (needs[0] + needs[1] + needs[2] > cardsLeft[0]) {
+            throw new IllegalArgumentException("the players need more cards than the " + cardsLeft[0] + " unseen");
+        }
+        start = state(needs[0], needs[1], needs[2]);
+        constrained = true;
+        if (build(voids) == 0) {
+            constrained = false;
+            build(null);
+        }
+        return constrained;
+    }
+
+    private static int state(int need0, int need1, int need2) {
+        return need0 | need1 << needBits | need2 << 2 * needBits;
+    }
+
+    private static int need(int state, int receiver) {
+        return state >>> receiver * needBits & (1 << needBits) - 1;
+    }
+
+    /**
+     * count the layouts from the needs of the players and keep the splits reachable
+     *
+     * @param voids the voids of the players, or null to ignore them
+     * @return the number of layouts
+     */
+    private double build(long[] voids) {
+        for (int suit = 0; suit < CardSet.nbSuits; suit++) {
+            for (int r = 0; r < pool; r++) {
+                allowed[suit][r] = voids == null || CardSet.isEmpty(CardSet.suit(voids[seats[r]], suit));
+            }
+            allowed[suit][pool] = true;
+            for (int state = 0; state < nbStates; state++) {
+                splits[suit][state] = null;
+                cumulative[suit][state] = null;
+            }
+            Arrays.fill(counts[suit], -1);
+        }
+        return count(0, start);
+    }
+
+    /**
+     * the number of layouts of the cards of the suits from a suit on, for the needs of a state
+     */
+    private double count(int suit, int state) {
+        if (suit == CardSet.nbSuits) {
+            return state == 0 ? 1 : 0;
+        }
+        if (counts[suit][state] >= 0) {
+            return counts[suit][state];
+        }
+        int need0 = need(state, 0);
+        int need1 = need(state, 1);
+        int need2 = need(state, 2);
+        int poolNeed = cardsLeft[suit] - need0 - need1 - need2;
+        int m = suitCards[suit].length;
+        boolean[] to = allowed[suit];
+        int[] found = new int[(m + 1) * (m + 1) * (m + 1)];
+        double[] sums = new double[found.length];
+        int nbFound = 0;
+        double total = 0;
+        for (int k0 = 0; k0 <= (to[0] ? Math.min(m, need0) : 0); k0++) {
+            for (int k1 = 0; k1 <= (to[1] ? Math.min(m - k0, need1) : 0); k1++) {
+                for (int k2 = 0; k2 <= (to[2] ? Math.min(m - k0 - k1, need2) : 0); k2++) {
+                    int k3 = m - k0 - k1 - k2;
+                    if (k3 > poolNeed) {
+                        continue;
+                    }
+                    double layouts = count(suit + 1, state(need0 - k0, need1 - k1, need2 - k2));
+                    if (layouts == 0) {
+                        continue;
+                    }
+                    total += factorials[m] / (factorials[k0] * factorials[k1] * factorials[k2] * factorials[k3]) * layouts;
+                    found[nbFound] = state(k0, k1, k2);
+                    sums[nbFound++] = total;
+                }
+            }
+        }
+        splits[suit][state] = Arrays.copyOf(found, nbFound);
+        cumulative[suit][state] = Arrays.copyOf(sums, nbFound);
+        counts[suit][state] = total;
+        return total;
+    }
+
+    /**
+     * deal one layout
+     *
+     * @param random the random stream of the caller
+     * @param layout filled with the cards of every player, the player who does not get cards included
+     * @param cards  a buffer of the caller, reused from one layout to the next, of CardSet.nbRanks cards
+     */
+    void sample(SplittableRandom random, long[] layout, int[] cards) {
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            layout[i] = known[i];
+        }
+        int state = start;
+        for (int suit = 0; suit < CardSet.nbSuits; suit++) {
+            int[] options = splits[suit][state];
+            double[] sums = cumulative[suit][state];
+            int split = options[pick(sums, random.nextDouble() * sums[sums.length - 1])];
+            int[] suitCards = this.suitCards[suit];
+            System.arraycopy(suitCards, 0, cards, 0, suitCards.length);
+            int dealt = 0;
+            for (int r = 0; r < pool; r++) {
+                // a partial shuffle: the next cards drawn go to the player
+                for (int k = need(split, r); k > 0; k--, dealt++) {
+                    int j = dealt + random.nextInt(suitCards.length - dealt);
+                    int card = cards[j];
+                    cards[j] = cards[dealt];
+                    cards[dealt] = card;
+                    layout[seats[r]] = CardSet.add(layout[seats[r]], card);
+                }
+            }
+            state -= split;
+        }
+    }
+
+    /**
+     * the first index whose cumulative count is above a value
+     */
+    private static int pick(double[] sums, double value) {
+        int low = 0;
+        int high = sums.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sums[middle] > value) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * check if the layouts keep the suits the players showed out of
+     *
+     * @return false if they were ignored to find a layout
+     */
+    boolean isConstrained() {
+        return constrained;
+    }
+}
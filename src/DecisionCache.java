@@ -0,0 +1,105 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * the decisions of a strategy, by the canonical key of the position decided on, shared by all the games of
+ * the JVM. Looking up is lock-free. The cache holds a bounded number of decisions and evicts with the clock
+ * algorithm: the keys sit on a ring, a decision found since the hand of the clock last passed it gets a
+ * second chance, and the first one not found since is replaced.
+ */
+final class DecisionCache {
+    private final ConcurrentHashMap<Canonicalizer.Key, Entry> entries;
+    // the ring of the keys, and the hand of the clock, guarded by the lock of the cache
+    private final Canonicalizer.Key[] ring;
+    private int hand;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private static final class Entry {
+        final int decision;
+        volatile boolean referenced;
+
+        Entry(int decision) {
+            this.decision = decision;
+        }
+    }
+
+    /**
+     * decision cache constructor. The hits and misses are part of the metrics, under the name of the cache
+     *
+     * @param name     the name of the cache, usually the player type
+     * @param capacity the most decisions held
+     */
+    DecisionCache(String name, int capacity) {
+        entries = new ConcurrentHashMap<>(capacity * 4 / 3 + 1);
+        ring = new Canonicalizer.Key[capacity];
+        Metrics.getInstance().addCache(name, this);
+    }
+
+    /**
+     * the decision of a position, if it is in the cache
+     *
+     * @param key the canonical key of the position
+     * @return the decision, or -1
+     */
+    int get(Canonicalizer.Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return -1;
+        }
+        hits.increment();
+        entry.referenced = true;
+        return entry.decision;
+    }
+
+    /**
+     * if a position is decided in the cache, without counting a hit or a miss
+     *
+     * @param key the canonical key of the position
+     * @return true if the cache holds its decision
+     */
+    boolean contains(Canonicalizer.Key key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * remember the decision of a position, in place of the first decision on the clock not found lately
+     *
+     * @param key      the canonical key of the position
+     * @param decision the decision, 0 or more
+     */
+    synchronized void put(Canonicalizer.Key key, int decision) {
+        if (ring.length == 0 || entries.containsKey(key)) {
+            return;
+        }
+        while (ring[hand] != null) {
+            Entry entry = entries.get(ring[hand]);
+            if (!entry.referenced) {
+                entries.remove(ring[hand]);
+                break;
+            }
+            entry.referenced = false;
+            hand = (hand + 1) % ring.length;
+        }
+        ring[hand] = key;
+        entries.put(key, new Entry(decision));
+        hand = (hand + 1) % ring.length;
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    String toJson() {
+        return String.format("{\"hits\": %d, \"misses\": %d, \"size\": %d}", getHits(), getMisses(), size());
+    }
+}
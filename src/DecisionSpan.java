@@ -0,0 +1,27 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * flight recorder event of a strategy selecting a card, without the time the pacing gives it
+ */
+@Name("whist.Decision")
+@Label("Decision")
+@Category("Whist")
+@Description("A strategy selecting a card, without the time the pacing gives it")
+class DecisionSpan extends Event {
+    // the type tells if the event is recorded, the event is only created then
+    static final EventType type = EventType.getEventType(DecisionSpan.class);
+
+    @Label("Player Type")
+    String playerType;
+
+    @Label("Seat")
+    int seat;
+
+    @Label("Card")
+    String card;
+}
@@ -0,0 +1,33 @@
+/**
+ * the pacing that waits a fixed time before every computer card and after every trick.
+ * A time of 0 does not wait at all, for tables of computer players only
+ */
+public class DelayPacing implements IPacing {
+    private final int thinkingTime;
+    private final int trickTime;
+
+    /**
+     * Constructor of the pacing
+     *
+     * @param thinkingTime milliseconds a computer player thinks before playing
+     * @param trickTime    milliseconds a complete trick is shown
+     */
+    DelayPacing(int thinkingTime, int trickTime) {
+        this.thinkingTime = thinkingTime;
+        this.trickTime = trickTime;
+    }
+
+    @Override
+    public void thinking(int position) {
+        if (thinkingTime > 0) {
+            Whist.delay(thinkingTime);
+        }
+    }
+
+    @Override
+    public void trickShown(int winner) {
+        if (trickTime > 0) {
+            Whist.delay(trickTime);
+        }
+    }
+}
@@ -0,0 +1,807 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * exact double-dummy solver: with all four hands known, finds the play that wins the most tricks of the
+ * round for a side, a set of seats playing against all the others. Alpha-beta search over single cards,
+ * with cards that are equivalent in a hand (no other live card between them) searched once, the most
+ * promising cards searched first (the lead of the table, winners the opponents cannot ruff, leads to a
+ * winner of the partner, cards that surely win the trick), sure tricks counted at the start of every
+ * trick, and a bounded transposition table of the positions at the start of a trick. It solves up to 10
+ * cards per player in tens of milliseconds, but not more: 12 cards often take a second, a full deal about
+ * a second and the hardest ones ten seconds or more.
+ * <p>
+ * The table does partition search: an entry does not remember the exact cards of the position, only the
+ * number of cards of every suit in every hand and who holds the cards that decided the result, the
+ * winners of the tricks that beat a card of their own suit and the cards above them, and the cards that
+ * were skipped as equivalent to one of them. Any position where the same players hold these top cards gets
+ * the same result, whichever smaller cards were played before.
+ * The table is keyed on the trumps and the side too, so a solver can be reused for a whole game.
+ * When every player holds 3 cards or fewer, the result of a trick start is read in the endgame tablebase,
+ * if there is one. It only saves the search of the last tricks, which gives the same results without it. A solver given a deadline looks at it every few hundred positions and stops the
+ * search once it is over, with the card of the last search it completed. A solver is not thread-safe.
+ */
+class DoubleDummySolver {
+    private static final int nbPlayers = Whist.nbPlayers;
+    private static final int suitBits = 2 * CardSet.nbRanks;
+    private static final int suitMask = (1 << suitBits) - 1;
+    // the number of positions searched between two looks at the deadline
+    private static final int deadlineInterval = 1 << 8;
+    private static final long[] leaderKeys = new long[nbPlayers];
+    private static final long[] trumpKeys = new long[CardSet.nbSuits];
+    private static final long[] sideKeys = new long[1 << nbPlayers];
+
+    static {
+        SplittableRandom random = new SplittableRandom(30006);
+        for (int i = 0; i < nbPlayers; i++) {
+            leaderKeys[i] = random.nextLong();
+        }
+        for (int i = 0; i < trumpKeys.length; i++) {
+            trumpKeys[i] = random.nextLong();
+        }
+        for (int i = 0; i < sideKeys.length; i++) {
+            sideKeys[i] = random.nextLong();
+        }
+    }
+
+    // transposition table, cleared when full. The positions with the same key (leader and number of cards
+    // of every suit in every hand) form a tree with one level per suit: a node of level s is a pattern of
+    // suit s, the number of top cards that matter and their holders, 2 bits per card from the highest one
+    // (the number in the top 4 bits). The nodes of the last level hold the bounds of the positions.
+    private final int[] rootChains;
+    private final int[] rootNext;
+    private final long[] rootKeys;
+    private final int[] roots;
+    private int rootCount;
+    private final int[] children;
+    private final int[] siblings;
+    private final int[] patterns;
+    private final byte[] lowers;
+    private final byte[] uppers;
+    private final byte[] leads;
+    private int nodeCount;
+    private final int slotMask;
+
+    // the position searched, hands is the live hands of the state
+    private final GameState state = new GameState();
+    private final long[] hands = state.getHands();
+    private final int[] noTrick = new int[0];
+    private Whist.Suit trumps;
+    private int side;
+    private long contextKey;
+
+    // per depth of the search: the cards to play, the holders of the live cards at the start of a trick,
+    // and the cards the result of the position depends on
+    private final int[][] moves = new int[CardSet.nbCards + 1][CardSet.nbRanks];
+    private final int[][] priorities = new int[CardSet.nbCards + 1][CardSet.nbRanks];
+    private final int[][] holderCodes = new int[CardSet.nbCards + 1][CardSet.nbSuits];
+    private final long[] relevant = new long[CardSet.nbCards + 2];
+
+    // results of a look-up and of the sure tricks
+    private int foundLower;
+    private int foundUpper;
+    private int foundLowerTop;
+    private int foundUpperTop;
+    private int foundLead;
+    private long sureCards;
+
+    private int bestCard;
+    private long nodes;
+    private Deadline deadline;
+    private boolean stopped;
+    private final EndgameTablebase tablebase;
+
+    /**
+     * Constructor of a solver with a transposition table of 2^tableBits nodes, about 32 bytes each, that
+     * reads the endgame tablebase of the working directory if there is one
+     *
+     * @param tableBits log2 of the number of nodes in the transposition table
+     */
+    DoubleDummySolver(int tableBits) {
+        this(tableBits, EndgameTablebase.getInstance());
+    }
+
+    /**
+     * Constructor of a solver with a transposition table of 2^tableBits nodes, about 32 bytes each
+     *
+     * @param tableBits log2 of the number of nodes in the transposition table
+     * @param tablebase the endgame tablebase to read the last tricks in, or null to search them
+     */
+    DoubleDummySolver(int tableBits, EndgameTablebase tablebase) {
+        this.tablebase = tablebase;
+        int size = 1 << tableBits;
+        rootChains = new int[size / 4];
+        rootNext = new int[size / 4];
+        rootKeys = new long[size / 4];
+        roots = new int[size / 4];
+        children = new int[size];
+        siblings = new int[size];
+        patterns = new int[size];
+        lowers = new byte[size];
+        uppers = new byte[size];
+        leads = new byte[size];
+        slotMask = size / 4 - 1;
+        clear();
+    }
+
+    private void clear() {
+        Arrays.fill(rootChains, 0);
+        // index 0 is the null node
+        rootCount = 1;
+        nodeCount = 1;
+    }
+
+    /**
+     * solve a position and remember its best card
+     *
+     * @param hands     the cards of every player, the cards of the current trick excluded
+     * @param trumps    the trump suit
+     * @param leader    the player who led the current trick
+     * @param trick     the cards of the current trick, in the order they were played
+     * @param trickSize number of cards in the current trick, from 0 to 3
+     * @param side      the seats the tricks are counted for, bit i for player i
+     * @return the number of tricks the side wins from the current trick on, with best play of everyone
+     */
+    int solve(long[] hands, Whist.Suit trumps, int leader, int[] trick, int trickSize, int side) {
+        state.start(hands, trumps, leader, trick, trickSize);
+        this.trumps = trumps;
+        this.side = side;
+        contextKey = trumpKeys[trumps.ordinal()] ^ sideKeys[side];
+        nodes = 0;
+        stopped = false;
+        // zero-window searches "can the side win at least target tricks", halving the range each time
+        boolean maximizing = (side & (1 << state.getToMove())) != 0;
+        int lower = 0;
+        int upper = Long.bitCount(this.hands[leader]) + (trickSize > 0 ? 1 : 0);
+        int move = -1;
+        while (lower < upper) {
+            int target = (lower + upper + 1) / 2;
+            int value = search(0, target - 1, target);
+            if (stopped) {
+                break;
+            }
+            if (value >= target) {
+                lower = value;
+            } else {
+                upper = value;
+            }
+            // keep the card that proved the bound in favour of the player to move
+            if (move < 0 || maximizing == (value >= target)) {
+                move = bestCard;
+            }
+        }
+        if (stopped) {
+            // the searches cut short stored wrong bounds
+            clear();
+        } else if (move < 0) {
+            search(0, -1, CardSet.nbCards);
+            move = bestCard;
+        }
+        bestCard = move;
+        return lower;
+    }
+
+    /**
+     * set the deadline of the next solves
+     *
+     * @param deadline when to stop searching, or null to always solve the position
+     */
+    void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * if the last solve stopped at its deadline. Its best card is then the card of the last search it
+     * completed, or -1, and its result only a bound
+     *
+     * @return true if the search was stopped
+     */
+    boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * the best card of the player to move in the last position solved
+     *
+     * @return the index of the card
+     */
+    int getBestCard() {
+        return bestCard;
+    }
+
+    /**
+     * the number of positions searched by the last solve
+     *
+     * @return the number of nodes
+     */
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * fail-soft alpha-beta search of the current position, which also leaves in relevant[depth] the cards
+     * whose holders decided the result
+     */
+    private int search(int depth, int alpha, int beta) {
+        if ((++nodes & deadlineInterval - 1) == 0 && deadline != null && deadline.isOver()) {
+            stopped = true;
+        }
+        if (stopped) {
+            relevant[depth] = 0;
+            return alpha;
+        }
+        long key = 0;
+        int remaining = 0;
+        int hint = -1;
+        long boundCards = 0;
+        // the root always searches its cards, to know the best one
+        boolean trickStart = state.getTrickSize() == 0 && depth > 0;
+        if (trickStart) {
+            remaining = Long.bitCount(hands[state.getLeader()]);
+            if (remaining == 0) {
+                relevant[depth] = 0;
+                return 0;
+            }
+            if (tablebase != null && remaining <= EndgameTablebase.maxCards) {
+                int value = tablebase.tricks(hands, trumps, state.getLeader(), noTrick, 0, side);
+                if (value >= 0) {
+                    // the exact result depends on who holds every live card
+                    relevant[depth] = hands[0] | hands[1] | hands[2] | hands[3];
+                    return value;
+                }
+            }
+            key = lengthKey() ^ leaderKeys[state.getLeader()] ^ contextKey;
+            int[] codes = holderCodes[depth];
+            holderCodes(codes);
+            foundLower = 0;
+            foundUpper = remaining;
+            foundLead = -1;
+            int root = findRoot(key);
+            if (root != 0) {
+                lookUp(children[root], 0, 0, codes, alpha, beta);
+            }
+            int lower = foundLower;
+            int upper = foundUpper;
+            long lowerCards = lower > 0 ? topCards(foundLowerTop) : 0;
+            long upperCards = upper < remaining ? topCards(foundUpperTop) : 0;
+            if (foundLead >= 0) {
+                hint = fromLead(foundLead);
+            }
+            if (lower < beta && upper > alpha) {
+                int sure = quickTricks();
+                if ((side & (1 << state.getLeader())) != 0) {
+                    if (sure > lower) {
+                        lower = sure;
+                        lowerCards = sureCards;
+                    }
+                } else if (remaining - sure < upper) {
+                    upper = remaining - sure;
+                    upperCards = sureCards;
+                }
+                sure = topTrumps(side);
+                if (sure > lower) {
+                    lower = sure;
+                    lowerCards = sureCards;
+                }
+                sure = topTrumps(~side);
+                if (remaining - sure < upper) {
+                    upper = remaining - sure;
+                    upperCards = sureCards;
+                }
+            }
+            if (lower >= beta || lower == upper) {
+                relevant[depth] = lower == upper ? lowerCards | upperCards : lowerCards;
+                return lower;
+            }
+            if (upper <= alpha) {
+                relevant[depth] = upperCards;
+                return upper;
+            }
+            // the result then also depends on the cards of the bounds used
+            if (lower > alpha) {
+                alpha = lower;
+                boundCards |= lowerCards;
+            }
+            if (upper < beta) {
+                beta = upper;
+                boundCards |= upperCards;
+            }
+        }
+        int searchAlpha = alpha;
+        int searchBeta = beta;
+        boolean maximizing = (side & (1 << state.getToMove())) != 0;
+        int best = maximizing ? -1 : CardSet.nbCards;
+        int bestMove = -1;
+        long cards = boundCards;
+        int count = generateMoves(depth, hint);
+        int[] depthMoves = moves[depth];
+        for (int i = 0; i < count; i++) {
+            int card = depthMoves[i];
+            state.play(card);
+            int value;
+            long childCards;
+            if (state.getTrickSize() == 0) {
+                // the card completed the trick, its winner leads the next one
+                int won = (side >>> state.getWinner()) & 1;
+                long deciding = decidingCard();
+                value = won + search(depth + 1, alpha - won, beta - won);
+                childCards = relevant[depth + 1] | deciding;
+            } else {
+                value = search(depth + 1, alpha, beta);
+                childCards = relevant[depth + 1];
+            }
+            state.undo();
+            // the cards skipped as equivalent to this one are only equivalent while they keep their holders
+            if ((childCards & (1L << card)) != 0) {
+                childCards |= equivalents(card);
+            }
+            if (maximizing ? value > best : value < best) {
+                best = value;
+                bestMove = card;
+                if (depth == 0) {
+                    bestCard = card;
+                }
+            }
+            // a cut-off only depends on the card that caused it, otherwise on every card searched
+            if (maximizing ? value >= beta : value <= alpha) {
+                cards = childCards | boundCards;
+                break;
+            }
+            cards |= childCards;
+            if (maximizing) {
+                alpha = Math.max(alpha, value);
+            } else {
+                beta = Math.min(beta, value);
+            }
+        }
+        relevant[depth] = cards;
+        if (trickStart) {
+            store(key, holderCodes[depth], cards, best, searchAlpha, searchBeta, remaining, bestMove);
+        }
+        return best;
+    }
+
+    /**
+     * the cards of the player to move that generateMoves skipped as equivalent to a card: the cards of
+     * its hand just below it, with no other live card between them
+     *
+     * @param card the card searched
+     * @return the skipped cards as a CardSet
+     */
+    private long equivalents(int card) {
+        long hand = hands[state.getToMove()];
+        long live = hands[0] | hands[1] | hands[2] | hands[3];
+        for (int i = 0; i < state.getTrickSize(); i++) {
+            live |= 1L << state.getTrickCard(i);
+        }
+        // the lower cards of the suit are the higher bits
+        long below = CardSet.suit(live, card / CardSet.nbRanks) & -(1L << card + 1);
+        long run = 0;
+        for (long next = below & -below; (hand & next) != 0; next = below & -below) {
+            run |= next;
+            below &= below - 1;
+        }
+        return run;
+    }
+
+    /**
+     * the winning card of the complete trick if it beat a card of its own suit, its rank then matters
+     *
+     * @return the card as a CardSet, or an empty CardSet
+     */
+    private long decidingCard() {
+        int winningCard = state.getWinningCard();
+        int suit = winningCard / CardSet.nbRanks;
+        int first = state.getPly() - nbPlayers;
+        for (int i = first; i < first + nbPlayers; i++) {
+            int card = state.getCard(i);
+            if (card != winningCard && card / CardSet.nbRanks == suit) {
+                return 1L << winningCard;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * the number of cards of every suit in every hand, 4 bits each
+     */
+    private long lengthKey() {
+        long lengths = 0;
+        for (int i = 0; i < nbPlayers; i++) {
+            for (int suit = 0; suit < CardSet.nbSuits; suit++) {
+                lengths = lengths << 4 | Long.bitCount(CardSet.suit(hands[i], suit));
+            }
+        }
+        return lengths;
+    }
+
+    /**
+     * the holders of the live cards of every suit, 2 bits per card from the highest card of the suit
+     *
+     * @param codes the array the code of every suit is written to
+     */
+    private void holderCodes(int[] codes) {
+        long live = hands[0] | hands[1] | hands[2] | hands[3];
+        for (int suit = 0; suit < CardSet.nbSuits; suit++) {
+            int code = 0;
+            int shift = 0;
+            for (long rest = CardSet.suit(live, suit); rest != 0; rest &= rest - 1) {
+                long card = rest & -rest;
+                int holder = (hands[0] & card) != 0 ? 0 : (hands[1] & card) != 0 ? 1 : (hands[2] & card) != 0 ? 2 : 3;
+                code |= holder << shift;
+                shift += 2;
+            }
+            codes[suit] = code;
+        }
+    }
+
+    /**
+     * the live cards of the current position that are the top cards of a pattern
+     *
+     * @param top the number of top cards of every suit, 4 bits per suit
+     */
+    private long topCards(int top) {
+        long live = hands[0] | hands[1] | hands[2] | hands[3];
+        long cards = 0;
+        for (int suit = 0; suit < CardSet.nbSuits; suit++) {
+            long rest = CardSet.suit(live, suit);
+            for (int count = (top >>> 4 * suit) & 15; count > 0; count--) {
+                cards |= rest & -rest;
+                rest &= rest - 1;
+            }
+        }
+        return cards;
+    }
+
+    /**
+     * the number of top cards of a suit down to the lowest card that matters
+     *
+     * @param cards the cards that matter
+     * @param suit  the suit
+     * @return the number of top cards
+     */
+    private int topCount(long cards, int suit) {
+        long live = CardSet.suit(hands[0] | hands[1] | hands[2] | hands[3], suit);
+        long pinned = cards & live;
+        return pinned == 0 ? 0 : Long.bitCount(live & ((Long.highestOneBit(pinned) << 1) - 1));
+    }
+
+    /**
+     * a lower bound of the tricks the team of the leader wins from the start of a trick: the top cards of
+     * the trumps it holds, then the top cards of the other suits once the trumps of the opponents are drawn.
+     * The cards counted are left in sureCards
+     *
+     * @return the number of sure tricks
+     */
+    private int quickTricks() {
+        int leader = state.getLeader();
+        long hand = hands[leader];
+        long live = hands[0] | hands[1] | hands[2] | hands[3];
+        int team = (side >>> leader) & 1;
+        int trumpSuit = trumps.ordinal();
+        sureCards = topSequence(hand, live, trumpSuit);
+        int sure = Long.bitCount(sureCards);
+        // the opponents follow the trumps led as long as they can, the ones with more trumps can still ruff
+        for (int i = 0; i < nbPlayers; i++) {
+            if (((side >>> i) & 1) != team && Long.bitCount(CardSet.suit(hands[i], trumpSuit)) > sure) {
+                return sure;
+            }
+        }
+        for (int suit = 0; suit < CardSet.nbSuits; suit++) {
+            if (suit != trumpSuit) {
+                sureCards |= topSequence(hand, live, suit);
+            }
+        }
+        return Long.bitCount(sureCards);
+    }
+
+    /**
+     * a lower bound of the tricks a team wins from the start of a trick, whoever leads: a trump above all
+     * the trumps of the other team wins the trick it is played in, and the trumps of a player are played
+     * in different tricks. The trumps down to the highest one of the other team are left in sureCards
+     *
+     * @param team the seats of the team, bit i for player i
+     * @return the largest number of such trumps held by a player of the team
+     */
+    private int topTrumps(int team) {
+        int trumpSuit = trumps.ordinal();
+        long otherTrumps = 0;
+        for (int i = 0; i < nbPlayers; i++) {
+            if (((team >>> i) & 1) == 0) {
+                otherTrumps |= CardSet.suit(hands[i], trumpSuit);
+            }
+        }
+        // the trumps above the highest trump of the other team, all of them if it has none
+        long above = otherTrumps == 0 ? -1L : (otherTrumps & -otherTrumps) - 1;
+        int sure = 0;
+        for (int i = 0; i < nbPlayers; i++) {
+            if (((team >>> i) & 1) != 0) {
+                sure = Math.max(sure, Long.bitCount(CardSet.suit(hands[i], trumpSuit) & above));
+            }
+        }
+        long live = hands[0] | hands[1] | hands[2] | hands[3];
+        sureCards = otherTrumps == 0 ? 0 : CardSet.suit(live, trumpSuit) & ((above << 1) | 1);
+        return sure;
+    }
+
+    /**
+     * the cards of a suit a hand holds above every other live card of the suit
+     */
+    private static long topSequence(long hand, long live, int suit) {
+        long own = CardSet.suit(hand, suit);
+        // the highest cards are the lowest bits: keep the cards of the hand below the first card of another
+        long others = CardSet.suit(live, suit) & ~own;
+        return others == 0 ? own : own & ((others & -others) - 1);
+    }
+
+    /**
+     * the card led in a position, packed as its suit and its rank among the live cards of the suit,
+     * so that it can be found again in the other positions of the same entry
+     *
+     * @param card the card led
+     * @return the packed card
+     */
+    private int toLead(int card) {
+        long live = hands[0] | hands[1] | hands[2] | hands[3];
+        int suit = card / CardSet.nbRanks;
+        return suit << 4 | Long.bitCount(CardSet.higher(live, card));
+    }
+
+    /**
+     * the card led in a position from its packed form
+     *
+     * @param lead the packed card
+     * @return the card, or -1 if the leader does not hold it
+     */
+    private int fromLead(int lead) {
+        long live = hands[0] | hands[1] | hands[2] | hands[3];
+        int card = CardSet.nth(CardSet.suit(live, lead >>> 4), lead & 15);
+        return card < CardSet.nbCards && CardSet.contains(hands[state.getLeader()], card) ? card : -1;
+    }
+
+    private int slotOf(long key) {
+        long z = (key ^ (key >>> 31)) * 0x7FB5D329728EA185L;
+        return (int) (z ^ (z >>> 27)) & slotMask;
+    }
+
+    /**
+     * the tree of the positions with a key
+     *
+     * @return the index of the root node, or 0
+     */
+    private int findRoot(long key) {
+        int root = rootChains[slotOf(key)];
+        while (root != 0 && rootKeys[root] != key) {
+            root = rootNext[root];
+        }
+        return root == 0 ? 0 : roots[root];
+    }
+
+    private static boolean matches(int pattern, int code) {
+        int count = pattern >>> suitBits;
+        return (code & ((1 << 2 * count) - 1)) == (pattern & suitMask);
+    }
+
+    /**
+     * gather the bounds of the positions of a tree that match the current one into foundLower and
+     * foundUpper, with the top cards they depend on, until they are enough to cut the search
+     *
+     * @param node  the first node of a level
+     * @param suit  the suit of the level
+     * @param top   the number of top cards of the suits above, 4 bits per suit
+     * @param codes the holders of the live cards of every suit
+     * @param alpha the alpha of the search
+     * @param beta  the beta of the search
+     * @return true if the bounds found cut the search
+     */
+    private boolean lookUp(int node, int suit, int top, int[] codes, int alpha, int beta) {
+        for (; node != 0; node = siblings[node]) {
+            int pattern = patterns[node];
+            if (!matches(pattern, codes[suit])) {
+                continue;
+            }
+            int nodeTop = top | (pattern >>> suitBits) << 4 * suit;
+            if (suit < CardSet.nbSuits - 1) {
+                if (lookUp(children[node], suit + 1, nodeTop, codes, alpha, beta)) {
+                    return true;
+                }
+                continue;
+            }
+            if (lowers[node] > foundLower) {
+                foundLower = lowers[node];
+                foundLowerTop = nodeTop;
+            }
+            if (uppers[node] < foundUpper) {
+                foundUpper = uppers[node];
+                foundUpperTop = nodeTop;
+            }
+            if (foundLead < 0) {
+                foundLead = leads[node];
+            }
+            if (foundLower >= beta || foundUpper <= alpha || foundLower == foundUpper) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * the child of a node with a pattern, created if needed
+     *
+     * @param parent the index of the parent node
+     * @return the index of the child
+     */
+    private int child(int parent, int pattern, int remaining) {
+        int node = children[parent];
+        while (node != 0 && patterns[node] != pattern) {
+            node = siblings[node];
+        }
+        if (node == 0) {
+            node = nodeCount++;
+            patterns[node] = pattern;
+            children[node] = 0;
+            lowers[node] = 0;
+            uppers[node] = (byte) remaining;
+            siblings[node] = children[parent];
+            children[parent] = node;
+        }
+        return node;
+    }
+
+    /**
+     * store the result of a search at the start of a trick, in the position of the tree of its key with the
+     * same top cards and holders
+     *
+     * @param alpha the alpha the position was searched with
+     * @param beta  the beta the position was searched with
+     */
+    private void store(long key, int[] codes, long cards, int value, int alpha, int beta, int remaining,
+                       int bestMove) {
+        if (nodeCount + CardSet.nbSuits + 1 > patterns.length || rootCount == rootKeys.length) {
+            clear();
+        }
+        int node = findRoot(key);
+        if (node == 0) {
+            int slot = slotOf(key);
+            int root = rootCount++;
+            node = nodeCount++;
+            children[node] = 0;
+            rootKeys[root] = key;
+            roots[root] = node;
+            rootNext[root] = rootChains[slot];
+            rootChains[slot] = root;
+        }
+        for (int suit = 0; suit < CardSet.nbSuits; suit++) {
+            int count = topCount(cards, suit);
+            int pattern = count << suitBits | (codes[suit] & ((1 << 2 * count) - 1));
+            node = child(node, pattern, remaining);
+        }
+        int lower = lowers[node];
+        int upper = uppers[node];
+        if (value < beta) {
+            upper = Math.min(upper, value);
+        }
+        if (value > alpha) {
+            lower = Math.max(lower, value);
+        }
+        lowers[node] = (byte) lower;
+        uppers[node] = (byte) upper;
+        leads[node] = (byte) toLead(bestMove);
+    }
+
+    /**
+     * how promising a lead is: a top card the opponents cannot ruff first, then a card to a top card of the
+     * partner, a card the partner may ruff, and the leads the opponents may ruff last
+     *
+     * @param card   the card led
+     * @param top    if no other live card of its suit is higher
+     * @param leader the player who leads
+     * @param live   the cards not played yet
+     * @return the priority to add to the priority of the rank
+     */
+    private int leadPriority(int card, boolean top, int leader, long live) {
+        int suit = card / CardSet.nbRanks;
+        int trumpSuit = trumps.ordinal();
+        int team = (side >>> leader) & 1;
+        boolean opponentRuffs = false;
+        boolean partnerRuffs = false;
+        if (suit != trumpSuit) {
+            for (int i = 0; i < nbPlayers; i++) {
+                if (i != leader && CardSet.suit(hands[i], suit) == 0 && CardSet.suit(hands[i], trumpSuit) != 0) {
+                    if (((side >>> i) & 1) == team) {
+                        partnerRuffs = true;
+                    } else {
+                        opponentRuffs = true;
+                    }
+                }
+            }
+        }
+        if (top) {
+            return opponentRuffs ? 40 : 100;
+        }
+        long suitLive = CardSet.suit(live, suit);
+        long highest = suitLive & -suitLive;
+        int holder = (hands[0] & highest) != 0 ? 0 : (hands[1] & highest) != 0 ? 1 : (hands[2] & highest) != 0 ? 2 : 3;
+        if (((side >>> holder) & 1) == team) {
+            return opponentRuffs ? 30 : 80;
+        }
+        if (opponentRuffs) {
+            return 0;
+        }
+        return partnerRuffs ? 60 : 20;
+    }
+
+    /**
+     * if a card that beats the trick so far also beats every card the opponents still to play could play
+     *
+     * @param card      the card
+     * @param player    the player of the card
+     * @param trickSize the number of cards played before it in the trick
+     * @return true if the card wins the trick
+     */
+    private boolean winsTrick(int card, int player, int trickSize) {
+        int lead = state.getTrickCard(0) / CardSet.nbRanks;
+        int team = (side >>> player) & 1;
+        for (int i = 1; i < nbPlayers - trickSize; i++) {
+            int next = (player + i) % nbPlayers;
+            if (((side >>> next) & 1) == team) {
+                continue;
+            }
+            for (long rest = CardSet.legal(hands[next], lead); rest != 0; rest &= rest - 1) {
+                if (TrickEvaluator.beats(Long.numberOfTrailingZeros(rest), card, trumps)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * the legal cards of the player to move, one per group of equivalent cards, best first
+     *
+     * @param depth the depth of the search, selects the move buffer
+     * @param hint  the card to search first, or -1
+     * @return the number of cards
+     */
+    private int generateMoves(int depth, int hint) {
+        int toMove = state.getToMove();
+        int trickSize = state.getTrickSize();
+        int winningCard = state.getWinningCard();
+        long hand = hands[toMove];
+        long legal = trickSize > 0 ? CardSet.legal(hand, state.getTrickCard(0) / CardSet.nbRanks) : hand;
+        long live = hands[0] | hands[1] | hands[2] | hands[3];
+        for (int i = 0; i < trickSize; i++) {
+            live |= 1L << state.getTrickCard(i);
+        }
+        boolean partnerWinning = trickSize > 0 && ((side >>> state.getWinner()) & 1) == ((side >>> toMove) & 1);
+        int[] depthMoves = moves[depth];
+        int[] depthPriorities = priorities[depth];
+        int count = 0;
+        for (long rest = legal; rest != 0; rest &= rest - 1) {
+            int card = Long.numberOfTrailingZeros(rest);
+            // higher live cards of the same suit; the card is skipped when the next one is in the same hand
+            long above = CardSet.higher(live, card);
+            if (above != 0 && (hand & Long.highestOneBit(above)) != 0) {
+                continue;
+            }
+            // lower cards have a higher rank ordinal
+            int priority = card % CardSet.nbRanks;
+            if (card == hint) {
+                priority += 1000;
+            } else if (trickSize == 0) {
+                priority += leadPriority(card, above == 0, toMove, live);
+            } else if (!partnerWinning && TrickEvaluator.beats(card, winningCard, trumps)) {
+                priority += winsTrick(card, toMove, trickSize) ? 70 : 50;
+            }
+            int j = count++;
+            while (j > 0 && depthPriorities[j - 1] < priority) {
+                depthMoves[j] = depthMoves[j - 1];
+                depthPriorities[j] = depthPriorities[j - 1];
+                j--;
+            }
+            depthMoves[j] = card;
+            depthPriorities[j] = priority;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,269 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * the duplicate mode, to compare two player types. Every deal is played four times, with the players of the
+ * configuration turned one seat further each time, so that both player types play every hand from every
+ * seat and the luck of the cards cancels out. The difference of the tricks per seat of the two types on a
+ * deal is one sample of a sequential test, which stops the match as soon as it is confident that one type
+ * is better, or that they differ by less than the margin. The seed of a deal only depends on the base seed
+ * and the index of the deal, and the deals are tested in order, so the result does not depend on the
+ * number of threads.
+ */
+public class DuplicateMatch {
+    private static final int rotations = Whist.nbPlayers;
+    // deals played in parallel between two decisions of the test, per thread
+    private static final int dealsPerThread = 8;
+
+    private final long baseSeed;
+    private final String[][] rotatedConfigurations = new String[rotations][];
+    private final String[][] rotatedTypes = new String[rotations][];
+    private final String first;
+    private final String second;
+    private final int nbStartCards;
+    private final int winningScore;
+    private TimeControl timeControl = TimeControl.NONE;
+    private RulePolicy rulePolicy = RulePolicy.LOG;
+
+    /**
+     * Constructor of a duplicate match. Rule violations are only logged unless a rule policy is set, as in a
+     * tournament
+     *
+     * @param baseSeed            the seed the seed of every deal is derived from
+     * @param playerConfiguration the type and seat location of the players, of exactly two player types
+     * @param nbStartCards        number of cards on hand to play each round
+     * @param winningScore        number of scores to win a game
+     */
+    DuplicateMatch(long baseSeed, String[] playerConfiguration, int nbStartCards, int winningScore) {
+        this.baseSeed = baseSeed;
+        this.nbStartCards = nbStartCards;
+        this.winningScore = winningScore;
+        for (int shift = 0; shift < rotations; shift++) {
+            rotatedConfigurations[shift] = rotate(playerConfiguration, shift);
+            rotatedTypes[shift] = PlayerFactory.playerTypes(rotatedConfigurations[shift]);
+        }
+        String[] types = rotatedTypes[0];
+        first = types[0];
+        String other = null;
+        for (String type : types) {
+            if (!type.equals(first)) {
+                if (other != null && !type.equals(other)) {
+                    throw new IllegalArgumentException("a duplicate match compares two player types, not more");
+                }
+                other = type;
+            }
+        }
+        if (other == null) {
+            throw new IllegalArgumentException("a duplicate match compares two player types, not one");
+        }
+        second = other;
+    }
+
+    /**
+     * the configuration of the players, every player moved to the next seat a number of times
+     *
+     * @param playerConfiguration the type and seat location of the players
+     * @param shift               number of seats every player moves
+     * @return the configuration with the new seats, indexed by seat
+     */
+    static String[] rotate(String[] playerConfiguration, int shift) {
+        String[] rotated = new String[Whist.nbPlayers];
+        for (String player : playerConfiguration) {
+            String[] onePlayer = player.trim().split(",");
+            int seat = (Integer.parseInt(onePlayer[1].trim()) + shift) % Whist.nbPlayers;
+            onePlayer[1] = String.valueOf(seat);
+            rotated[seat] = String.join(",", onePlayer);
+        }
+        return rotated;
+    }
+
+    /**
+     * set the time budgets of the players of every game, before the deals are played
+     *
+     * @param timeControl the budgets per card and per game
+     */
+    void setTimeControl(TimeControl timeControl) {
+        this.timeControl = timeControl;
+    }
+
+    /**
+     * set what happens when a player breaks the rules in every game, before the deals are played
+     *
+     * @param rulePolicy the policy, LOG by default
+     */
+    void setRulePolicy(RulePolicy rulePolicy) {
+        this.rulePolicy = rulePolicy;
+    }
+
+    String getFirst() {
+        return first;
+    }
+
+    String getSecond() {
+        return second;
+    }
+
+    /**
+     * play a deal in every rotation of the players
+     *
+     * @param dealIndex the index of the deal in the match
+     * @param outcome   filled with the tricks per seat of the first and of the second type, then their wins,
+     *                  then the games aborted without a winner, summed over the rotations
+     */
+    void playDeal(long dealIndex, double[] outcome) {
+        long seed = Tournament.gameSeed(baseSeed, dealIndex);
+        for (int shift = 0; shift < rotations; shift++) {
+            WhistEngine game = new WhistEngine(seed, rotatedConfigurations[shift], nbStartCards, winningScore, rulePolicy);
+            game.setTimeControl(timeControl);
+            int winner = game.play();
+            String[] types = rotatedTypes[shift];
+            int firstSeats = 0;
+            int firstTricks = 0;
+            int secondTricks = 0;
+            for (int i = 0; i < Whist.nbPlayers; i++) {
+                if (types[i].equals(first)) {
+                    firstSeats++;
+                    firstTricks += game.getScore(i);
+                } else {
+                    secondTricks += game.getScore(i);
+                }
+            }
+            outcome[0] += (double) firstTricks / firstSeats;
+            outcome[1] += (double) secondTricks / (Whist.nbPlayers - firstSeats);
+            // an aborted game counts the tricks played before it stopped
+            outcome[winner < 0 ? 4 : types[winner].equals(first) ? 2 : 3]++;
+        }
+    }
+
+    /**
+     * play deals until the test decides, or a number of deals
+     *
+     * @param test        the sequential test the deals are added to, in order
+     * @param maxDeals    the most deals played
+     * @param parallelism number of threads
+     * @param totals      filled with the tricks per seat of the first and of the second type, then their wins,
+     *                    then the aborted games, over all the deals tested
+     * @return the decision of the test
+     */
+    SequentialTest.Decision play(SequentialTest test, long maxDeals, int parallelism, double[] totals) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        int batch = dealsPerThread * parallelism;
+        double[][] outcomes = new double[batch][5];
+        try {
+            for (long start = 0; start < maxDeals; start += batch) {
+                int size = (int) Math.min(batch, maxDeals - start);
+                for (double[] outcome : outcomes) {
+                    Arrays.fill(outcome, 0);
+                }
+                pool.invoke(new Deals(start, 0, size, outcomes));
+                // the deals played after the decision are not counted
+                for (int i = 0; i < size; i++) {
+                    double[] outcome = outcomes[i];
+                    for (int j = 0; j < totals.length; j++) {
+                        totals[j] += outcome[j];
+                    }
+                    test.add((outcome[0] - outcome[1]) / rotations);
+                    SequentialTest.Decision decision = test.decide();
+                    if (decision != SequentialTest.Decision.UNDECIDED) {
+                        return decision;
+                    }
+                }
+            }
+            return SequentialTest.Decision.UNDECIDED;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * the deals of a batch from index from (inclusive) to to (exclusive), split in halves down to one deal
+     */
+    @SuppressWarnings("serial")
+    private class Deals extends RecursiveAction {
+        private final long start;
+        private final int from;
+        private final int to;
+        private final double[][] outcomes;
+
+        Deals(long start, int from, int to, double[][] outcomes) {
+            this.start = start;
+            this.from = from;
+            this.to = to;
+            this.outcomes = outcomes;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                playDeal(start + from, outcomes[from]);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Deals(start, from, middle, outcomes), new Deals(start, middle, to, outcomes));
+        }
+    }
+
+    /**
+     * Main method. Compares the two player types of whist.properties with its seed and game settings,
+     * and its confidence and margin of the test
+     *
+     * @param args the most deals, then optionally number of threads (all cores by default)
+     */
+    public static void main(String[] args) throws IOException {
+        Properties WhistProperties = Whist.readProperties();
+        long seed = Long.parseLong(WhistProperties.getProperty("seed"));
+        int nbStartCards = Integer.parseInt(WhistProperties.getProperty("nbStartCards"));
+        int winningScore = Integer.parseInt(WhistProperties.getProperty("winningScore"));
+        String[] playerConfiguration = WhistProperties.getProperty("players").trim().split(";");
+        boolean legalPlay = Boolean.parseBoolean(WhistProperties.getProperty("legalPlay"));
+        // reject, forfeit, log or abort, by default abort the game if the play must be legal, otherwise log
+        RulePolicy rulePolicy = RulePolicy.of(WhistProperties.getProperty("rulePolicy"), legalPlay);
+        // the probability of a right decision, and the smallest difference of tricks per seat worth finding
+        double confidence = Double.parseDouble(WhistProperties.getProperty("confidence", "0.95"));
+        double margin = Double.parseDouble(WhistProperties.getProperty("margin", "0.25"));
+        long maxDeals = Long.parseLong(args[0]);
+        int parallelism = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        // the file the metrics are written to in JSON at the end, if any
+        String metricsFile = WhistProperties.getProperty("metrics");
+        if (metricsFile != null) {
+            Metrics.getInstance().setEnabled(true);
+            Metrics.getInstance().writeJsonOnExit(Paths.get(metricsFile));
+        }
+
+        DuplicateMatch match = new DuplicateMatch(seed, playerConfiguration, nbStartCards, winningScore);
+        match.setTimeControl(TimeControl.of(WhistProperties));
+        match.setRulePolicy(rulePolicy);
+        SequentialTest test = new SequentialTest(confidence, margin);
+        double[] totals = new double[5];
+        long start = System.nanoTime();
+        SequentialTest.Decision decision = match.play(test, maxDeals, parallelism, totals);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long deals = test.getSamples();
+        long games = deals * rotations;
+        System.out.printf("%d deals, %d games, %.0f aborted%n", deals, games, totals[4]);
+        System.out.printf("%s: %.3f tricks per seat, %.0f wins%n", match.getFirst(), totals[0] / games, totals[2]);
+        System.out.printf("%s: %.3f tricks per seat, %.0f wins%n", match.getSecond(), totals[1] / games, totals[3]);
+        System.out.printf("difference: %+.3f +- %.3f tricks per seat (%.0f%%)%n",
+                test.getMean(), test.getErrorBar(), confidence * 100);
+        switch (decision) {
+            case FIRST_BETTER:
+                System.out.println(match.getFirst() + " is better than " + match.getSecond());
+                break;
+            case SECOND_BETTER:
+                System.out.println(match.getSecond() + " is better than " + match.getFirst());
+                break;
+            case NO_DIFFERENCE:
+                System.out.printf("no difference of %.3f tricks per seat or more%n", margin);
+                break;
+            default:
+                System.out.println("undecided after " + deals + " deals");
+        }
+        System.out.printf("%d games in %.3f s, %.2f games per second on %d threads%n", games, seconds,
+                games / seconds, parallelism);
+    }
+}
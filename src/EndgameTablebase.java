@@ -0,0 +1,445 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * the exact results of the last tricks of a round, when every player holds 3 cards or fewer, precomputed
+ * by a retrograde analysis and read from a memory mapped file. A position at the start of a trick is
+ * keyed on its live cards only: the seats are turned so that the leader sits at seat 0, the trump suit
+ * comes first and the other suits follow from the longest, and the cards of a suit are only known by
+ * their order, so a position is the holder of every live card from the highest one of every suit.
+ * The key is the index of the suit lengths among the possible ones and the rank of the holders among the
+ * orderings of the cards of the players.
+ * <p>
+ * An entry is one byte with the tricks every seat wins alone against the three others, and the tricks
+ * the partnership of the leader wins against the other one, all with best play from everyone. A trick in
+ * progress is played out to its end, at most 27 plays, and the table is read at the start of the next one.
+ */
+final class EndgameTablebase {
+    static final int maxCards = 3;
+    static final String defaultFile = "endgame.tb";
+    private static final int magic = 0x57544231;
+    private static final int headerBytes = 4;
+    // the values of a position: the tricks of each seat alone, then of the partnership of seats 0 and 2
+    private static final int nbValues = Whist.nbPlayers + 1;
+    private static final int partnership = Whist.nbPlayers;
+    private static final int valueBits = 4;
+    private static final int valueMask = (1 << valueBits) - 1;
+
+    // the number of orderings of the cards of the players, for every count of cards left of every seat,
+    // 2 bits per seat
+    private static final long[] orderings = new long[1 << 2 * Whist.nbPlayers];
+    // the index of the suit lengths of a position with n cards per seat, 4 bits per suit from the trumps
+    private static final int[][] lengthIndex = new int[maxCards + 1][1 << 4 * CardSet.nbSuits];
+    private static final int[][] lengthCodes = new int[maxCards + 1][];
+    private static final long[] sectionOffsets = new long[maxCards + 2];
+    // the tricks of the seats alone, which together are at most the tricks left, and the entries
+    private static final int[] seatCodes = new int[1 << 2 * Whist.nbPlayers];
+    private static final int[] seatValues;
+    private static EndgameTablebase tablebase;
+    private static boolean opened;
+
+    static {
+        for (int counts = 0; counts < orderings.length; counts++) {
+            int total = 0;
+            long divisor = 1;
+            for (int seat = 0; seat < Whist.nbPlayers; seat++) {
+                int count = counts >>> 2 * seat & 3;
+                total += count;
+                divisor *= factorial(count);
+            }
+            orderings[counts] = factorial(total) / divisor;
+        }
+        int nbSeatValues = 0;
+        int[] values = new int[seatCodes.length];
+        for (int code = 0; code < seatCodes.length; code++) {
+            int sum = 0;
+            for (int seat = 0; seat < Whist.nbPlayers; seat++) {
+                sum += code >>> 2 * seat & 3;
+            }
+            seatCodes[code] = sum <= maxCards ? nbSeatValues : -1;
+            if (sum <= maxCards) {
+                values[nbSeatValues++] = code;
+            }
+        }
+        seatValues = new int[nbSeatValues];
+        System.arraycopy(values, 0, seatValues, 0, nbSeatValues);
+        sectionOffsets[1] = headerBytes;
+        for (int n = 1; n <= maxCards; n++) {
+            int cards = Whist.nbPlayers * n;
+            int count = 0;
+            int[] codes = new int[cards * cards * cards];
+            // the non-trump suits from the longest, 12 cards at most so 4 bits per length
+            for (int trumps = 0; trumps <= cards; trumps++) {
+                for (int a = 0; a <= cards - trumps; a++) {
+                    for (int b = 0; b <= a; b++) {
+                        int c = cards - trumps - a - b;
+                        if (c < 0 || c > b) {
+                            continue;
+                        }
+                        int code = trumps | a << 4 | b << 8 | c << 12;
+                        lengthIndex[n][code] = count;
+                        codes[count++] = code;
+                    }
+                }
+            }
+            lengthCodes[n] = new int[count];
+            System.arraycopy(codes, 0, lengthCodes[n], 0, count);
+            sectionOffsets[n + 1] = sectionOffsets[n] + count * orderings[fullCounts(n)];
+        }
+    }
+
+    private final ByteBuffer entries;
+
+    private EndgameTablebase(ByteBuffer entries) {
+        this.entries = entries;
+        if (entries.getInt(0) != magic || entries.capacity() != sectionOffsets[maxCards + 1]) {
+            throw new IllegalArgumentException("not an endgame tablebase");
+        }
+    }
+
+    private static long factorial(int n) {
+        long f = 1;
+        for (int i = 2; i <= n; i++) {
+            f *= i;
+        }
+        return f;
+    }
+
+    /**
+     * every seat with n cards, 2 bits per seat
+     */
+    private static int fullCounts(int n) {
+        return n * 0b01010101;
+    }
+
+    /**
+     * the tablebase of the file in the working directory, mapped the first time it is needed
+     *
+     * @return the tablebase, or null if there is no file
+     */
+    static synchronized EndgameTablebase getInstance() {
+        if (!opened) {
+            opened = true;
+            Path path = Paths.get(defaultFile);
+            if (Files.exists(path)) {
+                tablebase = open(path);
+            }
+        }
+        return tablebase;
+    }
+
+    /**
+     * map a tablebase file, the pages are read when they are first looked up
+     *
+     * @param path the file
+     * @return the tablebase
+     */
+    static EndgameTablebase open(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new EndgameTablebase(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * if the table has the position at the end of the current trick: every player holds the same number of
+     * cards, 3 or fewer, once the trick is complete
+     *
+     * @param hands     the cards of every player, the cards of the current trick excluded
+     * @param leader    the player who led the current trick
+     * @param trickSize number of cards in the current trick, from 0 to 4
+     * @return true if tricks() can answer
+     */
+    static boolean covers(long[] hands, int leader, int trickSize) {
+        int n = Long.bitCount(hands[leader]);
+        if (n > maxCards) {
+            return false;
+        }
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            // the players still to play the trick hold one more card
+            int left = Long.bitCount(hands[(leader + i) % Whist.nbPlayers]) - (i < trickSize || trickSize == 0 ? 0 : 1);
+            if (left != n) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * the tricks a side wins from the current trick on, with best play from everyone
+     *
+     * @param hands     the cards of every player, the cards of the current trick excluded
+     * @param trumps    the trump suit
+     * @param leader    the player who led the current trick
+     * @param trick     the cards of the current trick, in the order they were played
+     * @param trickSize number of cards in the current trick, from 0 to 4 (a trick just complete)
+     * @param side      the seats the tricks are counted for: one seat, or two seats sitting opposite
+     * @return the number of tricks, or -1 if the table does not have the position or the side
+     */
+    int tricks(long[] hands, Whist.Suit trumps, int leader, int[] trick, int trickSize, int side) {
+        if (!covers(hands, leader, trickSize)) {
+            return -1;
+        }
+        int values;
+        if (trickSize == 0) {
+            values = lookUp(hands, trumps.ordinal(), leader);
+        } else {
+            long[] copy = hands.clone();
+            int[] cards = new int[Whist.nbPlayers];
+            System.arraycopy(trick, 0, cards, 0, trickSize);
+            int best = TrickEvaluator.winner(cards, 0, trickSize, trumps);
+            values = search(copy, trumps.ordinal(), leader, cards, trickSize, (leader + best) % Whist.nbPlayers,
+                    cards[best]);
+        }
+        int left = Long.bitCount(hands[leader]) + (trickSize > 0 ? 1 : 0);
+        if (Integer.bitCount(side) == 1) {
+            return value(values, Integer.numberOfTrailingZeros(side));
+        }
+        if (side == 0b0101) {
+            return value(values, partnership);
+        }
+        return side == 0b1010 ? left - value(values, partnership) : -1;
+    }
+
+    private static int value(int values, int index) {
+        return values >>> valueBits * index & valueMask;
+    }
+
+    /**
+     * the values of a position at the start of a trick, for the seats as they sit
+     */
+    private int lookUp(long[] hands, int trumps, int leader) {
+        int n = Long.bitCount(hands[leader]);
+        if (n == 0) {
+            return 0;
+        }
+        int entry = entries.get((int) index(hands, trumps, leader, n)) & 0xFF;
+        int seats = seatValues[entry >>> 2];
+        int partners = entry & 3;
+        // the values of the entry are for the seats turned so that the leader sits at seat 0
+        int values = 0;
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            int seat = (leader + i) % Whist.nbPlayers;
+            values |= (seats >>> 2 * i & 3) << valueBits * seat;
+        }
+        int ours = leader % 2 == 0 ? partners : n - partners;
+        return values | ours << valueBits * partnership;
+    }
+
+    /**
+     * the entry of a position at the start of a trick with n cards per seat
+     */
+    private static long index(long[] hands, int trumps, int leader, int n) {
+        long live = hands[0] | hands[1] | hands[2] | hands[3];
+        int[] lengths = new int[CardSet.nbSuits];
+        int[] holders = new int[CardSet.nbSuits];
+        for (int k = 0, suit = trumps; k < CardSet.nbSuits; k++) {
+            // the trumps first, then the other suits in their order
+            if (k > 0) {
+                suit = k <= trumps ? k - 1 : k;
+            }
+            int length = 0;
+            int code = 0;
+            for (long rest = CardSet.suit(live, suit); rest != 0; rest &= rest - 1) {
+                long card = rest & -rest;
+                int holder = 0;
+                while ((hands[(leader + holder) % Whist.nbPlayers] & card) == 0) {
+                    holder++;
+                }
+                code |= holder << 2 * length++;
+            }
+            lengths[k] = length;
+            holders[k] = code;
+        }
+        // the non-trump suits from the longest
+        for (int i = 1; i < CardSet.nbSuits; i++) {
+            for (int j = i; j > 1 && lengths[j] > lengths[j - 1]; j--) {
+                int length = lengths[j];
+                lengths[j] = lengths[j - 1];
+                lengths[j - 1] = length;
+                int code = holders[j];
+                holders[j] = holders[j - 1];
+                holders[j - 1] = code;
+            }
+        }
+        int counts = fullCounts(n);
+        long rank = 0;
+        for (int k = 0; k < CardSet.nbSuits; k++) {
+            for (int j = 0; j < lengths[k]; j++) {
+                int holder = holders[k] >>> 2 * j & 3;
+                for (int other = 0; other < holder; other++) {
+                    if ((counts >>> 2 * other & 3) != 0) {
+                        rank += orderings[counts - (1 << 2 * other)];
+                    }
+                }
+                counts -= 1 << 2 * holder;
+            }
+        }
+        int lengthCode = lengths[0] | lengths[1] << 4 | lengths[2] << 8 | lengths[3] << 12;
+        return sectionOffsets[n] + lengthIndex[n][lengthCode] * orderings[fullCounts(n)] + rank;
+    }
+
+    /**
+     * play out the current trick, every player at its turn trying each of its legal cards, and read the
+     * table at the start of the next trick. The values of a seat or of the partnership of seats 0 and 2 are
+     * the best for them when they play and the worst when the others play
+     *
+     * @return the values of the position, valueBits each, for the seats as they sit then the partnership
+     */
+    private int search(long[] hands, int trumps, int leader, int[] trick, int trickSize, int winner,
+                       int winningCard) {
+        if (trickSize == Whist.nbPlayers) {
+            int values = lookUp(hands, trumps, winner) + (1 << valueBits * winner);
+            return winner % 2 == 0 ? values + (1 << valueBits * partnership) : values;
+        }
+        int player = (leader + trickSize) % Whist.nbPlayers;
+        long hand = hands[player];
+        long legal = trickSize == 0 ? hand : CardSet.suit(hand, trick[0] / CardSet.nbRanks);
+        if (legal == 0) {
+            legal = hand;
+        }
+        long live = hands[0] | hands[1] | hands[2] | hands[3];
+        for (int i = 0; i < trickSize; i++) {
+            live |= 1L << trick[i];
+        }
+        int best = -1;
+        for (long rest = legal; rest != 0; rest &= rest - 1) {
+            int card = Long.numberOfTrailingZeros(rest);
+            // a card just below another card of the hand, with no live card between them, plays the same
+            long above = CardSet.higher(live, card);
+            if (above != 0 && (hand & Long.highestOneBit(above)) != 0) {
+                continue;
+            }
+            hands[player] = hand & ~(1L << card);
+            trick[trickSize] = card;
+            boolean beats = trickSize == 0 || TrickEvaluator.beats(card, winningCard, Whist.Suit.values()[trumps]);
+            int values = search(hands, trumps, leader, trick, trickSize + 1, beats ? player : winner,
+                    beats ? card : winningCard);
+            hands[player] = hand;
+            best = best < 0 ? values : combine(best, values, player);
+        }
+        return best;
+    }
+
+    /**
+     * the better of two values for every value: the seat playing takes its best, the others their worst
+     */
+    private static int combine(int first, int second, int player) {
+        int values = 0;
+        for (int i = 0; i < nbValues; i++) {
+            int a = value(first, i);
+            int b = value(second, i);
+            boolean maximizing = i == partnership ? player % 2 == 0 : i == player;
+            values |= (maximizing ? Math.max(a, b) : Math.min(a, b)) << valueBits * i;
+        }
+        return values;
+    }
+
+    /**
+     * compute the entries of the positions with n cards per seat, with the table of n - 1 cards per seat
+     */
+    @SuppressWarnings("serial")
+    private class Section extends RecursiveAction {
+        private final int n;
+        private final int from;
+        private final int to;
+
+        Section(int n, int from, int to) {
+            this.n = n;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Section(n, from, middle), new Section(n, middle, to));
+                return;
+            }
+            int lengthCode = lengthCodes[n][from];
+            long nbOrderings = orderings[fullCounts(n)];
+            long base = sectionOffsets[n] + from * nbOrderings;
+            long[] hands = new long[Whist.nbPlayers];
+            int[] trick = new int[Whist.nbPlayers];
+            for (long rank = 0; rank < nbOrderings; rank++) {
+                deal(lengthCode, n, rank, hands);
+                int values = search(hands, 0, 0, trick, 0, 0, -1);
+                int seats = 0;
+                for (int i = 0; i < Whist.nbPlayers; i++) {
+                    seats |= value(values, i) << 2 * i;
+                }
+                if (seatCodes[seats] < 0) {
+                    throw new IllegalStateException("the seats win more tricks than there are");
+                }
+                entries.put((int) (base + rank), (byte) (seatCodes[seats] << 2 | value(values, partnership)));
+            }
+        }
+    }
+
+    /**
+     * the position of an entry, with the trumps as the first suit and the highest cards of every suit
+     *
+     * @param lengthCode the lengths of the suits, 4 bits each
+     * @param n          number of cards per seat
+     * @param rank       the rank of the holders of the cards
+     * @param hands      filled with the cards of every player
+     */
+    private static void deal(int lengthCode, int n, long rank, long[] hands) {
+        int counts = fullCounts(n);
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            hands[i] = CardSet.EMPTY;
+        }
+        for (int suit = 0; suit < CardSet.nbSuits; suit++) {
+            int length = lengthCode >>> 4 * suit & 15;
+            for (int j = 0; j < length; j++) {
+                int holder = 0;
+                while (true) {
+                    if ((counts >>> 2 * holder & 3) != 0) {
+                        long below = orderings[counts - (1 << 2 * holder)];
+                        if (rank < below) {
+                            break;
+                        }
+                        rank -= below;
+                    }
+                    holder++;
+                }
+                counts -= 1 << 2 * holder;
+                hands[holder] = CardSet.add(hands[holder], suit * CardSet.nbRanks + j);
+            }
+        }
+    }
+
+    /**
+     * Main method. Computes the table, from 1 to 3 cards per seat, and writes it to a file
+     *
+     * @param args the file, endgame.tb by default
+     */
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get(args.length > 0 ? args[0] : defaultFile);
+        ByteBuffer entries = ByteBuffer.allocate((int) sectionOffsets[maxCards + 1]);
+        entries.putInt(0, magic);
+        EndgameTablebase table = new EndgameTablebase(entries);
+        long start = System.nanoTime();
+        for (int n = 1; n <= maxCards; n++) {
+            table.new Section(n, 0, lengthCodes[n].length).invoke();
+            System.out.printf("%d cards per seat: %d positions, %.1f s%n", n, sectionOffsets[n + 1] - sectionOffsets[n],
+                    (System.nanoTime() - start) / 1e9);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            entries.rewind();
+            while (entries.hasRemaining()) {
+                channel.write(entries);
+            }
+        }
+    }
+}
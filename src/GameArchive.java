@@ -0,0 +1,70 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * reads the game records of an archive written by GameArchiveWriter. The data and index files are
+ * memory-mapped, so game N is decoded straight from its offset in the index. The archive is read as it
+ * was when opened, and must be smaller than 2 GB
+ */
+class GameArchive {
+    private final MappedByteBuffer data;
+    private final MappedByteBuffer index;
+    private final int version;
+
+    /**
+     * open an archive to read
+     *
+     * @param path the data file of the archive
+     * @throws IOException if the files cannot be read or are not an archive
+     */
+    GameArchive(Path path) throws IOException {
+        try (FileChannel dataChannel = FileChannel.open(path, StandardOpenOption.READ);
+             FileChannel indexChannel = FileChannel.open(indexPath(path), StandardOpenOption.READ)) {
+            data = dataChannel.map(FileChannel.MapMode.READ_ONLY, 0, dataChannel.size());
+            // a record being appended may be in the data file without its offset yet, never the other way round
+            index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size() / Long.BYTES * Long.BYTES);
+        }
+        if (data.limit() < GameArchiveWriter.headerSize || data.getInt(0) != GameArchiveWriter.magic) {
+            throw new IOException(path + " is not a game archive");
+        }
+        version = data.getInt(Integer.BYTES);
+        if (version < 1 || version > GameArchiveWriter.version) {
+            throw new IOException(path + " has archive version " + version);
+        }
+    }
+
+    /**
+     * the index file of an archive, next to its data file
+     *
+     * @param path the data file of the archive
+     * @return the index file of the archive
+     */
+    static Path indexPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".idx");
+    }
+
+    /**
+     * the number of games in the archive
+     *
+     * @return the number of records
+     */
+    int size() {
+        return index.limit() / Long.BYTES;
+    }
+
+    /**
+     * the record of a game
+     *
+     * @param game the index of the game in the archive, from 0 to size() - 1
+     * @return the record of the game
+     */
+    GameRecord get(int game) {
+        ByteBuffer buffer = data.duplicate();
+        buffer.position((int) index.getLong(game * Long.BYTES));
+        return GameRecord.read(buffer, version);
+    }
+}
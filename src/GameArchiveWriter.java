@@ -0,0 +1,94 @@
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * appends game records to an archive. The archive is a data file starting with a header, followed by the
+ * records, and an index file with the offset of every record in the data file as a long, so that game N
+ * can be found without reading the others. A writer can be shared by games running in parallel
+ */
+class GameArchiveWriter implements Closeable {
+    static final int magic = 0x57485354; // "WHST"
+    // version 2 added the rule policy to the records
+    static final int version = 2;
+    static final int headerSize = 2 * Integer.BYTES;
+
+    private final FileChannel data;
+    private final FileChannel index;
+    private final ByteBuffer offset = ByteBuffer.allocate(Long.BYTES);
+
+    /**
+     * open an archive to append records, creating it if it does not exist
+     *
+     * @param path the data file of the archive
+     * @throws IOException if the files cannot be opened or written, or the archive has another version
+     */
+    GameArchiveWriter(Path path) throws IOException {
+        if (Files.exists(path) && Files.size(path) > 0) {
+            checkHeader(path);
+        }
+        data = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        index = FileChannel.open(GameArchive.indexPath(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        if (data.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(headerSize).putInt(magic).putInt(version);
+            header.flip();
+            write(data, header);
+        }
+    }
+
+    /**
+     * check that an archive has the version of the records appended now, a reader could not read both
+     *
+     * @param path the data file of the archive
+     * @throws IOException if the file cannot be read or is not an archive of this version
+     */
+    private static void checkHeader(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            if (in.readInt() == magic && in.readInt() == version) {
+                return;
+            }
+        } catch (EOFException e) {
+            // too short for a header
+        }
+        throw new IOException(path + " is not a game archive of version " + version);
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * append a record at the end of the archive. The record is in the data file before it is in the index
+     *
+     * @param record the record of a game
+     * @throws IOException if the files cannot be written
+     */
+    synchronized void append(GameRecord record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(record.size());
+        record.write(buffer);
+        buffer.flip();
+        long position = data.size();
+        write(data, buffer);
+        offset.clear();
+        offset.putLong(position).flip();
+        write(index, offset);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            data.close();
+        } finally {
+            index.close();
+        }
+    }
+}
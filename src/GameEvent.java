@@ -0,0 +1,194 @@
+/**
+ * an event of a game: a round started, a card played, a trick won, a rule broken, a card late or the game over.
+ * The engine fills and reuses a single event, and the event bus copies it into the slots of its ring
+ * buffer, so publishing events allocates nothing. An event is only valid during the call that receives
+ * it: an observer keeps the fields it needs, never the event
+ */
+final class GameEvent {
+    /**
+     * the type of event, which tells the fields that are set
+     */
+    enum Type {
+        // game, round, trumps, hands, and the leader of the first trick as the seat
+        ROUND_STARTED,
+        // game, round, trick, seat, card, lead, trumps and the winner of the trick so far
+        CARD_PLAYED,
+        // game, round, trick, lead, trumps, winner and its new score
+        TRICK_WON,
+        // game, round, trick, seat, card, lead and trumps
+        RULE_VIOLATION,
+        // game, round, trick, seat, the card that came late, lead and trumps
+        MOVE_OVERRUN,
+        // game, round and winner
+        GAME_OVER
+    }
+
+    private Type type;
+    private WhistEngine game;
+    private int round;
+    private int trick;
+    private int seat = -1;
+    private int card = -1;
+    private Whist.Suit lead;
+    private Whist.Suit trumps;
+    private int winner = -1;
+    private int score;
+    private final long[] hands = new long[Whist.nbPlayers];
+
+    private GameEvent set(Type type, WhistEngine game, int round, int trick, Whist.Suit lead, Whist.Suit trumps) {
+        this.type = type;
+        this.game = game;
+        this.round = round;
+        this.trick = trick;
+        this.lead = lead;
+        this.trumps = trumps;
+        this.seat = -1;
+        this.card = -1;
+        this.winner = -1;
+        return this;
+    }
+
+    GameEvent roundStarted(WhistEngine game, int round, Whist.Suit trumps, long[] hands, int leader) {
+        set(Type.ROUND_STARTED, game, round, 0, null, trumps);
+        this.seat = leader;
+        System.arraycopy(hands, 0, this.hands, 0, Whist.nbPlayers);
+        return this;
+    }
+
+    GameEvent cardPlayed(WhistEngine game, int round, int trick, int seat, int card, Whist.Suit lead,
+                         Whist.Suit trumps, int winner) {
+        set(Type.CARD_PLAYED, game, round, trick, lead, trumps);
+        this.seat = seat;
+        this.card = card;
+        this.winner = winner;
+        return this;
+    }
+
+    GameEvent trickWon(WhistEngine game, int round, int trick, Whist.Suit lead, Whist.Suit trumps, int winner,
+                       int score) {
+        set(Type.TRICK_WON, game, round, trick, lead, trumps);
+        this.winner = winner;
+        this.score = score;
+        return this;
+    }
+
+    GameEvent ruleViolation(WhistEngine game, int round, int trick, int seat, int card, Whist.Suit lead,
+                            Whist.Suit trumps) {
+        set(Type.RULE_VIOLATION, game, round, trick, lead, trumps);
+        this.seat = seat;
+        this.card = card;
+        return this;
+    }
+
+    GameEvent moveOverrun(WhistEngine game, int round, int trick, int seat, int card, Whist.Suit lead,
+                          Whist.Suit trumps) {
+        set(Type.MOVE_OVERRUN, game, round, trick, lead, trumps);
+        this.seat = seat;
+        this.card = card;
+        return this;
+    }
+
+    GameEvent gameOver(WhistEngine game, int round, int winner) {
+        set(Type.GAME_OVER, game, round, 0, null, null);
+        this.winner = winner;
+        return this;
+    }
+
+    /**
+     * copy all the fields of another event
+     *
+     * @param event the event copied
+     */
+    void copyFrom(GameEvent event) {
+        set(event.type, event.game, event.round, event.trick, event.lead, event.trumps);
+        seat = event.seat;
+        card = event.card;
+        winner = event.winner;
+        score = event.score;
+        System.arraycopy(event.hands, 0, hands, 0, Whist.nbPlayers);
+    }
+
+    /**
+     * call the method of an observer for the type of the event
+     *
+     * @param observer the observer notified
+     */
+    void dispatch(IObserver observer) {
+        switch (type) {
+            case ROUND_STARTED:
+                observer.roundStarted(this);
+                break;
+            case CARD_PLAYED:
+                observer.cardPlayed(this);
+                break;
+            case TRICK_WON:
+                observer.trickWon(this);
+                break;
+            case RULE_VIOLATION:
+                observer.ruleViolation(this);
+                break;
+            case MOVE_OVERRUN:
+                observer.moveOverrun(this);
+                break;
+            case GAME_OVER:
+                observer.gameOver(this);
+                break;
+        }
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    /**
+     * the game of the event. Its settings can be read from any thread, but not its state,
+     * which has moved on when the event reaches an asynchronous observer
+     *
+     * @return the game that published the event
+     */
+    WhistEngine getGame() {
+        return game;
+    }
+
+    int getRound() {
+        return round;
+    }
+
+    int getTrick() {
+        return trick;
+    }
+
+    int getSeat() {
+        return seat;
+    }
+
+    int getCard() {
+        return card;
+    }
+
+    Whist.Suit getLead() {
+        return lead;
+    }
+
+    Whist.Suit getTrumps() {
+        return trumps;
+    }
+
+    int getWinner() {
+        return winner;
+    }
+
+    int getScore() {
+        return score;
+    }
+
+    /**
+     * the hand dealt to a player, for a round started
+     *
+     * @param position where the player seat
+     * @return the cards dealt to the player
+     */
+    long getHand(int position) {
+        return hands[position];
+    }
+}
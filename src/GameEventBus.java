@@ -0,0 +1,113 @@
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * delivers game events to observers on a background thread, so that slow observers (logging, recording)
+ * do not slow down the games. The events are copied into a bounded ring buffer of preallocated events,
+ * which any number of games can publish to. A game only waits if the buffer is full, when the observers
+ * fell behind by a whole buffer
+ */
+class GameEventBus implements Closeable {
+    private final GameEvent[] slots;
+    // slot i can be written for sequence s when sequences[i] == s, and read when sequences[i] == s + 1
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final IObserver[] observers;
+    private final Thread consumer;
+    // next sequence to deliver, only used by the consumer thread
+    private long head;
+    private volatile boolean sleeping;
+    private volatile boolean closed;
+
+    /**
+     * Constructor of a bus, starts its thread
+     *
+     * @param capacity  number of events in the ring buffer, a power of two
+     * @param observers the observers the events are delivered to, in this order
+     */
+    GameEventBus(int capacity, IObserver... observers) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity " + capacity + " is not a power of two");
+        }
+        slots = new GameEvent[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new GameEvent();
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+        this.observers = observers.clone();
+        consumer = new Thread(this::deliver, "game events");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * copy an event into the ring buffer, waiting for a free slot if it is full
+     *
+     * @param event the event, which can be reused as soon as this returns
+     */
+    void publish(GameEvent event) {
+        long sequence = tail.getAndIncrement();
+        int index = (int) sequence & mask;
+        while (sequences.get(index) != sequence) {
+            LockSupport.unpark(consumer);
+            Thread.yield();
+        }
+        slots[index].copyFrom(event);
+        sequences.set(index, sequence + 1);
+        if (sleeping) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private void deliver() {
+        while (true) {
+            int index = (int) head & mask;
+            if (sequences.get(index) == head + 1) {
+                GameEvent event = slots[index];
+                for (IObserver observer : observers) {
+                    try {
+                        event.dispatch(observer);
+                    } catch (RuntimeException e) {
+                        // one failing observer must not stop the delivery to the others, nor block the games
+                        e.printStackTrace();
+                    }
+                }
+                sequences.set(index, head + slots.length);
+                head++;
+            } else if (closed && head == tail.get()) {
+                return;
+            } else {
+                sleeping = true;
+                if (sequences.get(index) != head + 1 && !closed) {
+                    LockSupport.parkNanos(this, 1_000_000);
+                }
+                sleeping = false;
+            }
+        }
+    }
+
+    /**
+     * deliver the events already published, then stop the thread. No event can be published afterwards
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(consumer);
+        boolean interrupted = false;
+        while (consumer.isAlive()) {
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * prints the events of a game on the console, one line per event. Meant to be fed by an event bus,
+ * so that printing never slows down the game
+ */
+class GameLogger implements IObserver {
+    @Override
+    public void roundStarted(GameEvent event) {
+        System.out.println("Round " + event.getRound() + ", trumps: " + event.getTrumps());
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            System.out.println("Player " + i + ": " + CardSet.toString(event.getHand(i)));
+        }
+    }
+
+    @Override
+    public void cardPlayed(GameEvent event) {
+        System.out.println("Player " + event.getSeat() + " plays " + CardSet.cardToString(event.getCard())
+                + ", player " + event.getWinner() + " winning");
+    }
+
+    @Override
+    public void ruleViolation(GameEvent event) {
+        System.out.println("Follow rule broken by player " + event.getSeat() + " attempting to play "
+                + selected(event.getCard()));
+    }
+
+    @Override
+    public void moveOverrun(GameEvent event) {
+        System.out.println("Player " + event.getSeat() + " ran out of time selecting "
+                + selected(event.getCard()));
+    }
+
+    /**
+     * the card a player selected, which may be any number when it broke the rules or ran out of time
+     *
+     * @param card the card selected
+     * @return the card, or its number if it is not a card of the deck
+     */
+    private static String selected(int card) {
+        return card >= 0 && card < CardSet.nbCards ? CardSet.cardToString(card) : "card " + card;
+    }
+
+    @Override
+    public void trickWon(GameEvent event) {
+        System.out.println("Player " + event.getWinner() + " wins trick " + event.getTrick()
+                + ", score " + event.getScore());
+    }
+
+    @Override
+    public void gameOver(GameEvent event) {
+        if (event.getWinner() < 0) {
+            System.out.println("Game aborted. " + event.getGame().getAbortCause().getMessage());
+        } else {
+            System.out.println("Game over. Winner is player: " + event.getWinner());
+        }
+    }
+}
@@ -0,0 +1,238 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * the record of one game: its seed and settings, its winner, and for every round the trump, the hands
+ * dealt, the leader of the first trick and the cards played in order. A game aborted by its rule policy
+ * has no winner, and ends with the cards played before the card that broke the rules. In binary a record is:
+ * <pre>
+ * long  seed
+ * byte  nbStartCards
+ * short winningScore
+ * byte  winner, -1 if the game was aborted
+ * byte  rule policy, its ordinal (archives of version 2 and later, the records of version 1 were all logged)
+ * short length of the player configuration, then its seats joined with ';' in UTF-8
+ * short number of rounds, then for every round:
+ *       byte trump, byte leader, byte number of cards played,
+ *       4 longs with the CardSet of every hand dealt,
+ *       the cards played, 6 bits per card, packed from the first card in the high bits
+ * </pre>
+ */
+final class GameRecord {
+    private static final int cardBits = 6;
+
+    private final long seed;
+    private final String[] playerConfiguration;
+    private final int nbStartCards;
+    private final int winningScore;
+    private final RulePolicy rulePolicy;
+    private final List<Round> rounds = new ArrayList<>();
+    private int winner = -1;
+
+    GameRecord(long seed, String[] playerConfiguration, int nbStartCards, int winningScore, RulePolicy rulePolicy) {
+        this.seed = seed;
+        this.playerConfiguration = playerConfiguration;
+        this.nbStartCards = nbStartCards;
+        this.winningScore = winningScore;
+        this.rulePolicy = rulePolicy;
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    String[] getPlayerConfiguration() {
+        return playerConfiguration;
+    }
+
+    int getNbStartCards() {
+        return nbStartCards;
+    }
+
+    int getWinningScore() {
+        return winningScore;
+    }
+
+    RulePolicy getRulePolicy() {
+        return rulePolicy;
+    }
+
+    int getWinner() {
+        return winner;
+    }
+
+    void setWinner(int winner) {
+        this.winner = winner;
+    }
+
+    int getNbRounds() {
+        return rounds.size();
+    }
+
+    Round getRound(int round) {
+        return rounds.get(round);
+    }
+
+    /**
+     * start the record of a new round
+     *
+     * @param trumps the trump suit of the round
+     * @param hands  the cards dealt to every player
+     * @param leader the player who leads the first trick, known even if the game stops before its first card
+     * @return the record of the round
+     */
+    Round addRound(Whist.Suit trumps, long[] hands, int leader) {
+        Round round = new Round(trumps, hands.clone(), leader);
+        rounds.add(round);
+        return round;
+    }
+
+    /**
+     * the record of one round
+     */
+    static final class Round {
+        private final Whist.Suit trumps;
+        private final long[] hands;
+        private final int[] cards = new int[CardSet.nbCards];
+        private final int leader;
+        private int nbCards;
+
+        private Round(Whist.Suit trumps, long[] hands, int leader) {
+            this.trumps = trumps;
+            this.hands = hands;
+            this.leader = leader;
+        }
+
+        /**
+         * record a card played
+         *
+         * @param card the card played
+         */
+        void addCard(int card) {
+            cards[nbCards++] = card;
+        }
+
+        Whist.Suit getTrumps() {
+            return trumps;
+        }
+
+        long getHand(int position) {
+            return hands[position];
+        }
+
+        int getLeader() {
+            return leader;
+        }
+
+        int getNbCards() {
+            return nbCards;
+        }
+
+        int getCard(int i) {
+            return cards[i];
+        }
+    }
+
+    private byte[] configurationBytes() {
+        return String.join(";", playerConfiguration).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * the number of bytes of the record in binary
+     *
+     * @return the size of the record
+     */
+    int size() {
+        int size = Long.BYTES + 1 + Short.BYTES + 1 + 1 + Short.BYTES + configurationBytes().length + Short.BYTES;
+        for (Round round : rounds) {
+            size += 3 + Whist.nbPlayers * Long.BYTES + (round.nbCards * cardBits + 7) / 8;
+        }
+        return size;
+    }
+
+    /**
+     * write the record in binary at the position of a buffer
+     *
+     * @param buffer the buffer, with size() bytes remaining at least
+     */
+    void write(ByteBuffer buffer) {
+        byte[] configuration = configurationBytes();
+        buffer.putLong(seed);
+        buffer.put((byte) nbStartCards);
+        buffer.putShort((short) winningScore);
+        buffer.put((byte) winner);
+        buffer.put((byte) rulePolicy.ordinal());
+        buffer.putShort((short) configuration.length);
+        buffer.put(configuration);
+        buffer.putShort((short) rounds.size());
+        for (Round round : rounds) {
+            buffer.put((byte) round.trumps.ordinal());
+            buffer.put((byte) round.leader);
+            buffer.put((byte) round.nbCards);
+            for (long hand : round.hands) {
+                buffer.putLong(hand);
+            }
+            // 6 bits per card, flushed a byte at a time
+            int bits = 0;
+            int nbBits = 0;
+            for (int i = 0; i < round.nbCards; i++) {
+                bits = bits << cardBits | round.cards[i];
+                nbBits += cardBits;
+                while (nbBits >= 8) {
+                    nbBits -= 8;
+                    buffer.put((byte) (bits >>> nbBits));
+                }
+            }
+            if (nbBits > 0) {
+                buffer.put((byte) (bits << 8 - nbBits));
+            }
+        }
+    }
+
+    /**
+     * read a record written in binary at the position of a buffer
+     *
+     * @param buffer  the buffer, left after the record
+     * @param version the version of the archive the record was written in
+     * @return the record
+     */
+    static GameRecord read(ByteBuffer buffer, int version) {
+        long seed = buffer.getLong();
+        int nbStartCards = buffer.get();
+        int winningScore = buffer.getShort();
+        int winner = buffer.get();
+        RulePolicy rulePolicy = version < 2 ? RulePolicy.LOG : RulePolicy.values()[buffer.get()];
+        byte[] configuration = new byte[buffer.getShort()];
+        buffer.get(configuration);
+        GameRecord record = new GameRecord(seed, new String(configuration, StandardCharsets.UTF_8).split(";"),
+                nbStartCards, winningScore, rulePolicy);
+        record.winner = winner;
+        int nbRounds = buffer.getShort();
+        Whist.Suit[] suits = Whist.Suit.values();
+        for (int r = 0; r < nbRounds; r++) {
+            Whist.Suit trumps = suits[buffer.get()];
+            int leader = buffer.get();
+            int nbCards = buffer.get();
+            long[] hands = new long[Whist.nbPlayers];
+            for (int i = 0; i < Whist.nbPlayers; i++) {
+                hands[i] = buffer.getLong();
+            }
+            Round round = new Round(trumps, hands, leader);
+            int bits = 0;
+            int nbBits = 0;
+            for (int i = 0; i < nbCards; i++) {
+                if (nbBits < cardBits) {
+                    bits = bits << 8 | buffer.get() & 0xFF;
+                    nbBits += 8;
+                }
+                nbBits -= cardBits;
+                round.cards[i] = bits >>> nbBits & (1 << cardBits) - 1;
+            }
+            round.nbCards = nbCards;
+            record.rounds.add(round);
+        }
+        return record;
+    }
+}
@@ -0,0 +1,54 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * records the games it observes, and appends the record of a game to an archive when it is over.
+ * Meant to be fed by an event bus: it only reads the events and the settings of the games,
+ * and follows any number of games at once
+ */
+class GameRecorder implements IObserver {
+    private final GameArchiveWriter archive;
+    // the records of the games being played, and their current round
+    private final Map<WhistEngine, GameRecord> records = new IdentityHashMap<>();
+    private final Map<WhistEngine, GameRecord.Round> rounds = new IdentityHashMap<>();
+
+    /**
+     * Constructor of a recorder
+     *
+     * @param archive the archive the games are appended to
+     */
+    GameRecorder(GameArchiveWriter archive) {
+        this.archive = archive;
+    }
+
+    @Override
+    public void roundStarted(GameEvent event) {
+        WhistEngine game = event.getGame();
+        GameRecord record = records.computeIfAbsent(game, g -> new GameRecord(g.getSeed(),
+                g.getPlayerConfiguration(), g.getNbStartCards(), g.getWinningScore(), g.getRulePolicy()));
+        long[] hands = new long[Whist.nbPlayers];
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            hands[i] = event.getHand(i);
+        }
+        rounds.put(game, record.addRound(event.getTrumps(), hands, event.getSeat()));
+    }
+
+    @Override
+    public void cardPlayed(GameEvent event) {
+        rounds.get(event.getGame()).addCard(event.getCard());
+    }
+
+    @Override
+    public void gameOver(GameEvent event) {
+        GameRecord record = records.remove(event.getGame());
+        rounds.remove(event.getGame());
+        record.setWinner(event.getWinner());
+        try {
+            archive.append(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
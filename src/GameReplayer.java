@@ -0,0 +1,91 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * replays a recorded game: the engine runs the game again with the trumps, hands and leaders of the
+ * record and under its rule policy, and every player plays its recorded cards. The game can be replayed
+ * headless or on a game board
+ */
+public class GameReplayer extends WhistEngine {
+    private final GameRecord record;
+    private int round = -1;
+    private int nextCard;
+
+    /**
+     * Constructor of the replay of a game
+     *
+     * @param record the record of the game
+     * @param board  the game board, or null for a headless replay
+     */
+    GameReplayer(GameRecord record, Whist board) {
+        super(record.getSeed(), record.getPlayerConfiguration(), record.getNbStartCards(), record.getWinningScore(),
+                record.getRulePolicy(), board);
+        this.record = record;
+    }
+
+    @Override
+    Whist.Suit selectTrumps() {
+        // the trump is the first thing selected in a round
+        round++;
+        nextCard = 0;
+        return record.getRound(round).getTrumps();
+    }
+
+    @Override
+    void deal() {
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            setHand(i, record.getRound(round).getHand(i));
+        }
+    }
+
+    @Override
+    int selectLeader() {
+        return record.getRound(round).getLeader();
+    }
+
+    /**
+     * players playing the cards of the record. The engine asks them in the order the cards were played.
+     * The card that aborted a game was not played: past the cards of the record, a player selects a card
+     * that is not in the deck, which aborts the game again
+     */
+    @Override
+    Player[] createPlayers(long[] hands) {
+        Player[] players = new Player[Whist.nbPlayers];
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            ISelectCard selection = new ISelectCard() {
+                @Override
+                public int selectCard(int position, long hand, long legal, WhistEngine game) {
+                    GameRecord.Round cards = record.getRound(round);
+                    return nextCard < cards.getNbCards() ? cards.getCard(nextCard++) : -1;
+                }
+
+                @Override
+                public void responseToCardPlayed(int position, int cardPlayed) {
+                }
+            };
+            if (getBoard() != null) {
+                selection = new PacedStrategy(selection, getBoard());
+            }
+            players[i] = new Player(selection, this, i);
+        }
+        return players;
+    }
+
+    /**
+     * Main method. Replays a game of an archive
+     *
+     * @param args the archive, the index of the game, then optionally "headless" to replay it without the game board
+     */
+    public static void main(String[] args) throws IOException {
+        GameArchive archive = new GameArchive(Paths.get(args[0]));
+        GameRecord record = archive.get(Integer.parseInt(args[1]));
+        if (args.length > 2 && args[2].equals("headless")) {
+            GameReplayer game = new GameReplayer(record, null);
+            game.addObserver(new GameLogger());
+            int winner = game.play();
+            System.out.println("Recorded winner is player: " + record.getWinner() + ", replayed: " + winner);
+        } else {
+            new Whist(record, new DelayPacing(1000, 600));
+        }
+    }
+}
@@ -0,0 +1,292 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * the state of a round as the rules see it: the hands, the trumps, the current trick with its leader, lead
+ * and winning card, and the tricks every seat won. Playing a card and taking it back are constant time
+ * updates of a few primitives, and so is the Zobrist hash of the position, so the engine plays its rounds
+ * on a game state and the searches play millions of lines on theirs with the same rules. The cards played
+ * are kept from the start of the round, the current trick is the last cards played, and a card is taken
+ * back with what it changed. The state does not check that a card follows suit: the engine applies its rule
+ * policy before, and a search only plays legal cards. A game state is not thread-safe.
+ */
+final class GameState {
+    private static final int nbPlayers = Whist.nbPlayers;
+    // the keys of a card held by a seat, of a card at a position of the trick, of the leader and of the trumps
+    private static final long[] holdKeys = new long[nbPlayers * CardSet.nbCards];
+    private static final long[] trickKeys = new long[nbPlayers * CardSet.nbCards];
+    private static final long[] leaderKeys = new long[nbPlayers];
+    private static final long[] trumpKeys = new long[CardSet.nbSuits];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED5EEDL);
+        for (int i = 0; i < holdKeys.length; i++) {
+            holdKeys[i] = random.nextLong();
+        }
+        for (int i = 0; i < trickKeys.length; i++) {
+            trickKeys[i] = random.nextLong();
+        }
+        for (int i = 0; i < nbPlayers; i++) {
+            leaderKeys[i] = random.nextLong();
+        }
+        for (int i = 0; i < CardSet.nbSuits; i++) {
+            trumpKeys[i] = random.nextLong();
+        }
+    }
+
+    private final long[] hands = new long[nbPlayers];
+    private final int[] tricks = new int[nbPlayers];
+    private Whist.Suit trumps;
+    private Whist.Suit lead;
+    private int leader;
+    private int trickSize;
+    private int winner = -1;
+    private int winningCard = -1;
+    private long hash;
+    // the cards played from the start, and what each of them changed
+    private int ply;
+    private final int[] cards = new int[CardSet.nbCards];
+    private final int[] leaders = new int[CardSet.nbCards];
+    private final int[] winners = new int[CardSet.nbCards];
+    private final int[] winningCards = new int[CardSet.nbCards];
+    private final long[] hashes = new long[CardSet.nbCards];
+
+    /**
+     * start a round
+     *
+     * @param hands  the cards of every player
+     * @param trumps the trump suit
+     * @param leader the player who leads the first trick
+     */
+    void start(long[] hands, Whist.Suit trumps, int leader) {
+        System.arraycopy(hands, 0, this.hands, 0, nbPlayers);
+        Arrays.fill(tricks, 0);
+        this.trumps = trumps;
+        this.leader = leader;
+        lead = null;
+        trickSize = 0;
+        winner = -1;
+        winningCard = -1;
+        ply = 0;
+        hash = trumpKeys[trumps.ordinal()] ^ leaderKeys[leader];
+        for (int seat = 0; seat < nbPlayers; seat++) {
+            for (long rest = hands[seat]; rest != 0; rest &= rest - 1) {
+                hash ^= holdKeys[seat * CardSet.nbCards + Long.numberOfTrailingZeros(rest)];
+            }
+        }
+    }
+
+    /**
+     * start from a trick being played, the cards of the trick are played again and can be taken back
+     *
+     * @param hands     the cards of every player, the cards of the current trick excluded
+     * @param trumps    the trump suit
+     * @param leader    the player who led the current trick
+     * @param trick     the cards of the current trick, in the order they were played
+     * @param trickSize number of cards in the current trick, from 0 to 3
+     */
+    void start(long[] hands, Whist.Suit trumps, int leader, int[] trick, int trickSize) {
+        start(hands, trumps, leader);
+        for (int i = 0; i < trickSize; i++) {
+            int seat = (leader + i) % nbPlayers;
+            this.hands[seat] |= 1L << trick[i];
+            hash ^= holdKeys[seat * CardSet.nbCards + trick[i]];
+        }
+        for (int i = 0; i < trickSize; i++) {
+            play(trick[i]);
+        }
+    }
+
+    /**
+     * the player to move plays a card. The fourth card of a trick gives the trick to its winner, who
+     * leads the next one
+     *
+     * @param card the card, held by the player to move
+     */
+    void play(int card) {
+        play(card, true);
+    }
+
+    /**
+     * the player to move plays a card that cannot win the trick, a card that broke the rules under the
+     * forfeit policy
+     *
+     * @param card the card, held by the player to move
+     */
+    void forfeit(int card) {
+        play(card, false);
+    }
+
+    private void play(int card, boolean canWin) {
+        int seat = (leader + trickSize) % nbPlayers;
+        leaders[ply] = leader;
+        winners[ply] = winner;
+        winningCards[ply] = winningCard;
+        hashes[ply] = hash;
+        cards[ply++] = card;
+        hands[seat] &= ~(1L << card);
+        hash ^= holdKeys[seat * CardSet.nbCards + card] ^ trickKeys[trickSize * CardSet.nbCards + card];
+        if (trickSize == 0) {
+            lead = CardSet.suitOf(card);
+            winner = seat;
+            winningCard = card;
+        } else if (canWin && TrickEvaluator.beats(card, winningCard, trumps)) {
+            winner = seat;
+            winningCard = card;
+        }
+        if (++trickSize == nbPlayers) {
+            tricks[winner]++;
+            for (int i = 0; i < nbPlayers; i++) {
+                hash ^= trickKeys[i * CardSet.nbCards + cards[ply - nbPlayers + i]];
+            }
+            hash ^= leaderKeys[leader] ^ leaderKeys[winner];
+            leader = winner;
+            trickSize = 0;
+            lead = null;
+        }
+    }
+
+    /**
+     * take back the last card played
+     */
+    void undo() {
+        if (trickSize == 0) {
+            // the card ended a trick, its winner leads now
+            tricks[leader]--;
+            trickSize = nbPlayers;
+        }
+        trickSize--;
+        int card = cards[--ply];
+        leader = leaders[ply];
+        winner = winners[ply];
+        winningCard = winningCards[ply];
+        hash = hashes[ply];
+        hands[(leader + trickSize) % nbPlayers] |= 1L << card;
+        lead = trickSize == 0 ? null : CardSet.suitOf(cards[ply - trickSize]);
+    }
+
+    /**
+     * the cards of a player
+     *
+     * @param seat where the player seat
+     * @return the CardSet of the player
+     */
+    long getHand(int seat) {
+        return hands[seat];
+    }
+
+    /**
+     * the hands of all the players, to read only
+     *
+     * @return the CardSets of the players, by seat
+     */
+    long[] getHands() {
+        return hands;
+    }
+
+    /**
+     * the cards the player to move may play: the cards of the suit led if it holds any, or all its cards
+     *
+     * @return the legal cards
+     */
+    long legal() {
+        return CardSet.legal(hands[getToMove()], lead);
+    }
+
+    Whist.Suit getTrumps() {
+        return trumps;
+    }
+
+    /**
+     * the suit of the lead of the current trick
+     *
+     * @return the suit led, or null before the lead
+     */
+    Whist.Suit getLead() {
+        return lead;
+    }
+
+    int getLeader() {
+        return leader;
+    }
+
+    int getToMove() {
+        return (leader + trickSize) % nbPlayers;
+    }
+
+    /**
+     * the number of cards of the current trick, 0 before its lead
+     *
+     * @return the size of the trick
+     */
+    int getTrickSize() {
+        return trickSize;
+    }
+
+    /**
+     * the card played at a position of the current trick
+     *
+     * @param i the position in the trick, from 0 (the lead) to getTrickSize() - 1
+     * @return the card played
+     */
+    int getTrickCard(int i) {
+        return cards[ply - trickSize + i];
+    }
+
+    /**
+     * the player winning the current trick so far, or the winner of the last trick before the next lead
+     *
+     * @return the seat of the winner, or -1 before the first card
+     */
+    int getWinner() {
+        return winner;
+    }
+
+    /**
+     * the card winning the current trick so far, or the card that won the last trick before the next lead
+     *
+     * @return the card, or -1 before the first card
+     */
+    int getWinningCard() {
+        return winningCard;
+    }
+
+    /**
+     * the number of tricks a player won since the start
+     *
+     * @param seat where the player seat
+     * @return the tricks of the player
+     */
+    int getTricks(int seat) {
+        return tricks[seat];
+    }
+
+    /**
+     * the number of cards played since the start
+     *
+     * @return the ply of the state
+     */
+    int getPly() {
+        return ply;
+    }
+
+    /**
+     * a card played since the start, the last trick is the last four cards after its fourth card
+     *
+     * @param i the ply of the card, from 0 to getPly() - 1
+     * @return the card played
+     */
+    int getCard(int i) {
+        return cards[i];
+    }
+
+    /**
+     * the Zobrist hash of what the rest of the round depends on: who holds every card, the cards of the
+     * current trick and their positions, the leader and the trumps. The tricks won are not part of it
+     *
+     * @return the hash of the position
+     */
+    long getHash() {
+        return hash;
+    }
+}
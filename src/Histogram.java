@@ -0,0 +1,103 @@
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * a histogram of durations in nanoseconds with log-linear buckets, like an HDR histogram: the values
+ * below 256 are exact, and the larger ones are kept within 1/128 of their value. Recording is lock-free,
+ * so the threads of a tournament can record into the same histogram
+ */
+final class Histogram {
+    private static final int subBits = 7;
+    private static final int subCount = 1 << subBits;
+    private static final int nbBuckets = (Long.SIZE - subBits) * subCount;
+
+    private final AtomicLongArray counts = new AtomicLongArray(nbBuckets);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * the bucket of a value: the value itself below 2 * subCount, then subCount buckets per power of two
+     */
+    static int bucket(long value) {
+        if (value < subCount) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - subBits;
+        return (shift + 1 << subBits) + (int) (value >>> shift) - subCount;
+    }
+
+    /**
+     * the highest value of a bucket
+     */
+    static long highestValue(int bucket) {
+        if (bucket < 2 * subCount) {
+            return bucket;
+        }
+        int shift = (bucket >>> subBits) - 1;
+        long lowest = (long) (subCount + (bucket & subCount - 1)) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * record a value
+     *
+     * @param value the duration in nanoseconds, negative durations are recorded as 0
+     */
+    void record(long value) {
+        value = Math.max(value, 0);
+        counts.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    long getMax() {
+        return max.get();
+    }
+
+    double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * the value below which a percentage of the values are
+     *
+     * @param percentile the percentage, from 0 to 100
+     * @return the highest value of the bucket holding the percentile, at most the maximum recorded
+     */
+    long getValueAtPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < nbBuckets; i++) {
+            total += counts.get(i);
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < nbBuckets && total > 0; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * the histogram in JSON: number of values, mean, percentiles and maximum, in nanoseconds
+     *
+     * @return a JSON object
+     */
+    String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"count\": %d, \"mean\": %.1f, \"p50\": %d, \"p90\": %d, \"p99\": %d, \"p999\": %d, \"max\": %d}",
+                getCount(), getMean(), getValueAtPercentile(50), getValueAtPercentile(90),
+                getValueAtPercentile(99), getValueAtPercentile(99.9), getMax());
+    }
+}
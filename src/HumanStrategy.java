@@ -1,22 +1,29 @@
 import ch.aplu.jcardgame.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 /**
  * the human strategy class
  */
 public class HumanStrategy implements ISelectCard {
-    private Card selected;
+    private final Hand boardHand;
+    // the card of the current turn, completed by the event thread of the game board when a card is clicked
+    private volatile CompletableFuture<Card> selected = CompletableFuture.completedFuture(null);
 
     /**
      * The constructor of HumanStrategy class, add a listener to the hand
      *
-     * @param hand cards on hand. will add a card listener to receive human command
+     * @param hand cards on hand displayed in the game board. will add a card listener to receive human command
      */
     HumanStrategy(Hand hand) {
+        boardHand = hand;
         CardListener cardListener = new CardAdapter()  // Human Player plays card
         {
             public void leftDoubleClicked(Card card) {
-                hand.setTouchEnabled(true);
-                selected = card;
+                if (selected.complete(card)) {
+                    hand.setTouchEnabled(false);
+                }
             }
         };
         hand.addCardListener(cardListener);
@@ -25,27 +32,54 @@ public class HumanStrategy implements ISelectCard {
     /**
      * the override method that represents how this strategy deal with given information, in this case do nothing
      *
-     * @param oneCard card been selected to play
+     * @param position where the player who played the card seat
+     * @param oneCard  card been selected to play
+     */
+    @Override
+    public void responseToCardPlayed(int position, int oneCard) {
+    }
+
+    /**
+     * player a card that has been chosen by human by double click the mouse. The game waits for the click
+     * without polling, the card is played as soon as the game board dispatches it
+     *
+     * @param position where the player seat
+     * @param hand     the cards that player has on his hand
+     * @param legal    the cards of the hand the player may play
+     * @param game     the game the player is playing
+     * @return the card has been selected to play in a trick
      */
     @Override
-    public void responseToCardPlayed(Card oneCard) {
+    public int selectCard(int position, long hand, long legal, WhistEngine game) {
+        return selectCard(position, hand, legal, game, Deadline.unlimited());
     }
 
     /**
-     * player a card that has been chosen by human by double click the mouse
+     * wait for the click until the deadline is over, then play the smallest legal card for the human
      *
      * @param position where the player seat
      * @param hand     the cards that player has on his hand
-     * @param whist    the game the player is playing
+     * @param legal    the cards of the hand the player may play
+     * @param game     the game the player is playing
+     * @param deadline when the card is due
      * @return the card has been selected to play in a trick
      */
     @Override
-    public Card selectCard(int position, Hand hand, Whist whist) {
-        selected = null;
-        hand.setTouchEnabled(true);
+    public int selectCard(int position, long hand, long legal, WhistEngine game, Deadline deadline) {
+        CompletableFuture<Card> turn = new CompletableFuture<>();
+        selected = turn;
+        boardHand.setTouchEnabled(true);
 
-        whist.setStatusText("Player " + position + " double-click on card to lead.");
-        while (null == selected) Whist.delay(100);
-        return selected;
+        game.setStatusText("Player " + position + " double-click on card to lead.");
+        if (deadline.isLimited()) {
+            // a click after the deadline finds the turn completed and is ignored
+            turn.completeOnTimeout(null, deadline.remaining(), TimeUnit.NANOSECONDS);
+        }
+        Card card = turn.join();
+        if (card == null) {
+            boardHand.setTouchEnabled(false);
+            return CardSet.lowestRank(legal);
+        }
+        return CardSet.fromCard(card);
     }
 }
@@ -1,8 +1,33 @@
-import ch.aplu.jcardgame.Card;
-
 /**
- * the interface define who are the observers, and their behaviour
+ * the interface define who are the observers, and their behaviour. Every method receives the event,
+ * which is only valid during the call
  */
 public interface IObserver {
-    void update(Card selected);
+    /**
+     * the cards have been dealt and the trump selected, before the players are created
+     *
+     * @param event the round started, with the trumps and the hands dealt
+     */
+    default void roundStarted(GameEvent event) {
+    }
+
+    default void cardPlayed(GameEvent event) {
+    }
+
+    default void trickWon(GameEvent event) {
+    }
+
+    default void ruleViolation(GameEvent event) {
+    }
+
+    /**
+     * a player selected its card after its time budget, the game plays another card for it
+     *
+     * @param event the card that came late, with the seat of the player
+     */
+    default void moveOverrun(GameEvent event) {
+    }
+
+    default void gameOver(GameEvent event) {
+    }
 }
@@ -0,0 +1,19 @@
+/**
+ * the pacing of a game on a game board: how long the game waits so that people can follow it.
+ * Only the game board waits, the strategies never do
+ */
+public interface IPacing {
+    /**
+     * wait before a computer player plays its card
+     *
+     * @param position where the player seat
+     */
+    void thinking(int position);
+
+    /**
+     * wait while the cards of a complete trick are shown
+     *
+     * @param winner the winning player of the trick
+     */
+    void trickShown(int winner);
+}
@@ -1,9 +1,65 @@
-import ch.aplu.jcardgame.*;
+import java.util.function.Consumer;
 
 /**
  * the interface defines what actions must be performed
  */
 public interface ISelectCard {
-    Card selectCard(int position, Hand hand, Whist whist);
-    void responseToCardPlayed(Card cardPlayed);
+    /**
+     * select the card to play
+     *
+     * @param position where the player seat
+     * @param hand     the cards that player has on his hand
+     * @param legal    the cards of the hand the player may play, computed once by the game
+     * @param game     the game the player is playing
+     * @return the card has been selected to play in a trick
+     */
+    int selectCard(int position, long hand, long legal, WhistEngine game);
+
+    /**
+     * select the card to play before a deadline, the anytime variant. A strategy that searches checks the
+     * deadline while it searches and plays its best card so far once it is over, the others just select
+     * their card
+     *
+     * @param position where the player seat
+     * @param hand     the cards that player has on his hand
+     * @param legal    the cards of the hand the player may play, computed once by the game
+     * @param game     the game the player is playing
+     * @param deadline when the card is due, and the signal to play at once
+     * @return the card has been selected to play in a trick
+     */
+    default int selectCard(int position, long hand, long legal, WhistEngine game, Deadline deadline) {
+        return selectCard(position, hand, legal, game);
+    }
+
+    /**
+     * think ahead while another player selects its card. Called on the game thread when the other player
+     * starts, the strategy reads what it needs of the game then, and returns the work to do in the
+     * background: it must stop once its deadline is over, and only touch the strategy and what it read, the
+     * game goes on meanwhile. The strategy is told the card played only after the work stopped
+     *
+     * @param position where the player seat
+     * @param mover    where the player selecting its card seat
+     * @param hand     the cards that player has on his hand
+     * @param game     the game the player is playing
+     * @return the work to do until the deadline, or null to wait, the default
+     */
+    default Consumer<Deadline> ponder(int position, int mover, long hand, WhistEngine game) {
+        return null;
+    }
+
+    void responseToCardPlayed(int position, int cardPlayed);
+
+    /**
+     * get ready for a new round of the same game, so that the game keeps the strategy and its buffers
+     * instead of creating a new one. The strategy forgets the cards of the last round, and draws from the
+     * random of its seat what a new one would
+     *
+     * @param position where the player seat
+     * @param hand     the cards dealt to the player
+     * @param game     the game the player is playing
+     * @return true if the strategy is ready, false if the game must create a new one, the default
+     */
+    default boolean newRound(int position, long hand, WhistEngine game) {
+        return false;
+    }
 }
@@ -0,0 +1,251 @@
+import java.util.Arrays;
+
+/**
+ * the learned strategy: plays the legal card the policy network scores best. The position is encoded from
+ * the seat of the player as features of 0 and 1: its hand, the cards it has not seen, the cards of the
+ * trick and the card winning it, the suit led, its position in the trick, the suits the other seats showed
+ * out of, and the share of its cards left. The suits are turned so that the trumps are always the first
+ * suit, the network then learns one way to play the trumps instead of four. Selecting a card allocates
+ * nothing. While training, the strategy draws the card from the probabilities of the network instead,
+ * and records its decisions in an episode
+ */
+public class LearnedStrategy implements ISelectCard {
+    private static final int handFeatures = 0;
+    private static final int unseenFeatures = handFeatures + CardSet.nbCards;
+    private static final int trickFeatures = unseenFeatures + CardSet.nbCards;
+    private static final int winningFeatures = trickFeatures + CardSet.nbCards;
+    private static final int leadFeatures = winningFeatures + CardSet.nbCards;
+    private static final int positionFeatures = leadFeatures + CardSet.nbSuits;
+    private static final int voidFeatures = positionFeatures + Whist.nbPlayers;
+    private static final int sizeFeature = voidFeatures + (Whist.nbPlayers - 1) * CardSet.nbSuits;
+    static final int nbFeatures = sizeFeature + 1;
+
+    private final PolicyNetwork network;
+    private final CardTracker tracker;
+    private final Episode episode;
+    private final float[] features = new float[nbFeatures];
+    private final float[] activations = new float[PolicyNetwork.hidden];
+    private final float[] scores = new float[CardSet.nbCards];
+
+    /**
+     * the decisions of a seat while training, in the order they were made: the features and the legal cards
+     * of every position, with the suits turned, the card played, the trick of the round, and the score of
+     * the seat before the trick. The arrays grow as needed and are kept from one game to the next
+     */
+    static final class Episode {
+        private float[] features = new float[0];
+        private long[] legal = new long[0];
+        private int[] cards = new int[0];
+        private int[] tricks = new int[0];
+        private int[] scores = new int[0];
+        private float[] returns = new float[0];
+        private int size;
+        // the first decision of the round being played
+        private int roundStart;
+
+        void clear() {
+            size = 0;
+            roundStart = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void add(float[] position, long legalCards, int card, int trick, int score) {
+            if (size == cards.length) {
+                int capacity = Math.max(2 * size, CardSet.nbRanks);
+                features = Arrays.copyOf(features, capacity * nbFeatures);
+                legal = Arrays.copyOf(legal, capacity);
+                cards = Arrays.copyOf(cards, capacity);
+                tricks = Arrays.copyOf(tricks, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+                returns = Arrays.copyOf(returns, capacity);
+            }
+            System.arraycopy(position, 0, features, size * nbFeatures, nbFeatures);
+            legal[size] = legalCards;
+            cards[size] = card;
+            tricks[size] = trick;
+            scores[size] = score;
+            size++;
+        }
+
+        /**
+         * close the round: the return of every decision of the round is the number of tricks the seat
+         * won from the trick of the decision to the end of the round
+         *
+         * @param score the score of the seat at the end of the round
+         */
+        void endRound(int score) {
+            for (int i = roundStart; i < size; i++) {
+                returns[i] = score - scores[i];
+            }
+            roundStart = size;
+        }
+
+        /**
+         * copy the features of a decision
+         *
+         * @param i        the index of the decision
+         * @param position the buffer of the features
+         */
+        void getFeatures(int i, float[] position) {
+            System.arraycopy(features, i * nbFeatures, position, 0, nbFeatures);
+        }
+
+        long getLegal(int i) {
+            return legal[i];
+        }
+
+        int getCard(int i) {
+            return cards[i];
+        }
+
+        int getTrick(int i) {
+            return tricks[i];
+        }
+
+        float getReturn(int i) {
+            return returns[i];
+        }
+    }
+
+    /**
+     * learned strategy constructor, to play with the network
+     *
+     * @param myHand  the cards dealt to the player
+     * @param network the policy
+     */
+    LearnedStrategy(long myHand, PolicyNetwork network) {
+        this(myHand, network, null);
+    }
+
+    /**
+     * learned strategy constructor, to train the network
+     *
+     * @param myHand  the cards dealt to the player
+     * @param network the policy
+     * @param episode where the decisions are recorded, or null to play the best card
+     */
+    LearnedStrategy(long myHand, PolicyNetwork network, Episode episode) {
+        this.network = network;
+        this.tracker = new CardTracker(myHand);
+        this.episode = episode;
+    }
+
+    /**
+     * the override method that represents how this strategy deal with given information,
+     * in this case follow the cards played
+     *
+     * @param position where the player who played the card seat
+     * @param oneCard  card has been selected to play
+     */
+    @Override
+    public void responseToCardPlayed(int position, int oneCard) {
+        tracker.cardPlayed(position, oneCard);
+    }
+
+    /**
+     * follow the cards of the new round from the start
+     *
+     * @return true
+     */
+    @Override
+    public boolean newRound(int position, long hand, WhistEngine game) {
+        tracker.reset(hand);
+        return true;
+    }
+
+    /**
+     * turn the suits of a set of cards, the suit turns places down
+     *
+     * @param cards the set of cards
+     * @param turns from 0 to 3
+     * @return the cards with their suits turned
+     */
+    static long turn(long cards, int turns) {
+        int shift = turns * CardSet.nbRanks;
+        return (cards >>> shift | cards << CardSet.nbCards - shift) & CardSet.ALL;
+    }
+
+    private static int turn(int card, int turns) {
+        return (card + (CardSet.nbSuits - turns) * CardSet.nbRanks) % CardSet.nbCards;
+    }
+
+    private void set(int offset, long cards) {
+        for (long rest = cards; rest != 0; rest &= rest - 1) {
+            features[offset + Long.numberOfTrailingZeros(rest)] = 1;
+        }
+    }
+
+    /**
+     * encode the position of the player in the features
+     *
+     * @param position where the player seat
+     * @param hand     the cards that player has on his hand
+     * @param trumps   the trump suit
+     * @param turns    the turns that make the trumps the first suit
+     */
+    private void encode(int position, long hand, Whist.Suit trumps, int turns) {
+        Arrays.fill(features, 0);
+        set(handFeatures, turn(hand, turns));
+        set(unseenFeatures, turn(tracker.getUnseen(), turns));
+        int trickSize = tracker.getTrickSize();
+        if (trickSize > 0) {
+            set(trickFeatures, turn(tracker.getTrickCards(), turns));
+            features[winningFeatures + turn(tracker.getTrickCard(tracker.getTrickWinner(trumps)), turns)] = 1;
+            features[leadFeatures + (tracker.getLead().ordinal() + CardSet.nbSuits - turns) % CardSet.nbSuits] = 1;
+        }
+        features[positionFeatures + trickSize] = 1;
+        for (int i = 1; i < Whist.nbPlayers; i++) {
+            long voids = turn(tracker.getVoids((position + i) % Whist.nbPlayers), turns);
+            for (int suit = 0; suit < CardSet.nbSuits; suit++) {
+                if (!CardSet.isEmpty(CardSet.suit(voids, suit))) {
+                    features[voidFeatures + (i - 1) * CardSet.nbSuits + suit] = 1;
+                }
+            }
+        }
+        features[sizeFeature] = CardSet.size(hand) / (float) CardSet.nbRanks;
+    }
+
+    /**
+     * play the legal card the network scores best, or while training a legal card drawn from the
+     * probabilities of the network
+     *
+     * @param position where the player seat
+     * @param hand     the cards that player has on his hand
+     * @param legal    the cards of the hand the player may play
+     * @param game     the game the player is playing
+     * @return the card has been selected to play in a trick
+     */
+    @Override
+    public int selectCard(int position, long hand, long legal, WhistEngine game) {
+        if (CardSet.size(legal) == 1) {
+            return CardSet.lowest(legal);
+        }
+        Whist.Suit trumps = game.getTrumps();
+        int turns = trumps.ordinal();
+        encode(position, hand, trumps, turns);
+        long turned = turn(legal, turns);
+        network.evaluate(features, activations, scores, turned);
+        int card = -1;
+        if (episode == null) {
+            for (long rest = turned; rest != 0; rest &= rest - 1) {
+                int option = Long.numberOfTrailingZeros(rest);
+                if (card < 0 || scores[option] > scores[card]) {
+                    card = option;
+                }
+            }
+        } else {
+            PolicyNetwork.softmax(scores, turned);
+            double draw = game.getRandom(position).nextDouble();
+            for (long rest = turned; rest != 0 && draw >= 0; rest &= rest - 1) {
+                card = Long.numberOfTrailingZeros(rest);
+                draw -= scores[card];
+            }
+            int trick = game.getNbStartCards() - CardSet.size(hand);
+            episode.add(features, turned, card, trick, game.getScore(position));
+        }
+        return turn(card, CardSet.nbSuits - turns);
+    }
+}
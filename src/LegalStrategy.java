@@ -1,7 +1,3 @@
-import ch.aplu.jcardgame.*;
-
-import java.util.ArrayList;
-
 /**
  * the legal strategy that can be user by player. play the card legally.
  */
@@ -10,10 +6,21 @@ public class LegalStrategy implements ISelectCard {
     /**
      * the override method that represents how this strategy deal with given information, in this case do nothing
      *
-     * @param oneCard card has been selected to play
+     * @param position where the player who played the card seat
+     * @param oneCard  card has been selected to play
      */
     @Override
-    public void responseToCardPlayed(Card oneCard) {
+    public void responseToCardPlayed(int position, int oneCard) {
+    }
+
+    /**
+     * nothing to forget, the strategy plays every round
+     *
+     * @return true
+     */
+    @Override
+    public boolean newRound(int position, long hand, WhistEngine game) {
+        return true;
     }
 
     /**
@@ -21,26 +28,12 @@ public class LegalStrategy implements ISelectCard {
      *
      * @param position where the player seat
      * @param hand     the cards that player has on his hand
-     * @param whist    the game the player is playing
+     * @param legal    the cards of the hand the player may play
+     * @param game     the game the player is playing
      * @return the card has been selected to play in a trick
      */
     @Override
-    public Card selectCard(int position, Hand hand, Whist whist) {
-        ArrayList<Card> list;
-
-        whist.setStatusText("Player " + position + " thinking...");
-        Whist.delay(whist.thinkingTime);
-        // when legal player follows
-        if (whist.getLead() != null) {
-            list = hand.getCardsWithSuit(whist.getLead());
-            if (list.size() > 0) {
-                return whist.random.randomCard(list);
-            } else {
-                return whist.random.randomCard(hand);
-            }
-            // when legal player leads
-        } else {
-            return whist.random.randomCard(hand);
-        }
+    public int selectCard(int position, long hand, long legal, WhistEngine game) {
+        return game.getRandom(position).randomCard(legal);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
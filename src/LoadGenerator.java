@@ -0,0 +1,129 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * a load generator for the game server. It sits a bot client at every remote seat of whist.properties
+ * at every table, each on its own thread like the tables of the server, plays until the server closes
+ * the tables, and reports the move latency: the time from a bot sending its card to the server telling it
+ * the card was played, which includes the server applying the move and the round trip on localhost
+ */
+public class LoadGenerator {
+    private final String host;
+    private final int port;
+    // the remote seats, the first one counts the games
+    private final int[] seats;
+    private final Histogram latency = new Histogram();
+    private final LongAdder games = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * load generator constructor.
+     *
+     * @param host        the host of the server
+     * @param port        the port of the server
+     * @param playerTypes the player types indexed by position
+     */
+    LoadGenerator(String host, int port, String[] playerTypes) {
+        this.host = host;
+        this.port = port;
+        this.seats = WhistServer.remoteSeats(playerTypes);
+        if (seats.length == 0) {
+            throw new IllegalArgumentException("no " + WhistServer.remote + " seat in the players");
+        }
+    }
+
+    /**
+     * play a seat of a table until the server closes the connection. The bot plays a random legal card
+     *
+     * @param table the table
+     * @param seat  the seat
+     */
+    void bot(int table, int seat) {
+        SplittableRandom random = new SplittableRandom(Tournament.gameSeed(table, seat));
+        try (WhistConnection connection = new WhistConnection(new Socket(host, port))) {
+            connection.sendHello(table, seat);
+            long sent = 0;
+            int card = -1;
+            for (byte type = connection.read(); type >= 0; type = connection.read()) {
+                if (type == WhistConnection.TURN) {
+                    int lead = connection.getByte();
+                    long hand = connection.getLong();
+                    long legal = lead < 0 ? CardSet.EMPTY : CardSet.suit(hand, lead);
+                    if (CardSet.isEmpty(legal)) {
+                        legal = hand;
+                    }
+                    card = CardSet.nth(legal, random.nextInt(CardSet.size(legal)));
+                    sent = System.nanoTime();
+                    connection.sendPlay(card);
+                } else if (type == WhistConnection.CARD) {
+                    int player = connection.getByte();
+                    if (player == seat && connection.getByte() == card) {
+                        latency.record(System.nanoTime() - sent);
+                        card = -1;
+                    }
+                } else if (type == WhistConnection.GAME_OVER && seat == seats[0]) {
+                    games.increment();
+                }
+            }
+        } catch (IOException e) {
+            failures.increment();
+            System.out.println("table " + table + " seat " + seat + ": " + e);
+        }
+    }
+
+    /**
+     * sit the bots at every remote seat of every table and wait for the tables to be over
+     *
+     * @param nbTables number of tables
+     */
+    void run(int nbTables) throws InterruptedException {
+        CountDownLatch over = new CountDownLatch(nbTables * seats.length);
+        ExecutorService executor = WhistServer.newThreadPerTaskExecutor();
+        for (int table = 0; table < nbTables; table++) {
+            for (int seat : seats) {
+                int t = table;
+                executor.execute(() -> {
+                    try {
+                        bot(t, seat);
+                    } finally {
+                        over.countDown();
+                    }
+                });
+            }
+        }
+        over.await();
+        executor.shutdown();
+    }
+
+    /**
+     * Main method. Drives the tables of a server with bots
+     *
+     * @param args the port of the server on localhost, then the number of tables
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Properties WhistProperties = Whist.readProperties();
+        String[] playerConfiguration = WhistProperties.getProperty("players").trim().split(";");
+        int port = Integer.parseInt(args[0]);
+        int nbTables = Integer.parseInt(args[1]);
+
+        LoadGenerator generator = new LoadGenerator(InetAddress.getLoopbackAddress().getHostAddress(), port, PlayerFactory.playerTypes(playerConfiguration));
+        long start = System.nanoTime();
+        generator.run(nbTables);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Histogram latency = generator.latency;
+        System.out.printf(Locale.ROOT, "%d tables, %d games, %d moves in %.1f s, %.0f moves per second, %d clients failed%n",
+                nbTables, generator.games.sum(), latency.getCount(), seconds, latency.getCount() / seconds,
+                generator.failures.sum());
+        System.out.printf(Locale.ROOT, "move latency: mean %.0f us, p50 %d us, p99 %d us, p99.9 %d us, max %d us%n",
+                latency.getMean() / 1000, latency.getValueAtPercentile(50) / 1000,
+                latency.getValueAtPercentile(99) / 1000, latency.getValueAtPercentile(99.9) / 1000,
+                latency.getMax() / 1000);
+    }
+}
@@ -0,0 +1,79 @@
+import java.util.function.Consumer;
+
+/**
+ * a strategy that measures the strategy it decorates: the time it takes to select a card and to respond
+ * to a card played go to the metrics under its player type, and every card selected is a flight recorder
+ * event. Decorated before the pacing, so the time the pacing gives a player is not measured
+ */
+public class MeteredStrategy implements ISelectCard {
+    private final ISelectCard strategy;
+    private final String playerType;
+    private final Metrics metrics = Metrics.getInstance();
+    private final Histogram decisions;
+    private final Histogram responses;
+
+    /**
+     * metered strategy constructor.
+     *
+     * @param strategy   the strategy measured
+     * @param playerType the type of the player in the player configuration
+     */
+    MeteredStrategy(ISelectCard strategy, String playerType) {
+        this.strategy = strategy;
+        this.playerType = playerType;
+        this.decisions = metrics.decisionLatency(playerType);
+        this.responses = metrics.responseLatency(playerType);
+    }
+
+    @Override
+    public void responseToCardPlayed(int position, int oneCard) {
+        if (!metrics.isEnabled()) {
+            strategy.responseToCardPlayed(position, oneCard);
+            return;
+        }
+        long start = System.nanoTime();
+        strategy.responseToCardPlayed(position, oneCard);
+        responses.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public boolean newRound(int position, long hand, WhistEngine game) {
+        return strategy.newRound(position, hand, game);
+    }
+
+    @Override
+    public Consumer<Deadline> ponder(int position, int mover, long hand, WhistEngine game) {
+        return strategy.ponder(position, mover, hand, game);
+    }
+
+    @Override
+    public int selectCard(int position, long hand, long legal, WhistEngine game) {
+        return selectCard(position, hand, legal, game, Deadline.unlimited());
+    }
+
+    @Override
+    public int selectCard(int position, long hand, long legal, WhistEngine game, Deadline deadline) {
+        DecisionSpan span = DecisionSpan.type.isEnabled() ? new DecisionSpan() : null;
+        if (span == null && !metrics.isEnabled()) {
+            return strategy.selectCard(position, hand, legal, game, deadline);
+        }
+        if (span != null) {
+            span.begin();
+        }
+        long start = System.nanoTime();
+        int card = strategy.selectCard(position, hand, legal, game, deadline);
+        if (metrics.isEnabled()) {
+            decisions.record(System.nanoTime() - start);
+        }
+        if (span != null) {
+            span.end();
+            if (span.shouldCommit()) {
+                span.playerType = playerType;
+                span.seat = position;
+                span.card = CardSet.cardToString(card);
+                span.commit();
+            }
+        }
+        return card;
+    }
+}
@@ -0,0 +1,202 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * the metrics of the games played in the JVM: the time every player type takes to select a card and to
+ * respond to a card played, without the time the pacing gives it, tricks and games per second, the time
+ * and bytes allocated per game, and the hits and misses of the decision caches. Disabled until
+ * setEnabled(true), then it can be read at any time and written as JSON. The game loop and the strategies also emit flight recorder events (RoundSpan,
+ * TrickSpan and DecisionSpan) whenever a recording is on, whether the metrics are enabled or not
+ */
+final class Metrics {
+    private static final Metrics metrics = new Metrics();
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private volatile boolean enabled;
+    private volatile long start = System.nanoTime();
+    private final Map<String, Histogram> decisions = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> responses = new ConcurrentHashMap<>();
+    private final Map<String, DecisionCache> caches = new ConcurrentHashMap<>();
+    private final LongAdder tricks = new LongAdder();
+    private final LongAdder games = new LongAdder();
+    private final LongAdder gameNanos = new LongAdder();
+    private final LongAdder gameBytes = new LongAdder();
+    private final LongAdder ponderFailures = new LongAdder();
+
+    private Metrics() {
+    }
+
+    /**
+     * the metrics are shared by all the games of the JVM
+     *
+     * @return the only instance of the class
+     */
+    static Metrics getInstance() {
+        return metrics;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * start or stop recording. Starting again does not clear what was recorded, but the rates are per
+     * second since the last start
+     *
+     * @param enabled true to record
+     */
+    void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) {
+            start = System.nanoTime();
+        }
+        this.enabled = enabled;
+    }
+
+    /**
+     * the bytes allocated so far by the current thread, if the JVM can tell
+     *
+     * @return the number of bytes, or 0 if unknown
+     */
+    static long allocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * the time the strategies of a player type take to select a card
+     *
+     * @param playerType the type of the player in the player configuration
+     * @return the histogram of the durations in nanoseconds
+     */
+    Histogram decisionLatency(String playerType) {
+        return decisions.computeIfAbsent(playerType, type -> new Histogram());
+    }
+
+    /**
+     * the time the strategies of a player type take to respond to a card played
+     *
+     * @param playerType the type of the player in the player configuration
+     * @return the histogram of the durations in nanoseconds
+     */
+    Histogram responseLatency(String playerType) {
+        return responses.computeIfAbsent(playerType, type -> new Histogram());
+    }
+
+    /**
+     * report the hits and misses of a decision cache with the metrics
+     *
+     * @param name  the name of the cache
+     * @param cache the cache
+     */
+    void addCache(String name, DecisionCache cache) {
+        caches.put(name, cache);
+    }
+
+    void trickPlayed() {
+        if (enabled) {
+            tricks.increment();
+        }
+    }
+
+    /**
+     * record a game played
+     *
+     * @param nanos the time the game took
+     * @param bytes the bytes the thread of the game allocated
+     */
+    void gamePlayed(long nanos, long bytes) {
+        if (enabled) {
+            games.increment();
+            gameNanos.add(nanos);
+            gameBytes.add(bytes);
+        }
+    }
+
+    /**
+     * record a pondering that failed, its exception is not thrown on the game
+     */
+    void ponderFailed() {
+        if (enabled) {
+            ponderFailures.increment();
+        }
+    }
+
+    private double seconds() {
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    double tricksPerSecond() {
+        return tricks.sum() / seconds();
+    }
+
+    double gamesPerSecond() {
+        return games.sum() / seconds();
+    }
+
+    long bytesPerGame() {
+        long n = games.sum();
+        return n == 0 ? 0 : gameBytes.sum() / n;
+    }
+
+    /**
+     * the metrics in JSON, the durations in nanoseconds. The bytes per game are the ones of the game
+     * thread, the worker threads of a strategy are not counted
+     *
+     * @return a JSON object
+     */
+    String toJson() {
+        long n = games.sum();
+        StringBuilder json = new StringBuilder("{\n");
+        json.append(String.format(Locale.ROOT, "  \"seconds\": %.3f,%n", seconds()));
+        json.append(String.format(Locale.ROOT, "  \"games\": %d,%n  \"gamesPerSecond\": %.3f,%n", n, gamesPerSecond()));
+        json.append(String.format(Locale.ROOT, "  \"tricks\": %d,%n  \"tricksPerSecond\": %.3f,%n",
+                tricks.sum(), tricksPerSecond()));
+        json.append(String.format(Locale.ROOT, "  \"nanosPerGame\": %d,%n  \"bytesPerGame\": %d,%n",
+                n == 0 ? 0 : gameNanos.sum() / n, bytesPerGame()));
+        json.append(String.format(Locale.ROOT, "  \"ponderFailures\": %d,%n", ponderFailures.sum()));
+        json.append("  \"players\": {");
+        String separator = "\n";
+        for (String type : new TreeMap<>(decisions).keySet()) {
+            json.append(separator).append("    \"").append(type).append("\": {\n");
+            json.append("      \"selectCard\": ").append(decisionLatency(type).toJson()).append(",\n");
+            json.append("      \"responseToCardPlayed\": ").append(responseLatency(type).toJson()).append("\n    }");
+            separator = ",\n";
+        }
+        json.append("\n  },\n  \"caches\": {");
+        separator = "\n";
+        for (Map.Entry<String, DecisionCache> cache : new TreeMap<>(caches).entrySet()) {
+            json.append(separator).append("    \"").append(cache.getKey()).append("\": ")
+                    .append(cache.getValue().toJson());
+            separator = ",\n";
+        }
+        json.append("\n  }\n}\n");
+        return json.toString();
+    }
+
+    /**
+     * write the metrics in JSON to a file when the JVM exits
+     *
+     * @param path the file written
+     */
+    void writeJsonOnExit(Path path) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                Files.write(path, toJson().getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, "metrics"));
+    }
+}
@@ -0,0 +1,406 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * the monte carlo strategy guesses the hands of the other players. It deals the cards it has not seen
+ * to the other players many times, in ways consistent with the suits they showed out of, plays out the
+ * rest of the round on every deal after each card it could play, and plays the card that won it the most
+ * tricks on average. The deals are played out in parallel on the fork/join pool the game runs on (the
+ * pool of a tournament, or the common pool), within a budget of deals and optionally of time per move,
+ * and stop early when the deadline of the game is over; a decision cut short by the deadline is not cached.
+ * The last tricks of a playout are read in the endgame tablebase, if there is one.
+ * <p>
+ * The strategy decides on the canonical position of the Canonicalizer, with deals seeded by its key, so
+ * positions that only differ by the order of the non-trump suits or by cards that make no difference get
+ * the same decision, and a decision is computed once and then found in a cache shared by all the games.
+ * Without a time budget the choice only depends on the position, not on the number of threads or on
+ * which game computed it first.
+ * <p>
+ * While the player just before it in the trick selects its card, the strategy ponders: it decides the
+ * positions that card may lead to, the unseen cards that player may hold, those of the suit led first and
+ * from the smallest, until its card is played. The decision of the position actually reached is then
+ * played at once, and the others are dropped. Only decisions that were searched to the end are kept, so
+ * pondering never changes a decision.
+ */
+public class MonteCarloStrategy implements ISelectCard {
+    static final int defaultSamples = 500;
+    // number of deals played out by one task, and the deals of a task all use the same random stream
+    private static final int samplesPerTask = 16;
+    static final int cacheSize = 1 << 16;
+    private static final DecisionCache cache = new DecisionCache("montecarlo", cacheSize);
+
+    private final int samples;
+    private final long millis;
+    private final Canonicalizer canonicalizer = new Canonicalizer();
+
+    // the cards played, the current trick and the suits the players showed out of
+    private final CardTracker tracker;
+    private int leader;
+    private int trickSize;
+
+    // the position of the move being searched, read by the tasks
+    private Whist.Suit trumps;
+    private int position;
+    private long hand;
+    private long unseen;
+    private final DealSampler sampler = new DealSampler();
+    private final EndgameTablebase tablebase = EndgameTablebase.getInstance();
+    private final int[] trick = new int[Whist.nbPlayers];
+    private int[] candidates;
+    private long stopTime;
+    private Deadline deadline;
+    // if the last search played out all its deals, only such a decision is kept for later
+    private boolean complete;
+    // the decisions of the positions pondered, by key
+    private final Map<Canonicalizer.Key, Integer> pondered = new HashMap<>();
+
+    /**
+     * monte carlo strategy constructor.
+     *
+     * @param myHand  cards on hand
+     * @param samples number of deals played out per move, at most
+     * @param millis  time budget per move in milliseconds, or 0 to always play out all the deals
+     */
+    MonteCarloStrategy(long myHand, int samples, long millis) {
+        this.tracker = new CardTracker(myHand);
+        this.samples = samples;
+        this.millis = millis;
+    }
+
+    /**
+     * the override method that represents how this strategy deal with given information,
+     * in this case follow the card, the cards left and the suits the other players showed out of
+     *
+     * @param position where the player who played the card seat
+     * @param oneCard  card been selected to play
+     */
+    @Override
+    public void responseToCardPlayed(int position, int oneCard) {
+        tracker.cardPlayed(position, oneCard);
+    }
+
+    /**
+     * follow the cards of the new round from the start
+     *
+     * @return true
+     */
+    @Override
+    public boolean newRound(int position, long hand, WhistEngine game) {
+        tracker.reset(hand);
+        pondered.clear();
+        return true;
+    }
+
+    /**
+     * the canonical position of the player: its hand, the cards it has not seen and the cards of the trick,
+     * with the suits every other player showed out of. The player sits at seat 0 of the canonical position
+     *
+     * @param tracker the cards played, as the player follows them or as they may be played
+     * @return the key of the position
+     */
+    private Canonicalizer.Key canonicalize(CardTracker tracker, int position, long hand, Whist.Suit trumps) {
+        long[] cards = new long[Canonicalizer.nbCodes];
+        cards[0] = hand;
+        cards[1] = tracker.getUnseen();
+        for (int i = 0; i < tracker.getTrickSize(); i++) {
+            cards[Canonicalizer.trickCode + i] = CardSet.add(CardSet.EMPTY, tracker.getTrickCard(i));
+        }
+        long[] voids = new long[Whist.nbPlayers];
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            voids[i] = tracker.getVoids((position + i) % Whist.nbPlayers);
+        }
+        return canonicalizer.canonicalize(cards, trumps, voids, (long) samples << 32 | millis);
+    }
+
+    /**
+     * the number of cards of every hand, which everyone sees on the table
+     *
+     * @return the sizes by seat from the player
+     */
+    private static int[] handSizes(int position, WhistEngine game) {
+        int[] sizes = new int[Whist.nbPlayers];
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            sizes[i] = CardSet.size(game.getHand((position + i) % Whist.nbPlayers));
+        }
+        return sizes;
+    }
+
+    /**
+     * the state of the canonical position: the cards, the current trick and its leader, and the deals of
+     * the unseen cards. Then the cards worth trying
+     *
+     * @param tracker the cards played
+     * @param sizes   the number of cards of every hand, by seat from the player
+     */
+    private void watchTrick(CardTracker tracker, int position, long hand, long legal, int[] sizes) {
+        trumps = Canonicalizer.canonicalTrumps();
+        this.position = 0;
+        this.hand = canonicalizer.toCanonical(hand);
+        unseen = canonicalizer.toCanonical(tracker.getUnseen());
+        trickSize = tracker.getTrickSize();
+        for (int i = 0; i < trickSize; i++) {
+            trick[i] = canonicalizer.toCanonical(tracker.getTrickCard(i));
+        }
+        // the players before this one in the trick sit before seat 0
+        leader = (Whist.nbPlayers - trickSize) % Whist.nbPlayers;
+        // only the number of cards of the other hands
+        long[] voids = new long[Whist.nbPlayers];
+        for (int i = 1; i < Whist.nbPlayers; i++) {
+            voids[i] = canonicalizer.toCanonicalSuits(tracker.getVoids((position + i) % Whist.nbPlayers));
+        }
+        sampler.prepare(0, unseen, sizes, voids, null);
+        candidates = candidates(canonicalizer.toCanonical(legal));
+    }
+
+    /**
+     * the cards worth trying: the legal cards, one card of each run of cards of a suit
+     * with no unseen card or card of the trick between them
+     */
+    private int[] candidates(long legal) {
+        long live = unseen;
+        for (int i = 0; i < trickSize; i++) {
+            live = CardSet.add(live, trick[i]);
+        }
+        int[] cards = new int[CardSet.size(legal)];
+        int count = 0;
+        int previous = -1;
+        for (long rest = legal; rest != 0; rest &= rest - 1) {
+            int card = Long.numberOfTrailingZeros(rest);
+            // from the highest card to the lowest inside a suit, so previous is the card just above
+            boolean equivalent = previous >= 0 && CardSet.suitOf(previous) == CardSet.suitOf(card)
+                    && CardSet.isEmpty(CardSet.higher(live, card) & ~((1L << previous + 1) - 1));
+            if (!equivalent) {
+                cards[count++] = card;
+            }
+            previous = card;
+        }
+        int[] result = new int[count];
+        System.arraycopy(cards, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * play out the deals and select the card with the most tricks on average, the decision of the cache
+     * if the canonical position was decided before
+     *
+     * @param position where the player seat
+     * @param hand     the cards that player has on his hand
+     * @param legal    the cards of the hand the player may play
+     * @param game     the game the player is playing
+     * @return the card has been selected to play in a trick
+     */
+    @Override
+    public int selectCard(int position, long hand, long legal, WhistEngine game) {
+        return selectCard(position, hand, legal, game, Deadline.unlimited());
+    }
+
+    /**
+     * play out the deals until the deadline is over, and select the card with the most tricks on average
+     *
+     * @param position where the player seat
+     * @param hand     the cards that player has on his hand
+     * @param legal    the cards of the hand the player may play
+     * @param game     the game the player is playing
+     * @param deadline when the card is due
+     * @return the card has been selected to play in a trick
+     */
+    @Override
+    public int selectCard(int position, long hand, long legal, WhistEngine game, Deadline deadline) {
+        Canonicalizer.Key key = canonicalize(tracker, position, hand, game.getTrumps());
+        if (!pondered.isEmpty()) {
+            Integer ready = pondered.get(key);
+            pondered.clear();
+            if (ready != null) {
+                cache.put(key, ready);
+                return canonicalizer.fromCanonical(ready);
+            }
+        }
+        int decision = cache.get(key);
+        if (decision >= 0) {
+            return canonicalizer.fromCanonical(decision);
+        }
+        watchTrick(tracker, position, hand, legal, handSizes(position, game));
+        if (candidates.length == 1) {
+            return canonicalizer.fromCanonical(candidates[0]);
+        }
+        decision = bestCandidate(key, deadline);
+        if (complete) {
+            cache.put(key, decision);
+        }
+        return canonicalizer.fromCanonical(decision);
+    }
+
+    /**
+     * play out the deals of the position watched until the deadline or the time budget is over, and tell
+     * in complete if all the deals were played out
+     *
+     * @return the canonical card with the most tricks on average
+     */
+    private int bestCandidate(Canonicalizer.Key key, Deadline deadline) {
+        stopTime = millis > 0 ? System.nanoTime() + millis * 1_000_000 : Long.MAX_VALUE;
+        this.deadline = deadline;
+        long[] tricks = new Rollouts(0, (samples + samplesPerTask - 1) / samplesPerTask, key.mix()).invoke();
+        complete = tricks[candidates.length] == samples;
+        int best = 0;
+        for (int i = 1; i < candidates.length; i++) {
+            if (tricks[i] > tricks[best]) {
+                best = i;
+            }
+        }
+        return candidates[best];
+    }
+
+    /**
+     * ponder while the player just before this one selects its card, the next position is then this
+     * player's. Every card that player may play is followed on a copy of the tracker
+     *
+     * @param position where the player seat
+     * @param mover    where the player selecting its card seat
+     * @param hand     the cards that player has on his hand
+     * @param game     the game the player is playing
+     * @return the work to do until the deadline, or null
+     */
+    @Override
+    public Consumer<Deadline> ponder(int position, int mover, long hand, WhistEngine game) {
+        pondered.clear();
+        // the card that ends the trick does not tell who leads the next one
+        if ((mover + 1) % Whist.nbPlayers != position || tracker.getTrickSize() == Whist.nbPlayers - 1) {
+            return null;
+        }
+        Whist.Suit trumps = game.getTrumps();
+        CardTracker current = new CardTracker(tracker);
+        int[] sizes = handSizes(position, game);
+        // the mover sits just before the player, and will have a card less
+        sizes[Whist.nbPlayers - 1]--;
+        long options = CardSet.minus(current.getUnseen(), current.getVoids(mover));
+        long following = current.getLead() == null ? CardSet.EMPTY : CardSet.suit(options, current.getLead());
+        long[] likely = {following, CardSet.minus(options, following)};
+        return deadline -> {
+            for (long cards : likely) {
+                // from the smallest card, the highest index
+                for (long rest = cards; rest != 0 && !deadline.isOver(); rest &= ~Long.highestOneBit(rest)) {
+                    CardTracker next = new CardTracker(current);
+                    next.cardPlayed(mover, 63 - Long.numberOfLeadingZeros(rest));
+                    Canonicalizer.Key key = canonicalize(next, position, hand, trumps);
+                    if (pondered.containsKey(key) || cache.contains(key)) {
+                        continue;
+                    }
+                    watchTrick(next, position, hand, CardSet.legal(hand, next.getLead()), sizes);
+                    if (candidates.length > 1) {
+                        int decision = bestCandidate(key, deadline);
+                        if (complete) {
+                            pondered.put(key, decision);
+                        }
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * the deals of the tasks from start (inclusive) to end (exclusive), split in halves until one task is left.
+     * The result is the total number of tricks won after each candidate card, then the number of deals played
+     */
+    @SuppressWarnings("serial")
+    private class Rollouts extends RecursiveTask<long[]> {
+        private final int start;
+        private final int end;
+        private final long seed;
+
+        Rollouts(int start, int end, long seed) {
+            this.start = start;
+            this.end = end;
+            this.seed = seed;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (end - start > 1) {
+                int middle = (start + end) >>> 1;
+                Rollouts left = new Rollouts(start, middle, seed);
+                Rollouts right = new Rollouts(middle, end, seed);
+                ForkJoinTask.invokeAll(left, right);
+                long[] tricks = left.join();
+                long[] other = right.join();
+                for (int i = 0; i < tricks.length; i++) {
+                    tricks[i] += other[i];
+                }
+                return tricks;
+            }
+            SplittableRandom random = new SplittableRandom(seed ^ start * 0x9E3779B97F4A7C15L);
+            long[] tricks = new long[candidates.length + 1];
+            long[] layout = new long[Whist.nbPlayers];
+            int[] cards = new int[CardSet.nbRanks];
+            GameState state = new GameState();
+            int count = Math.min(samplesPerTask, samples - start * samplesPerTask);
+            int n = 0;
+            for (; n < count && System.nanoTime() < stopTime && !deadline.isOver(); n++) {
+                deal(random, layout, cards);
+                for (int i = 0; i < candidates.length; i++) {
+                    state.start(layout, trumps, leader, trick, trickSize);
+                    tricks[i] += playout(state, candidates[i], random);
+                }
+            }
+            tricks[candidates.length] = n;
+            return tricks;
+        }
+
+        /**
+         * deal the unseen cards to the other players, none of a suit a player showed out of if possible.
+         * The cards left over are the ones not dealt in the round
+         */
+        private void deal(SplittableRandom random, long[] layout, int[] cards) {
+            sampler.sample(random, layout, cards);
+            layout[position] = hand;
+        }
+
+        /**
+         * play the card, then play out the round with quick rules, and exactly from the start of the first
+         * trick the endgame tablebase has
+         *
+         * @return the number of tricks won from the current trick on
+         */
+        private int playout(GameState state, int card, SplittableRandom random) {
+            while (true) {
+                state.play(card);
+                int seat = state.getToMove();
+                long hand = state.getHand(seat);
+                if (state.getTrickSize() == 0) {
+                    int won = state.getTricks(position);
+                    if (CardSet.isEmpty(hand)) {
+                        return won;
+                    }
+                    if (tablebase != null && CardSet.size(hand) <= EndgameTablebase.maxCards) {
+                        int exact = tablebase.tricks(state.getHands(), trumps, seat, trick, 0, 1 << position);
+                        if (exact >= 0) {
+                            return won + exact;
+                        }
+                    }
+                    card = CardSet.nth(hand, random.nextInt(CardSet.size(hand)));
+                } else {
+                    card = playoutCard(hand, state.getLead(), state.getWinningCard());
+                }
+            }
+        }
+
+        /**
+         * the card of a follower in a playout: the smallest card that takes the trick, or the smallest card
+         */
+        private int playoutCard(long hand, Whist.Suit trickLead, int winningCard) {
+            long options = CardSet.suit(hand, trickLead);
+            long winning;
+            if (!CardSet.isEmpty(options)) {
+                winning = CardSet.suitOf(winningCard) == trickLead ? CardSet.higher(options, winningCard) : CardSet.EMPTY;
+            } else {
+                options = hand;
+                long trumpCards = CardSet.suit(hand, trumps);
+                winning = CardSet.suitOf(winningCard) == trumps ? CardSet.higher(trumpCards, winningCard) : trumpCards;
+            }
+            return CardSet.isEmpty(winning) ? CardSet.lowestRank(options) : CardSet.lowest(winning);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+import java.util.function.Consumer;
+
+/**
+ * a computer strategy playing on a game board. It shows the player thinking for as long as the pacing
+ * of the board says, then plays the card of the strategy it decorates
+ */
+public class PacedStrategy implements ISelectCard {
+    private final ISelectCard strategy;
+    private final Whist board;
+
+    /**
+     * paced strategy constructor.
+     *
+     * @param strategy the strategy that selects the cards
+     * @param board    the game board the player plays on
+     */
+    PacedStrategy(ISelectCard strategy, Whist board) {
+        this.strategy = strategy;
+        this.board = board;
+    }
+
+    @Override
+    public void responseToCardPlayed(int position, int oneCard) {
+        strategy.responseToCardPlayed(position, oneCard);
+    }
+
+    @Override
+    public boolean newRound(int position, long hand, WhistEngine game) {
+        return strategy.newRound(position, hand, game);
+    }
+
+    @Override
+    public Consumer<Deadline> ponder(int position, int mover, long hand, WhistEngine game) {
+        return strategy.ponder(position, mover, hand, game);
+    }
+
+    @Override
+    public int selectCard(int position, long hand, long legal, WhistEngine game) {
+        return selectCard(position, hand, legal, game, Deadline.unlimited());
+    }
+
+    /**
+     * the time shown thinking is the board's, not the player's: the deadline is extended by it
+     */
+    @Override
+    public int selectCard(int position, long hand, long legal, WhistEngine game, Deadline deadline) {
+        board.setStatusText("Player " + position + " thinking...");
+        long start = System.nanoTime();
+        board.getPacing().thinking(position);
+        deadline.extend(System.nanoTime() - start);
+        return strategy.selectCard(position, hand, legal, game, deadline);
+    }
+}
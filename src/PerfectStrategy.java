@@ -0,0 +1,102 @@
+/**
+ * the perfect strategy sees every hand and plays the card of a double-dummy solver, the card that wins
+ * the most tricks of the round for its partnership (the player and the player sitting opposite)
+ * when everyone plays their best. It is an upper bound to measure the other strategies against,
+ * not a fair player. The solver plays the canonical position of the Canonicalizer, and its decisions
+ * are kept in a cache shared by all the games. Before a deadline, the solver stops when it is over and the
+ * strategy plays the card of its last complete search, which is not cached.
+ */
+public class PerfectStrategy implements ISelectCard {
+    // one solver per thread, so that games running in parallel do not share a transposition table
+    private static final ThreadLocal<DoubleDummySolver> solvers = ThreadLocal.withInitial(() -> new DoubleDummySolver(20));
+    static final int cacheSize = 1 << 16;
+    private static final DecisionCache cache = new DecisionCache("perfect", cacheSize);
+    // the player and the player sitting opposite, in the canonical position where the player sits at seat 0
+    private static final int partnership = 0b0101;
+
+    private final long[] hands = new long[Whist.nbPlayers];
+    private final int[] trick = new int[Whist.nbPlayers];
+    private final long[] cards = new long[Canonicalizer.nbCodes];
+    private final Canonicalizer canonicalizer = new Canonicalizer();
+
+    /**
+     * the override method that represents how this strategy deal with given information,
+     * in this case do nothing, the hands are read from the game
+     *
+     * @param position where the player who played the card seat
+     * @param oneCard  card has been selected to play
+     */
+    @Override
+    public void responseToCardPlayed(int position, int oneCard) {
+    }
+
+    /**
+     * nothing to forget, the hands are read from the game
+     *
+     * @return true
+     */
+    @Override
+    public boolean newRound(int position, long hand, WhistEngine game) {
+        return true;
+    }
+
+    /**
+     * solve the current position with all the hands of the game and play the best card, the card of the
+     * cache if the canonical position was solved before
+     *
+     * @param position where the player seat
+     * @param hand     the cards that player has on his hand
+     * @param legal    the cards of the hand the player may play
+     * @param game     the game the player is playing
+     * @return the card has been selected to play in a trick
+     */
+    @Override
+    public int selectCard(int position, long hand, long legal, WhistEngine game) {
+        return selectCard(position, hand, legal, game, Deadline.unlimited());
+    }
+
+    /**
+     * solve the current position until the deadline is over, the smallest legal card if no search
+     * completed by then
+     *
+     * @param position where the player seat
+     * @param hand     the cards that player has on his hand
+     * @param legal    the cards of the hand the player may play
+     * @param game     the game the player is playing
+     * @param deadline when the card is due
+     * @return the card has been selected to play in a trick
+     */
+    @Override
+    public int selectCard(int position, long hand, long legal, WhistEngine game, Deadline deadline) {
+        // every hand by its seat from the player, then the cards of the trick
+        int trickSize = game.getTrickSize();
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            cards[i] = game.getHand((position + i) % Whist.nbPlayers);
+        }
+        for (int i = 0; i < Whist.nbPlayers - 1; i++) {
+            cards[Canonicalizer.trickCode + i] = i < trickSize ? CardSet.add(CardSet.EMPTY, game.getTrickCard(i)) : CardSet.EMPTY;
+        }
+        Canonicalizer.Key key = canonicalizer.canonicalize(cards, game.getTrumps(), null, 0);
+        int decision = cache.get(key);
+        if (decision < 0) {
+            for (int i = 0; i < Whist.nbPlayers; i++) {
+                hands[i] = canonicalizer.toCanonical(cards[i]);
+            }
+            for (int i = 0; i < trickSize; i++) {
+                trick[i] = canonicalizer.toCanonical(game.getTrickCard(i));
+            }
+            // the players before this one in the trick sit before seat 0
+            int leader = (Whist.nbPlayers - trickSize) % Whist.nbPlayers;
+            DoubleDummySolver solver = solvers.get();
+            solver.setDeadline(deadline);
+            solver.solve(hands, Canonicalizer.canonicalTrumps(), leader, trick, trickSize, partnership);
+            solver.setDeadline(null);
+            decision = solver.getBestCard();
+            if (solver.isStopped()) {
+                return decision < 0 ? CardSet.lowestRank(legal) : canonicalizer.fromCanonical(decision);
+            }
+            cache.put(key, decision);
+        }
+        return canonicalizer.fromCanonical(decision);
+    }
+}
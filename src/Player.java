@@ -1,25 +1,22 @@
-import ch.aplu.jcardgame.*;
+import java.util.function.Consumer;
 
 /**
  * Player class that represents players in the game , and its behaviours
  */
 public class Player implements IObserver {
-    private Whist whist;
+    private WhistEngine game;
     private int position;
-    private Hand hand;
     private ISelectCard selection;
 
     /**
      * Player constructor.
      *
-     * @param hand      hands on hand
      * @param selection card selection strategy adopted
-     * @param whist     the game the player is playing
+     * @param game      the game the player is playing
      * @param position  the position where the player sit
      */
-    Player(Hand hand, ISelectCard selection, Whist whist, int position) {
-        this.hand = hand;
-        this.whist = whist;
+    Player(ISelectCard selection, WhistEngine game, int position) {
+        this.game = game;
         this.position = position;
         this.selection = selection;
     }
@@ -27,23 +24,45 @@ public class Player implements IObserver {
     /**
      * player use the strategy  available to play a card
      *
+     * @param legal    the cards the player may play
+     * @param deadline when the card is due
      * @return the card will be played
      */
-    Card playerSelectCard() {
-        return this.selection.selectCard(position, hand, whist);
+    int playerSelectCard(long legal, Deadline deadline) {
+        return this.selection.selectCard(position, getHand(), legal, game, deadline);
+    }
+
+    /**
+     * player use the strategy to think ahead while another player selects its card
+     *
+     * @param mover where the player selecting its card seat
+     * @return the work of the strategy, or null
+     */
+    Consumer<Deadline> playerPonder(int mover) {
+        return this.selection.ponder(position, mover, getHand(), game);
     }
 
     /**
      * player receive notice of the game, and use the strategy to deal with it
      *
-     * @param oneCard card been selected to play
+     * @param event the card played, with the seat of the player who played it
      */
     @Override
-    public void update(Card oneCard) {
-        selection.responseToCardPlayed(oneCard);
+    public void cardPlayed(GameEvent event) {
+        selection.responseToCardPlayed(event.getSeat(), event.getCard());
+    }
+
+    /**
+     * player get ready for a new round, with the same strategy if it can
+     *
+     * @param hand the cards dealt to the player
+     * @return true if the player plays the new round, false if the game needs a new player
+     */
+    boolean newRound(long hand) {
+        return selection.newRound(position, hand, game);
     }
 
-    Hand getHand() {
-        return hand;
+    long getHand() {
+        return game.getHand(position);
     }
 }
@@ -1,61 +1,126 @@
-import ch.aplu.jcardgame.*;
-
 /**
  * player factory class. Create players according to
  * its configuration, hands, and the game they belongs to
  */
 class PlayerFactory {
-    private static PlayerFactory factory;
+    // created eagerly, the factory has no state and can be shared by games running in parallel
+    private static final PlayerFactory factory = new PlayerFactory();
 
     /**
      * make this class a singleton.
      * @return return the only instance of the class
      */
     static PlayerFactory getInstance() {
-        if (factory == null) {
-            factory = new PlayerFactory();
-        }
         return factory;
     }
 
+    /**
+     * the type of the player at each position
+     * @param playerConfiguration include the player type and its position in the game
+     * @return the player types indexed by position
+     */
+    static String[] playerTypes(String[] playerConfiguration) {
+        String[] types = new String[Whist.nbPlayers];
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            String[] onePlayer = playerConfiguration[i].trim().split(",");
+            types[Integer.parseInt(onePlayer[1].trim())] = onePlayer[0].trim();
+        }
+        return types;
+    }
+
     /**
      * player creation method. create play according to its configuration
-     * @param whist to which game the player belongs
+     * @param game to which game the player belongs
+     * @param playerConfiguration include the player type and its position in the game
+     * @param hands cards in players hand
+     * @return return all of the 4 players in a array
+     */
+    Player[] createPlayers(WhistEngine game, String[] playerConfiguration, long[] hands) {
+        return createPlayers(game, playerConfiguration, hands, null);
+    }
+
+    /**
+     * player creation method for a new round: the players of the last round play it if their strategy
+     * can, only the others are created according to the configuration
+     * @param game to which game the player belongs
      * @param playerConfiguration include the player type and its position in the game
      * @param hands cards in players hand
+     * @param previous the players of the last round of the game, or null for the first round
      * @return return all of the 4 players in a array
      */
-    Player[] createPlayers(Whist whist, String[] playerConfiguration, Hand[] hands) {
+    Player[] createPlayers(WhistEngine game, String[] playerConfiguration, long[] hands, Player[] previous) {
         Player[] players = new Player[Whist.nbPlayers];
+        boolean complete = previous != null;
+        for (int i = 0; previous != null && i < Whist.nbPlayers; i++) {
+            if (previous[i] != null && previous[i].newRound(hands[i])) {
+                players[i] = previous[i];
+            } else {
+                complete = false;
+            }
+        }
+        if (complete) {
+            return players;
+        }
 
         for (int i = 0; i < Whist.nbPlayers; i++) {
             String[] onePlayer = playerConfiguration[i].trim().split(",");
             onePlayer[0] = onePlayer[0].trim();
             onePlayer[1] = onePlayer[1].trim();
-            initializePlayer(whist, onePlayer, hands, players);
+            initializePlayer(game, onePlayer, hands, players);
         }
         return players;
     }
 
-    private void initializePlayer(Whist whist, String[] onePlayer, Hand[] hands, Player[] players) {
+    private void initializePlayer(WhistEngine game, String[] onePlayer, long[] hands, Player[] players) {
         int position = Integer.parseInt(onePlayer[1]);
+        if (players[position] != null) {
+            return;
+        }
+        ISelectCard selection;
         switch (onePlayer[0]) {
-            /* create human player */
+            /* create human player, who plays on the hand displayed in the game board */
             case "human":
-                players[position] = new Player(hands[position], new HumanStrategy(hands[position]), whist, position);
+                if (game.getBoard() == null) {
+                    throw new IllegalArgumentException("human player " + position + " needs a game board");
+                }
+                selection = new HumanStrategy(game.getBoard().getHand(position));
                 break;
-            /* create smart player */
+            /* create smart player, optionally with its deals of the last tricks */
             case "smart":
-                players[position] = new Player(hands[position], new SmartStrategy(hands[position], whist.getDeck()), whist, position);
+                int endgameDeals = onePlayer.length > 2 ? Integer.parseInt(onePlayer[2].trim()) : SmartStrategy.defaultEndgameDeals;
+                selection = new SmartStrategy(hands[position], game.getRandom(position).nextLong(), endgameDeals);
+                break;
+            /* create perfect player, who sees every hand */
+            case "perfect":
+                selection = new PerfectStrategy();
+                break;
+            /* create monte carlo player, optionally with its deals and milliseconds per move */
+            case "montecarlo":
+                int samples = onePlayer.length > 2 ? Integer.parseInt(onePlayer[2].trim()) : MonteCarloStrategy.defaultSamples;
+                long millis = onePlayer.length > 3 ? Long.parseLong(onePlayer[3].trim()) : 0;
+                selection = new MonteCarloStrategy(hands[position], samples, millis);
+                break;
+            /* create learned player, who plays the policy network trained by PolicyTrainer */
+            case "learned":
+                selection = new LearnedStrategy(hands[position], PolicyNetwork.getInstance());
                 break;
             /* create legal player */
             case "legal":
-                players[position] = new Player(hands[position], new LegalStrategy(), whist, position);
+                selection = new LegalStrategy();
                 break;
             /* create random player */
             case "random":
-                players[position] = new Player(hands[position], new RandomStrategy(), whist, position);
+                selection = new RandomStrategy();
                 break;
+            default:
+                return;
+        }
+        // measured before the pacing, which is not the time the player takes
+        selection = new MeteredStrategy(selection, onePlayer[0]);
+        // computer players on a game board take the time the pacing of the board gives them
+        if (game.getBoard() != null && !onePlayer[0].equals("human")) {
+            selection = new PacedStrategy(selection, game.getBoard());
         }
+        players[position] = new Player(selection, game, position);
     }
 }
@@ -0,0 +1,223 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * the policy of the learned player: a small neural network from the features of a position to a score per
+ * card, one hidden layer of rectified units. The weights are one float array, the weights of the hidden
+ * layer by feature, its biases, the weights of the output layer by card, and its biases, so that a trainer
+ * can update them as one vector. Evaluating the network only reads the weights and writes the buffers of
+ * the caller, it does not allocate, and a network is shared by the players of all the games
+ */
+final class PolicyNetwork {
+    static final String defaultFile = "policy.weights";
+    static final int magic = 0x57504C59; // "WPLY"
+    static final int hidden = 64;
+    private static final long initialSeed = 30006;
+
+    private static PolicyNetwork network;
+
+    private final int nbFeatures;
+    private final float[] weights;
+    private final int hiddenBiases;
+    private final int outputWeights;
+    private final int outputBiases;
+
+    /**
+     * an untrained network, small random weights of the hidden layer and no preference for any card
+     *
+     * @param nbFeatures the length of the feature vectors
+     */
+    PolicyNetwork(int nbFeatures) {
+        this(nbFeatures, new float[nbFeatures * hidden + hidden + CardSet.nbCards * hidden + CardSet.nbCards]);
+        Random random = new Random(initialSeed);
+        double scale = Math.sqrt(2.0 / nbFeatures);
+        for (int i = 0; i < hiddenBiases; i++) {
+            weights[i] = (float) (random.nextGaussian() * scale);
+        }
+    }
+
+    private PolicyNetwork(int nbFeatures, float[] weights) {
+        this.nbFeatures = nbFeatures;
+        this.weights = weights;
+        hiddenBiases = nbFeatures * hidden;
+        outputWeights = hiddenBiases + hidden;
+        outputBiases = outputWeights + CardSet.nbCards * hidden;
+    }
+
+    /**
+     * the network of the file in the working directory, read the first time it is needed
+     *
+     * @return the trained network, or an untrained network if there is no file
+     */
+    static synchronized PolicyNetwork getInstance() {
+        if (network == null) {
+            Path path = Paths.get(defaultFile);
+            network = Files.exists(path) ? load(path, LearnedStrategy.nbFeatures) : new PolicyNetwork(LearnedStrategy.nbFeatures);
+        }
+        return network;
+    }
+
+    /**
+     * the weights, to be updated by a trainer while no game uses the network
+     *
+     * @return the weights of the network
+     */
+    float[] getWeights() {
+        return weights;
+    }
+
+    /**
+     * evaluate the network on a position, only the scores of the legal cards are computed
+     *
+     * @param features    the features of the position, mostly zeros
+     * @param activations the buffer of the hidden layer, hidden floats
+     * @param scores      the buffer of the scores, a float per card
+     * @param legal       the cards the player may play
+     */
+    void evaluate(float[] features, float[] activations, float[] scores, long legal) {
+        System.arraycopy(weights, hiddenBiases, activations, 0, hidden);
+        for (int i = 0; i < nbFeatures; i++) {
+            float x = features[i];
+            if (x != 0) {
+                int row = i * hidden;
+                for (int j = 0; j < hidden; j++) {
+                    activations[j] += x * weights[row + j];
+                }
+            }
+        }
+        for (int j = 0; j < hidden; j++) {
+            activations[j] = Math.max(activations[j], 0);
+        }
+        for (long rest = legal; rest != 0; rest &= rest - 1) {
+            int card = Long.numberOfTrailingZeros(rest);
+            int row = outputWeights + card * hidden;
+            float score = weights[outputBiases + card];
+            for (int j = 0; j < hidden; j++) {
+                score += activations[j] * weights[row + j];
+            }
+            scores[card] = score;
+        }
+    }
+
+    /**
+     * turn the scores of the legal cards into the probabilities of playing them, in place
+     *
+     * @param scores the scores of evaluate
+     * @param legal  the cards the player may play
+     */
+    static void softmax(float[] scores, long legal) {
+        float max = Float.NEGATIVE_INFINITY;
+        for (long rest = legal; rest != 0; rest &= rest - 1) {
+            max = Math.max(max, scores[Long.numberOfTrailingZeros(rest)]);
+        }
+        float sum = 0;
+        for (long rest = legal; rest != 0; rest &= rest - 1) {
+            int card = Long.numberOfTrailingZeros(rest);
+            scores[card] = (float) Math.exp(scores[card] - max);
+            sum += scores[card];
+        }
+        for (long rest = legal; rest != 0; rest &= rest - 1) {
+            scores[Long.numberOfTrailingZeros(rest)] /= sum;
+        }
+    }
+
+    /**
+     * add the gradient of a loss to the gradients of the weights, for a position just evaluated
+     *
+     * @param features     the features of the position
+     * @param activations  the hidden layer evaluate computed
+     * @param errors       the derivative of the loss by the score of every legal card
+     * @param legal        the cards the player may play
+     * @param gradients    the gradients of the weights, as long as the weights
+     * @param hiddenErrors a buffer of hidden floats
+     */
+    void backpropagate(float[] features, float[] activations, float[] errors, long legal, float[] gradients,
+                       float[] hiddenErrors) {
+        Arrays.fill(hiddenErrors, 0);
+        for (long rest = legal; rest != 0; rest &= rest - 1) {
+            int card = Long.numberOfTrailingZeros(rest);
+            float error = errors[card];
+            int row = outputWeights + card * hidden;
+            gradients[outputBiases + card] += error;
+            for (int j = 0; j < hidden; j++) {
+                gradients[row + j] += error * activations[j];
+                hiddenErrors[j] += error * weights[row + j];
+            }
+        }
+        for (int j = 0; j < hidden; j++) {
+            if (activations[j] <= 0) {
+                hiddenErrors[j] = 0;
+            }
+            gradients[hiddenBiases + j] += hiddenErrors[j];
+        }
+        for (int i = 0; i < nbFeatures; i++) {
+            float x = features[i];
+            if (x != 0) {
+                int row = i * hidden;
+                for (int j = 0; j < hidden; j++) {
+                    gradients[row + j] += x * hiddenErrors[j];
+                }
+            }
+        }
+    }
+
+    /**
+     * read a network from a file
+     *
+     * @param path       the file
+     * @param nbFeatures the length of the feature vectors the network must take
+     * @return the network
+     */
+    static PolicyNetwork load(Path path, int nbFeatures) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != magic || buffer.getInt() != hidden || buffer.getInt() != nbFeatures) {
+                throw new IOException(path + " is not a policy of " + nbFeatures + " features and "
+                        + hidden + " hidden units");
+            }
+            float[] weights = new float[buffer.remaining() / Float.BYTES];
+            buffer.asFloatBuffer().get(weights);
+            PolicyNetwork network = new PolicyNetwork(nbFeatures, weights);
+            if (network.outputBiases + CardSet.nbCards != weights.length) {
+                throw new IOException(path + " has " + weights.length + " weights");
+            }
+            return network;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * write the network to a file. It is written next to the file first and then moved, so a player
+     * reading the file never finds half a network
+     *
+     * @param path the file
+     */
+    void save(Path path) {
+        ByteBuffer buffer = ByteBuffer.allocate(3 * Integer.BYTES + weights.length * Float.BYTES);
+        buffer.putInt(magic).putInt(hidden).putInt(nbFeatures);
+        buffer.asFloatBuffer().put(weights);
+        buffer.rewind();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
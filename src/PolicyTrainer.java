@@ -0,0 +1,344 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * trains the policy network of the learned players by self-play against the other players of the
+ * configuration, smart or legal players for instance. The learned seats draw their cards from the
+ * probabilities of the network, and after every batch of games the network moves towards the cards that were
+ * followed by more tricks than usual in the rest of the round (a policy gradient with a baseline per trick
+ * of the round, a little entropy to keep exploring, and Adam steps). The games of a batch are played in
+ * parallel, every task with its own gradients, added up in the order of the tasks, so the weights after a
+ * number of games do not depend on the number of threads. The network is written to its file at every
+ * checkpoint and at the end, and training goes on from the file when it is started again, the Adam
+ * moments start again from zero then
+ */
+public class PolicyTrainer {
+    private static final int gamesPerTask = 4;
+    private static final int tasksPerBatch = 16;
+    static final int gamesPerBatch = gamesPerTask * tasksPerBatch;
+    private static final float beta1 = 0.9f;
+    private static final float beta2 = 0.999f;
+    private static final float epsilon = 1e-8f;
+    // how fast the baselines follow the returns, and the weight of the entropy in the loss
+    private static final double baselineRate = 0.1;
+    private static final float entropyWeight = 0.01f;
+
+    private final long baseSeed;
+    private final String[] playerConfiguration;
+    private final int nbStartCards;
+    private final int winningScore;
+    private final boolean[] learnedSeats = new boolean[Whist.nbPlayers];
+    private final PolicyNetwork network;
+    private final float learningRate;
+    // the moments of the Adam steps, and the number of steps
+    private final float[] moments;
+    private final float[] squares;
+    private long steps;
+    // the tricks a learned seat usually wins in the rest of the round, by trick of the round
+    private final double[] baselines;
+    private final Task[] tasks = new Task[tasksPerBatch];
+
+    /**
+     * Constructor of a trainer. Rules are never enforced, the learned players only play legal cards anyway
+     *
+     * @param baseSeed            the seed the seed of every game is derived from
+     * @param playerConfiguration the type and seat location of the players, with at least one learned player
+     * @param nbStartCards        number of cards on hand to play each round
+     * @param winningScore        number of scores to win a game
+     * @param network             the network trained
+     * @param learningRate        the size of the Adam steps
+     */
+    PolicyTrainer(long baseSeed, String[] playerConfiguration, int nbStartCards, int winningScore,
+                  PolicyNetwork network, float learningRate) {
+        this.baseSeed = baseSeed;
+        this.playerConfiguration = playerConfiguration;
+        this.nbStartCards = nbStartCards;
+        this.winningScore = winningScore;
+        this.network = network;
+        this.learningRate = learningRate;
+        String[] types = PlayerFactory.playerTypes(playerConfiguration);
+        boolean learned = false;
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            learnedSeats[i] = types[i].equals("learned");
+            learned |= learnedSeats[i];
+        }
+        if (!learned) {
+            throw new IllegalArgumentException("no learned player to train in the players");
+        }
+        int nbWeights = network.getWeights().length;
+        moments = new float[nbWeights];
+        squares = new float[nbWeights];
+        baselines = new double[nbStartCards];
+        for (int trick = 0; trick < nbStartCards; trick++) {
+            baselines[trick] = (nbStartCards - trick) / (double) Whist.nbPlayers;
+        }
+        for (int i = 0; i < tasksPerBatch; i++) {
+            tasks[i] = new Task(nbWeights);
+        }
+    }
+
+    /**
+     * a game whose learned seats are played by training strategies, recording their decisions
+     */
+    private class TrainingGame extends WhistEngine {
+        private final LearnedStrategy.Episode[] episodes;
+
+        TrainingGame(long seed, LearnedStrategy.Episode[] episodes) {
+            super(seed, playerConfiguration, nbStartCards, winningScore, RulePolicy.LOG);
+            this.episodes = episodes;
+        }
+
+        /**
+         * the players of the configuration, but the learned ones train. A new round closes the previous one
+         */
+        @Override
+        Player[] createPlayers(long[] hands) {
+            Player[] players = super.createPlayers(hands);
+            for (int i = 0; i < Whist.nbPlayers; i++) {
+                if (learnedSeats[i]) {
+                    episodes[i].endRound(getScore(i));
+                    players[i] = new Player(new LearnedStrategy(hands[i], network, episodes[i]), this, i);
+                }
+            }
+            return players;
+        }
+    }
+
+    /**
+     * the games of a batch played by one thread, with its gradients, its buffers and its statistics
+     */
+    private class Task {
+        private final float[] gradients;
+        private final LearnedStrategy.Episode[] episodes = new LearnedStrategy.Episode[Whist.nbPlayers];
+        private final float[] features = new float[LearnedStrategy.nbFeatures];
+        private final float[] activations = new float[PolicyNetwork.hidden];
+        private final float[] hiddenErrors = new float[PolicyNetwork.hidden];
+        private final float[] probabilities = new float[CardSet.nbCards];
+        private final float[] errors = new float[CardSet.nbCards];
+        private final double[] returns = new double[nbStartCards];
+        private final long[] decisions = new long[nbStartCards];
+        private long moves;
+        private long learnedTricks;
+        private long otherTricks;
+        private long learnedWins;
+
+        Task(int nbWeights) {
+            gradients = new float[nbWeights];
+            for (int i = 0; i < Whist.nbPlayers; i++) {
+                episodes[i] = new LearnedStrategy.Episode();
+            }
+        }
+
+        /**
+         * play the games of the task and add up the gradients of their decisions
+         *
+         * @param firstGame the index of the first game of the task
+         */
+        void play(long firstGame) {
+            Arrays.fill(gradients, 0);
+            Arrays.fill(returns, 0);
+            Arrays.fill(decisions, 0);
+            moves = 0;
+            learnedTricks = 0;
+            otherTricks = 0;
+            learnedWins = 0;
+            for (int g = 0; g < gamesPerTask; g++) {
+                for (LearnedStrategy.Episode episode : episodes) {
+                    episode.clear();
+                }
+                TrainingGame game = new TrainingGame(Tournament.gameSeed(baseSeed, firstGame + g), episodes);
+                int winner = game.play();
+                for (int i = 0; i < Whist.nbPlayers; i++) {
+                    if (learnedSeats[i]) {
+                        episodes[i].endRound(game.getScore(i));
+                        learn(episodes[i]);
+                        learnedTricks += game.getScore(i);
+                        learnedWins += winner == i ? 1 : 0;
+                    } else {
+                        otherTricks += game.getScore(i);
+                    }
+                }
+            }
+        }
+
+        /**
+         * add the gradients of the decisions of a seat. The loss of a decision is minus its advantage, the
+         * tricks won in the rest of the round less the baseline, times the log of the probability of the card
+         * played, minus a little of the entropy of the probabilities
+         */
+        private void learn(LearnedStrategy.Episode episode) {
+            for (int i = 0; i < episode.size(); i++) {
+                episode.getFeatures(i, features);
+                long legal = episode.getLegal(i);
+                int card = episode.getCard(i);
+                int trick = episode.getTrick(i);
+                float advantage = (float) (episode.getReturn(i) - baselines[trick]);
+                returns[trick] += episode.getReturn(i);
+                decisions[trick]++;
+                network.evaluate(features, activations, probabilities, legal);
+                PolicyNetwork.softmax(probabilities, legal);
+                float entropy = 0;
+                for (long rest = legal; rest != 0; rest &= rest - 1) {
+                    float p = probabilities[Long.numberOfTrailingZeros(rest)];
+                    entropy -= p > 0 ? p * (float) Math.log(p) : 0;
+                }
+                for (long rest = legal; rest != 0; rest &= rest - 1) {
+                    int option = Long.numberOfTrailingZeros(rest);
+                    float p = probabilities[option];
+                    float logP = p > 0 ? (float) Math.log(p) : 0;
+                    errors[option] = advantage * (p - (option == card ? 1 : 0)) + entropyWeight * p * (logP + entropy);
+                }
+                network.backpropagate(features, activations, errors, legal, gradients, hiddenErrors);
+                moves++;
+            }
+        }
+    }
+
+    /**
+     * the tasks of a batch from index from (inclusive) to to (exclusive), split in halves down to one task
+     */
+    @SuppressWarnings("serial")
+    private class Batch extends RecursiveAction {
+        private final long firstGame;
+        private final int from;
+        private final int to;
+
+        Batch(long firstGame, int from, int to) {
+            this.firstGame = firstGame;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                tasks[from].play(firstGame + (long) from * gamesPerTask);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Batch(firstGame, from, middle), new Batch(firstGame, middle, to));
+        }
+    }
+
+    /**
+     * one Adam step with the mean gradient of the decisions of the batch, then move the baselines towards
+     * the returns of the batch
+     */
+    private void update() {
+        long moves = 0;
+        for (Task task : tasks) {
+            moves += task.moves;
+        }
+        if (moves == 0) {
+            return;
+        }
+        steps++;
+        float[] weights = network.getWeights();
+        float correction1 = (float) (1 - Math.pow(beta1, steps));
+        float correction2 = (float) (1 - Math.pow(beta2, steps));
+        for (int j = 0; j < weights.length; j++) {
+            float gradient = 0;
+            for (Task task : tasks) {
+                gradient += task.gradients[j];
+            }
+            gradient /= moves;
+            moments[j] = beta1 * moments[j] + (1 - beta1) * gradient;
+            squares[j] = beta2 * squares[j] + (1 - beta2) * gradient * gradient;
+            weights[j] -= learningRate * (moments[j] / correction1) / ((float) Math.sqrt(squares[j] / correction2) + epsilon);
+        }
+        for (int trick = 0; trick < nbStartCards; trick++) {
+            double returns = 0;
+            long decisions = 0;
+            for (Task task : tasks) {
+                returns += task.returns[trick];
+                decisions += task.decisions[trick];
+            }
+            if (decisions > 0) {
+                baselines[trick] += baselineRate * (returns / decisions - baselines[trick]);
+            }
+        }
+    }
+
+    /**
+     * train the network on whole batches of games, and write it to its file at every checkpoint and at the end
+     *
+     * @param nbGames         number of games to play, rounded up to whole batches
+     * @param parallelism     number of threads
+     * @param path            the file of the network
+     * @param checkpointGames number of games between two checkpoints
+     */
+    void train(long nbGames, int parallelism, Path path, long checkpointGames) {
+        long checkpointBatches = Math.max(1, checkpointGames / gamesPerBatch);
+        long nbBatches = (nbGames + gamesPerBatch - 1) / gamesPerBatch;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            long start = System.nanoTime();
+            long games = 0;
+            long learnedTricks = 0;
+            long otherTricks = 0;
+            long learnedWins = 0;
+            for (long batch = 0; batch < nbBatches; batch++) {
+                pool.invoke(new Batch(batch * gamesPerBatch, 0, tasksPerBatch));
+                update();
+                games += gamesPerBatch;
+                for (Task task : tasks) {
+                    learnedTricks += task.learnedTricks;
+                    otherTricks += task.otherTricks;
+                    learnedWins += task.learnedWins;
+                }
+                if ((batch + 1) % checkpointBatches == 0 || batch + 1 == nbBatches) {
+                    network.save(path);
+                    int learned = 0;
+                    for (boolean seat : learnedSeats) {
+                        learned += seat ? 1 : 0;
+                    }
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("%d games: learned %.3f tricks per seat, others %.3f, learned wins %.1f%%"
+                                    + " (%.1f%% of the seats), %.0f games per second%n",
+                            (batch + 1) * gamesPerBatch, (double) learnedTricks / (games * learned),
+                            (double) otherTricks / (games * (Whist.nbPlayers - learned)),
+                            100.0 * learnedWins / games, 100.0 * learned / Whist.nbPlayers, games / seconds);
+                    start = System.nanoTime();
+                    games = 0;
+                    learnedTricks = 0;
+                    otherTricks = 0;
+                    learnedWins = 0;
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Main method. Trains the learned players of whist.properties against its other players, with its seed
+     * and game settings, its learning rate and its number of games between checkpoints. Training starts from
+     * policy.weights if there is one, and writes it
+     *
+     * @param args the number of games, then optionally number of threads (all cores by default)
+     */
+    public static void main(String[] args) throws IOException {
+        Properties WhistProperties = Whist.readProperties();
+        long seed = Long.parseLong(WhistProperties.getProperty("seed"));
+        int nbStartCards = Integer.parseInt(WhistProperties.getProperty("nbStartCards"));
+        int winningScore = Integer.parseInt(WhistProperties.getProperty("winningScore"));
+        String[] playerConfiguration = WhistProperties.getProperty("players").trim().split(";");
+        float learningRate = Float.parseFloat(WhistProperties.getProperty("learningRate", "0.001"));
+        long checkpointGames = Long.parseLong(WhistProperties.getProperty("checkpointGames", "1024"));
+        long nbGames = Long.parseLong(args[0]);
+        int parallelism = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        Path path = Paths.get(PolicyNetwork.defaultFile);
+        PolicyNetwork network = Files.exists(path) ? PolicyNetwork.load(path, LearnedStrategy.nbFeatures)
+                : new PolicyNetwork(LearnedStrategy.nbFeatures);
+        PolicyTrainer trainer = new PolicyTrainer(seed, playerConfiguration, nbStartCards, winningScore,
+                network, learningRate);
+        trainer.train(nbGames, parallelism, path, checkpointGames);
+    }
+}
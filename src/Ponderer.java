@@ -0,0 +1,120 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * the pondering of a table: while a player selects its card, the other players may think ahead on a
+ * background thread, for the positions they may have to decide on next (see ISelectCard.ponder). The
+ * pondering runs on one thread of its own fork/join pool, so the deals a strategy plays out in parallel
+ * stay on it too, and it is busy at most a quota of the time, a share of one core averaged over a second:
+ * a bucket of time that fills at the rate of the quota, up to a second of it, and that every pondering
+ * empties by the time it ran. The pondering stops as soon as the card is selected, the game waits for it
+ * before it tells the players the card, so a strategy never ponders and follows the game at the same time.
+ * A pondering that fails is counted with the metrics and does not stop the game, the first failure of a
+ * ponderer is printed. A ponderer is used by the thread of its game only.
+ */
+final class Ponderer implements AutoCloseable {
+    private static final long window = 1_000_000_000L;
+
+    private final double quota;
+    private final long capacity;
+    private long available;
+    private long refilled;
+    private ForkJoinPool pool;
+    private Deadline deadline;
+    private ForkJoinTask<?> pondering;
+    private long started;
+    private int failures;
+
+    /**
+     * ponderer constructor.
+     *
+     * @param quota the share of a core the pondering may use, more than 0 and at most 1
+     */
+    Ponderer(double quota) {
+        this.quota = quota;
+        this.capacity = (long) (quota * window);
+        this.available = capacity;
+        this.refilled = System.nanoTime();
+    }
+
+    /**
+     * the time the pondering may run now, the bucket filled since it was last filled
+     *
+     * @return the nanoseconds, 0 or less when the quota is used up
+     */
+    private long refill() {
+        long now = System.nanoTime();
+        available = Math.min(capacity, available + (long) (quota * (now - refilled)));
+        refilled = now;
+        return available;
+    }
+
+    /**
+     * start the pondering of the players while one of them selects its card
+     *
+     * @param players the players of the game, by seat
+     * @param mover   where the player selecting its card seat
+     */
+    void start(Player[] players, int mover) {
+        List<Consumer<Deadline>> tasks = new ArrayList<>();
+        for (int i = 0; i < players.length; i++) {
+            Consumer<Deadline> task = i == mover ? null : players[i].playerPonder(mover);
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        long budget = refill();
+        if (tasks.isEmpty() || budget <= 0) {
+            return;
+        }
+        if (pool == null) {
+            pool = new ForkJoinPool(1);
+        }
+        Deadline turn = new Deadline(budget);
+        deadline = turn;
+        started = System.nanoTime();
+        pondering = pool.submit(() -> {
+            for (Consumer<Deadline> task : tasks) {
+                if (turn.isOver()) {
+                    break;
+                }
+                task.accept(turn);
+            }
+        });
+    }
+
+    /**
+     * stop the pondering once the card is selected, and wait for it to stop
+     */
+    void stop() {
+        if (pondering == null) {
+            return;
+        }
+        deadline.cancel();
+        try {
+            pondering.join();
+        } catch (RuntimeException e) {
+            // the card is selected already, only the decisions of the pondering are lost
+            failures++;
+            Metrics.getInstance().ponderFailed();
+            if (failures == 1) {
+                System.out.println("Pondering failed, the next failures of this game are only counted: " + e);
+            }
+        } finally {
+            available -= System.nanoTime() - started;
+            pondering = null;
+            deadline = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+}
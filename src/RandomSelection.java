@@ -1,14 +1,24 @@
-import ch.aplu.jcardgame.Card;
-import ch.aplu.jcardgame.Hand;
-
-import java.util.ArrayList;
-import java.util.Random;
+import java.util.SplittableRandom;
 
+/**
+ * the random decisions of a game, drawn from SplittableRandom streams. A game splits an independent
+ * stream for every use from its seed, always in the same order, so it can be replayed from its seed
+ * alone and one use does not shift the random decisions of the others
+ */
 public class RandomSelection {
-    private final Random random;
+    private final SplittableRandom random;
+
+    public RandomSelection(long seed){
+        random = new SplittableRandom(seed);
+    }
 
-    public RandomSelection(int seed){
-        random = new Random(seed);
+    private RandomSelection(SplittableRandom random){
+        this.random = random;
+    }
+
+    // return a new independent stream
+    public RandomSelection split() {
+        return new RandomSelection(random.split());
     }
 
     // return random Enum value
@@ -17,19 +27,23 @@ public class RandomSelection {
         return clazz.getEnumConstants()[x];
     }
 
-    // return random Card from Hand
-    public  Card randomCard(Hand hand) {
-        int x = random.nextInt(hand.getNumberOfCards());
-        return hand.get(x);
+    // return random Card from CardSet
+    public  int randomCard(long cards) {
+        int x = random.nextInt(CardSet.size(cards));
+        return CardSet.nth(cards, x);
+    }
+
+    // return random int from 0 to bound - 1
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
     }
 
-    // return random Card from ArrayList
-    public  Card randomCard(ArrayList<Card> list) {
-        int x = random.nextInt(list.size());
-        return list.get(x);
+    public long nextLong() {
+        return random.nextLong();
     }
 
-    public Random getRandom() {
-        return random;
+    // return random double from 0 (inclusive) to 1 (exclusive)
+    public double nextDouble() {
+        return random.nextDouble();
     }
 }
@@ -1,5 +1,3 @@
-import ch.aplu.jcardgame.*;
-
 /**
  * The random strategy class. play card randomly
  */
@@ -8,10 +6,21 @@ public class RandomStrategy implements ISelectCard {
      * the override method that represents how this strategy
      * deal with given information, in this case do nothing
      *
-     * @param oneCard card has been selected to play
+     * @param position where the player who played the card seat
+     * @param oneCard  card has been selected to play
+     */
+    @Override
+    public void responseToCardPlayed(int position, int oneCard) {
+    }
+
+    /**
+     * nothing to forget, the strategy plays every round
+     *
+     * @return true
      */
     @Override
-    public void responseToCardPlayed(Card oneCard) {
+    public boolean newRound(int position, long hand, WhistEngine game) {
+        return true;
     }
 
     /**
@@ -19,14 +28,13 @@ public class RandomStrategy implements ISelectCard {
      *
      * @param position where the player seat
      * @param hand     the cards that player has on his hand
-     * @param whist    the game the player is playing
+     * @param legal    the cards of the hand the player may play
+     * @param game     the game the player is playing
      * @return the card has been selected to play in a trick
      */
     @Override
-    public Card selectCard(int position, Hand hand, Whist whist) {
-        whist.setStatusText("Player " + position + " thinking...");
-        Whist.delay(whist.thinkingTime);
-        return whist.random.randomCard(hand);
+    public int selectCard(int position, long hand, long legal, WhistEngine game) {
+        return game.getRandom(position).randomCard(hand);
     }
 }
 
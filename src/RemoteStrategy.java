@@ -0,0 +1,78 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * the strategy of a seat played by a client of the game server. It is a proxy: the cards played are sent
+ * to the client, and selecting a card asks the client and waits for its answer on the thread of the table
+ */
+public class RemoteStrategy implements ISelectCard {
+    private final WhistConnection connection;
+    private final int seat;
+
+    /**
+     * remote strategy constructor. The client is told the trumps and its hand of the round
+     *
+     * @param connection the connection to the client
+     * @param seat       where the client seat
+     * @param round      the round starting
+     * @param trumps     the trump suit of the round
+     * @param hand       the cards dealt to the client
+     */
+    RemoteStrategy(WhistConnection connection, int seat, int round, Whist.Suit trumps, long hand) {
+        this.connection = connection;
+        this.seat = seat;
+        try {
+            connection.sendDeal(round, trumps, hand);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * the override method that represents how this strategy deal with given information,
+     * in this case send the card to the client, at once if it is the card of the client, which
+     * acknowledges its move, otherwise with the next message
+     *
+     * @param position where the player who played the card seat
+     * @param oneCard  card been selected to play
+     */
+    @Override
+    public void responseToCardPlayed(int position, int oneCard) {
+        try {
+            connection.sendCard(position, oneCard);
+            if (position == seat) {
+                connection.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * ask the client for a card. The card is not checked here: a card that is not legal, not held or not a
+     * card at all is a rule violation of the game, dealt with by the rule policy of the table
+     *
+     * @param position where the player seat
+     * @param hand     the cards that player has on his hand
+     * @param legal    the cards of the hand the player may play
+     * @param game     the game the player is playing
+     * @return the card has been selected to play in a trick
+     */
+    @Override
+    public int selectCard(int position, long hand, long legal, WhistEngine game) {
+        try {
+            while (true) {
+                connection.sendTurn(game.getLead(), hand);
+                byte type = connection.read();
+                if (type < 0) {
+                    throw new IOException("player " + position + " left the table");
+                }
+                if (type == WhistConnection.PLAY) {
+                    return connection.getByte();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
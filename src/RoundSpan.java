@@ -0,0 +1,27 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * flight recorder event of a round, from the deal to its last trick
+ */
+@Name("whist.Round")
+@Label("Round")
+@Category("Whist")
+@Description("A round of a game, from the deal to its last trick")
+class RoundSpan extends Event {
+    // the type tells if the event is recorded, the event is only created then
+    static final EventType type = EventType.getEventType(RoundSpan.class);
+
+    @Label("Seed")
+    long seed;
+
+    @Label("Round")
+    int round;
+
+    @Label("Trumps")
+    String trumps;
+}
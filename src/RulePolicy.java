@@ -0,0 +1,42 @@
+/**
+ * what the engine does when a player selects a card it may not play: a card of another suit although it
+ * can follow the lead, or a card it does not hold. Every such card is a rule violation, counted and
+ * published to the observers whatever the policy, and no policy stops the program. A card the player does
+ * not hold is never played, it is rejected under every policy but ABORT
+ */
+enum RulePolicy {
+    /**
+     * the card is not played and the player is asked again, until it selects a legal card or the engine
+     * plays its smallest legal card for it after maxAttempts cards
+     */
+    REJECT,
+    /**
+     * the card is played but cannot win the trick
+     */
+    FORFEIT,
+    /**
+     * the card is played like any other card
+     */
+    LOG,
+    /**
+     * the game is over at once, without a winner
+     */
+    ABORT;
+
+    // the cards a player may select on its turn under the reject policy
+    static final int maxAttempts = 3;
+
+    /**
+     * the policy of a game configuration
+     *
+     * @param name      the name of the policy, in any case, or null
+     * @param legalPlay if the rules are enforced when the policy is not named, the game is then aborted
+     * @return the policy
+     */
+    static RulePolicy of(String name, boolean legalPlay) {
+        if (name == null) {
+            return legalPlay ? ABORT : LOG;
+        }
+        return valueOf(name.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * a two-sided sequential probability ratio test on the mean of paired differences. It runs two one-sided
+ * tests of a zero mean against a mean of plus or minus the margin, on the normal model with the variance
+ * of the samples so far, and decides as soon as one of them finds a difference or both find none. The
+ * samples are added one by one, and the test can be read after every sample.
+ */
+final class SequentialTest {
+    /**
+     * the state of the test
+     */
+    enum Decision {
+        UNDECIDED, FIRST_BETTER, SECOND_BETTER, NO_DIFFERENCE
+    }
+
+    // the variance is not trusted before a few samples
+    static final int minSamples = 16;
+    private final double margin;
+    private final double upper;
+    private final double lower;
+    private final double z;
+    private long n;
+    private double mean;
+    private double m2;
+    private double sum;
+
+    /**
+     * sequential test constructor. Both errors, a difference found where there is none and a difference
+     * of the margin missed, have the probability 1 - confidence
+     *
+     * @param confidence the probability of not making an error, between 0.5 and 1
+     * @param margin     the smallest difference worth finding, positive
+     */
+    SequentialTest(double confidence, double margin) {
+        if (confidence <= 0.5 || confidence >= 1 || margin <= 0) {
+            throw new IllegalArgumentException("confidence " + confidence + ", margin " + margin);
+        }
+        double alpha = (1 - confidence) / 2;
+        double beta = 1 - confidence;
+        this.margin = margin;
+        this.upper = Math.log((1 - beta) / alpha);
+        this.lower = Math.log(beta / (1 - alpha));
+        this.z = normalQuantile(1 - (1 - confidence) / 2);
+    }
+
+    /**
+     * add a sample, a difference of the scores of the first and the second strategy (Welford)
+     *
+     * @param difference the sample
+     */
+    void add(double difference) {
+        n++;
+        sum += difference;
+        double delta = difference - mean;
+        mean += delta / n;
+        m2 += delta * (difference - mean);
+    }
+
+    long getSamples() {
+        return n;
+    }
+
+    double getMean() {
+        return mean;
+    }
+
+    /**
+     * the half width of the confidence interval of the mean, at the confidence of the test
+     *
+     * @return the error bar of the mean
+     */
+    double getErrorBar() {
+        return n < 2 ? Double.POSITIVE_INFINITY : z * Math.sqrt(m2 / (n - 1) / n);
+    }
+
+    /**
+     * the log likelihood ratio of a mean of the difference against a mean of 0
+     */
+    private double logLikelihoodRatio(double difference) {
+        // a variance of 0 would divide by 0, the samples are all equal then and tell the most
+        double variance = Math.max(m2 / (n - 1), 1e-12);
+        return difference * (sum - n * difference / 2) / variance;
+    }
+
+    /**
+     * the decision of the test with the samples so far
+     *
+     * @return the decision, UNDECIDED while more samples are needed
+     */
+    Decision decide() {
+        if (n < minSamples) {
+            return Decision.UNDECIDED;
+        }
+        double better = logLikelihoodRatio(margin);
+        double worse = logLikelihoodRatio(-margin);
+        if (better >= upper) {
+            return Decision.FIRST_BETTER;
+        }
+        if (worse >= upper) {
+            return Decision.SECOND_BETTER;
+        }
+        if (better <= lower && worse <= lower) {
+            return Decision.NO_DIFFERENCE;
+        }
+        return Decision.UNDECIDED;
+    }
+
+    /**
+     * the quantile of the standard normal distribution (Acklam's rational approximation)
+     *
+     * @param p a probability, between 0 and 1
+     * @return x such that P(X <= x) = p
+     */
+    static double normalQuantile(double p) {
+        final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01};
+        final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00};
+        double low = 0.02425;
+        if (p < low) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - low) {
+            return -normalQuantile(1 - p);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+}
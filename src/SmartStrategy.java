@@ -1,62 +1,80 @@
-import ch.aplu.jcardgame.*;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.SplittableRandom;
 
 /**
  * smart strategy play the game in smart way. Increase the ability to win
  */
 public class SmartStrategy implements ISelectCard {
-    private HashMap<Enum, ArrayList<Card>> remainingCards = new HashMap<>();
-    private ArrayList<Card> trickSoFar = new ArrayList<>();
+    // no deals by default: reading the tablebase on deals of the last tricks halves the games per second or worse
+    static final int defaultEndgameDeals = 0;
+    private final CardTracker tracker;
+    private final int endgameDeals;
+    private final EndgameTablebase tablebase;
+    private SplittableRandom random;
+    // the sampler and the buffers of the deals of the last tricks, only when the player reads the tablebase
+    private final DealSampler sampler;
+    private final int[] sampledCards;
+    private final int[] trick;
+    private final int[] cards;
+    private final long[] tricks;
+    private final long[] layout;
 
     /**
      * smart strategy constructor.
      *
      * @param myHand cards on hand
-     * @param deck   the deck of the game
      */
-    SmartStrategy(Hand myHand, Deck deck) {
-        allCards(myHand, deck);
+    SmartStrategy(long myHand) {
+        this(myHand, myHand, defaultEndgameDeals);
     }
 
     /**
-     * list all cards in a HashMap, then remove cards on hand,
-     * the remaining represents cards on other players' hand
+     * smart strategy constructor.
      *
-     * @param myHand cards on my hand
-     * @param deck   the deck of the game
+     * @param myHand       cards on hand
+     * @param seed         the seed of the deals of the last tricks
+     * @param endgameDeals deals of the unseen cards the endgame tablebase is read on in the last tricks,
+     *                     0 to always play the card of the rules
      */
-    private void allCards(Hand myHand, Deck deck) {
-        // clear HashMap first
-        remainingCards.clear();
-        // list all cards in a HashMap
-        remainingCards.put(Whist.Suit.SPADES, new ArrayList<>(Arrays.asList(deck.cards[0])));
-        remainingCards.put(Whist.Suit.HEARTS, new ArrayList<>(Arrays.asList(deck.cards[1])));
-        remainingCards.put(Whist.Suit.DIAMONDS, new ArrayList<>(Arrays.asList(deck.cards[2])));
-        remainingCards.put(Whist.Suit.CLUBS, new ArrayList<>(Arrays.asList(deck.cards[3])));
-        // remove cards on hand
-        for (Card oneCard : myHand.getCardList()) {
-            remainingCards.get(oneCard.getSuit()).remove(oneCard);
-        }
+    SmartStrategy(long myHand, long seed, int endgameDeals) {
+        tracker = new CardTracker(myHand);
+        random = new SplittableRandom(seed);
+        this.endgameDeals = endgameDeals;
+        tablebase = endgameDeals > 0 ? EndgameTablebase.getInstance() : null;
+        boolean sampled = tablebase != null;
+        sampler = sampled ? new DealSampler() : null;
+        sampledCards = sampled ? new int[CardSet.nbRanks] : null;
+        trick = sampled ? new int[Whist.nbPlayers] : null;
+        cards = sampled ? new int[EndgameTablebase.maxCards] : null;
+        tricks = sampled ? new long[EndgameTablebase.maxCards] : null;
+        layout = sampled ? new long[Whist.nbPlayers] : null;
     }
 
     /**
      * the override method that represents how this strategy deal with given information,
-     * in this case remember the cards, and calculate what cards left
+     * in this case follow the card, the cards left and the suits the other players showed out of
      *
-     * @param oneCard card been selected to play
+     * @param position where the player who played the card seat
+     * @param oneCard  card been selected to play
      */
     @Override
-    public void responseToCardPlayed(Card oneCard) {
-        if (trickSoFar.size() < 4) {
-            trickSoFar.add(oneCard);
-        }
-        if (trickSoFar.size() == 4) {
-            remainingCards.get(oneCard.getSuit()).removeAll(trickSoFar);
-            trickSoFar.clear();
+    public void responseToCardPlayed(int position, int oneCard) {
+        tracker.cardPlayed(position, oneCard);
+    }
+
+    /**
+     * follow the cards of the new round from the start, with the deals of the seed a new strategy
+     * would get
+     *
+     * @return true
+     */
+    @Override
+    public boolean newRound(int position, long hand, WhistEngine game) {
+        tracker.reset(hand);
+        long seed = game.getRandom(position).nextLong();
+        if (tablebase != null) {
+            random = new SplittableRandom(seed);
         }
+        return true;
     }
 
     /**
@@ -64,74 +82,146 @@ public class SmartStrategy implements ISelectCard {
      * @param hand cards on hand
      * @return smallest card out of all cards on hand
      */
-    private Card smallestCardOnHand(Hand hand){
-        Card smallestCard = hand.getCardList().get(0);
-        for(Card card : hand.getCardList()){
-            if(Whist.rankGreater(smallestCard, card)) {
-                smallestCard = card;
-            }
-        }
-        return smallestCard;
+    private int smallestCardOnHand(long hand){
+        return CardSet.lowestRank(hand);
     }
 
     /**
      * compare a single Card to all cards in trick
      *
      * @param card card to be compared
-     * @return true if selected card is greater than all cards in trick, false otherwise
+     * @return true if selected card beats the card winning the trick so far, false otherwise
      */
-    private boolean trickCardCompare(Card card, Enum trump) {
-        Enum cardSuit = card.getSuit();
-        for (Card trickCard : trickSoFar) {
-            //if trick card is not trump
-            if(trickCard.getSuit() != trump){
-                if (!Whist.rankGreater(card, trickCard) && cardSuit != trump) {
-                    return false;
-                }
-            }else{
-                // trick card is trump and compare card is not, return false
-                if(cardSuit != trump){
-                    return false;
-                    //both trick and compare card are trump card, compare their id
-                }else{
-                    if (!Whist.rankGreater(card, trickCard)) {
-                        return false;
-                    }
-                }
+    private boolean trickCardCompare(int card, Whist.Suit trump) {
+        return TrickEvaluator.beats(card, tracker.getTrickCard(tracker.getTrickWinner(trump)), trump);
+    }
+
+    /**
+     * check if a player still to play in the trick may trump a card of a suit: it showed out of the suit,
+     * or the other players have no card of the suit left, and it may still have a trump
+     *
+     * @param suit     the suit of the card
+     * @param trump    the trump suit
+     * @param position where the player seat
+     * @param nbToPlay number of players to play after the player in the trick
+     * @return true if the card may be trumped
+     */
+    private boolean mayBeTrumped(Whist.Suit suit, Whist.Suit trump, int position, int nbToPlay) {
+        long unseen = tracker.getUnseen();
+        if (suit == trump || CardSet.isEmpty(CardSet.suit(unseen, trump))) {
+            return false;
+        }
+        boolean suitGone = CardSet.isEmpty(CardSet.suit(unseen, suit));
+        for (int i = 1; i <= nbToPlay; i++) {
+            int seat = (position + i) % Whist.nbPlayers;
+            if ((suitGone || tracker.isVoid(seat, suit)) && !tracker.isVoid(seat, trump)) {
+                return true;
             }
         }
-        return true;
+        return false;
     }
 
     /**
-     * find the smallest winning card of a certain suit, or null.
+     * find the smallest winning card of a certain suit, or -1. The card must beat the cards of the trick
+     * and every card of the suit the other players may have, and no player to play after it may trump it
      *
-     * @param remainingCards the collection of all of other players' card on their hand
-     * @param oneSuitCards   one suit of cards of all cards on this hand
-     * @return smallest winning card or null
+     * @param oneSuitCards one suit of cards of all cards on this hand
+     * @param trump        the trump suit
+     * @param position     where the player seat
+     * @return smallest winning card or -1
      */
-    private Card smallestWinningCard(HashMap<Enum, ArrayList<Card>> remainingCards, ArrayList<Card> oneSuitCards) {
-        Card winningCard = null;
-        //if the chosen Suit list is empty, return null
-        if (oneSuitCards.size() == 0) {
-            return null;
+    private int smallestWinningCard(long oneSuitCards, Whist.Suit trump, int position) {
+        //if the chosen Suit is empty, return -1
+        if (CardSet.isEmpty(oneSuitCards)) {
+            return -1;
         }
-        //get the suit value of teh chosen suit, a.k.a. the key of HashMap here
-        Enum key = oneSuitCards.get(0).getSuit();
-        //if no cards on other players hand, return the smallest card in chosen suit
-        if (remainingCards.get(key).size() == 0) {
-            return oneSuitCards.get(oneSuitCards.size() - 1);
+        Whist.Suit suit = CardSet.suitOf(CardSet.highest(oneSuitCards));
+        long trick = tracker.getTrickCards();
+        // a trick already trumped is lost to a card of another suit
+        if (suit != trump && !CardSet.isEmpty(CardSet.suit(trick, trump))) {
+            return -1;
         }
-        // As both ArrayList is sorted, so only compare the first card
-        // then find the smallest winning card through looping, or find null
-        for (Card oneSuitCard : oneSuitCards) {
-            if (Whist.rankGreater(oneSuitCard, remainingCards.get(key).get(0))) {
-                winningCard = oneSuitCard;
-            } else {
-                break;
+        if (mayBeTrumped(suit, trump, position, Whist.nbPlayers - 1 - tracker.getTrickSize())) {
+            return -1;
+        }
+        long otherSuitCards = CardSet.suit(CardSet.union(tracker.getUnseen(), trick), suit);
+        //if no cards on other players hand or in the trick, return the smallest card in chosen suit
+        if (CardSet.isEmpty(otherSuitCards)) {
+            return CardSet.lowest(oneSuitCards);
+        }
+        // the winning cards are the ones higher than the highest card of the other players
+        long winningCards = CardSet.higher(oneSuitCards, CardSet.highest(otherSuitCards));
+        return CardSet.isEmpty(winningCards) ? -1 : CardSet.lowest(winningCards);
+    }
+
+    /**
+     * in the last tricks, the legal card that wins the most tricks on average over deals of the unseen cards,
+     * every deal read in the endgame tablebase as if everyone saw every hand
+     *
+     * @param position where the player seat
+     * @param hand     the cards that player has on his hand
+     * @param legal    the cards of the hand the player may play
+     * @param game     the game the player is playing
+     * @param ruleCard the card of the rules, kept unless another card wins more
+     * @return the card, or -1 if there are no deals or no tablebase, or the round is not in its last tricks
+     */
+    private int endgameCard(int position, long hand, long legal, WhistEngine game, int ruleCard) {
+        if (tablebase == null || CardSet.size(hand) > EndgameTablebase.maxCards) {
+            return -1;
+        }
+        int trickSize = tracker.getTrickSize();
+        if (CardSet.size(legal) == 1) {
+            return -1;
+        }
+        int leader = trickSize == 0 ? position : tracker.getTrickSeat(0);
+        for (int i = 0; i < trickSize; i++) {
+            trick[i] = tracker.getTrickCard(i);
+        }
+        int nbCards = CardSet.size(legal);
+        int best = 0;
+        for (int i = 0; i < nbCards; i++) {
+            cards[i] = CardSet.nth(legal, i);
+            tricks[i] = 0;
+            if (cards[i] == ruleCard) {
+                best = i;
+            }
+        }
+        sampler.prepare(tracker, position, game);
+        for (int n = 0; n < endgameDeals; n++) {
+            sampler.sample(random, layout, sampledCards);
+            for (int i = 0; i < nbCards; i++) {
+                layout[position] = CardSet.remove(hand, cards[i]);
+                trick[trickSize] = cards[i];
+                int won = tablebase.tricks(layout, game.getTrumps(), leader, trick, trickSize + 1, 1 << position);
+                if (won < 0) {
+                    return -1;
+                }
+                tricks[i] += won;
+            }
+        }
+        for (int i = 0; i < nbCards; i++) {
+            if (tricks[i] > tricks[best]) {
+                best = i;
             }
         }
-        return winningCard;
+        return cards[best];
+    }
+
+    /**
+     * play the card of the endgame tablebase in the last tricks, if the player reads it on deals, otherwise
+     * the card of the rules
+     *
+     * @param position where the player seat
+     * @param hand     the cards that player has on his hand
+     * @param legal    the cards of the hand the player may play
+     * @param game     the game the player is playing
+     * @return the card has been selected to play in a trick
+     */
+    @Override
+    public int selectCard(int position, long hand, long legal, WhistEngine game) {
+        int ruleCard = ruleCard(position, hand, game);
+        int endgameCard = endgameCard(position, hand, legal, game, ruleCard);
+        return endgameCard >= 0 ? endgameCard : ruleCard;
     }
 
     /**
@@ -140,51 +230,48 @@ public class SmartStrategy implements ISelectCard {
      *
      * @param position where the player seat
      * @param hand     the cards that player has on his hand
-     * @param whist    the game the player is playing
+     * @param game     the game the player is playing
      * @return the card has been selected to play in a trick
      */
-    @Override
-    public Card selectCard(int position, Hand hand, Whist whist) {
-        Card winningCard = null;
-        ArrayList<Card> leadCardsList = hand.getCardsWithSuit(whist.getLead());
-        ArrayList<Card> trumpCardsList = hand.getCardsWithSuit(whist.getTrumps());
+    private int ruleCard(int position, long hand, WhistEngine game) {
+        int winningCard = -1;
+        long leadCardsList = CardSet.suit(hand, game.getLead());
+        long trumpCardsList = CardSet.suit(hand, game.getTrumps());
 
-        whist.setStatusText("Player " + position + " thinking...");
-        Whist.delay(whist.thinkingTime);
         //smart player leads the trick, play card based on player's order(position) in a trick
-        if (trickSoFar.size() == 0) {
-            //loop through all suit to find the first card that has almost 100% winning chance
-            //however trump card played by other player is not considered
-            for (Whist.Suit oneSuit : Whist.Suit.values()) {
-                winningCard = smallestWinningCard(remainingCards, hand.getCardsWithSuit(oneSuit));
-                if (winningCard != null) {
+        if (tracker.getTrickSize() == 0) {
+            //loop through all suit to find the first card that has almost 100% winning chance,
+            //a suit some player showed out of is not safe while that player may trump it
+            for (int oneSuit = 0; oneSuit < CardSet.nbSuits; oneSuit++) {
+                winningCard = smallestWinningCard(CardSet.suit(hand, oneSuit), game.getTrumps(), position);
+                if (winningCard >= 0) {
                     break;
                 }
             }
             //play winning card if available, otherwise play the smallest card of random suit.
-            if (winningCard != null) {
+            if (winningCard >= 0) {
                 return winningCard;
             } else {
                 return smallestCardOnHand(hand);
             }
             //smart player follows the trick and is the last one to play a card
-        } else if (trickSoFar.size() == 3) {
+        } else if (tracker.getTrickSize() == 3) {
             //check if any cards in lead suit. If yes, compare them to current trick to find
             //the smallest winning card. start from the smallest cards of lead suit on hand
-            if (leadCardsList.size() > 0) {
-                for (int i = (leadCardsList.size() - 1); i >= 0; i--) {
-                    if (trickCardCompare(leadCardsList.get(i), whist.getTrumps())) {
-                        return leadCardsList.get(i);
+            if (!CardSet.isEmpty(leadCardsList)) {
+                for (long rest = leadCardsList; rest != 0; rest = CardSet.remove(rest, CardSet.lowest(rest))) {
+                    if (trickCardCompare(CardSet.lowest(rest), game.getTrumps())) {
+                        return CardSet.lowest(rest);
                     }
                 }
                 // no cards on hand is greater than cards in trick, return the smallest cards of lead
-                return leadCardsList.get(leadCardsList.size() - 1);
+                return CardSet.lowest(leadCardsList);
             } else {
-                if (trumpCardsList.size() > 0) {
+                if (!CardSet.isEmpty(trumpCardsList)) {
                     //return the smallest winning trump card
-                    for (int i = (trumpCardsList.size() - 1); i >= 0; i--) {
-                        if (trickCardCompare(trumpCardsList.get(i), whist.getTrumps())) {
-                            return trumpCardsList.get(i);
+                    for (long rest = trumpCardsList; rest != 0; rest = CardSet.remove(rest, CardSet.lowest(rest))) {
+                        if (trickCardCompare(CardSet.lowest(rest), game.getTrumps())) {
+                            return CardSet.lowest(rest);
                         }
                     }
                     return smallestCardOnHand(hand);
@@ -195,22 +282,22 @@ public class SmartStrategy implements ISelectCard {
             //player is in the middle of playing a card in a trick
         } else {
             //if has lead cards, return the smallest winning card if there is any
-            if (leadCardsList.size() > 0) {
-                Card card = smallestWinningCard(remainingCards, leadCardsList);
-                if (card != null) {
+            if (!CardSet.isEmpty(leadCardsList)) {
+                int card = smallestWinningCard(leadCardsList, game.getTrumps(), position);
+                if (card >= 0) {
                     return card;
                 }
                 //no winning card of lead suit. Return the smallest card of lead suit
-                return leadCardsList.get(leadCardsList.size() - 1);
+                return CardSet.lowest(leadCardsList);
             } else {
                 //if no lead card, play the smallest trump card
-                if (trumpCardsList.size() > 0) {
+                if (!CardSet.isEmpty(trumpCardsList)) {
                     //return the smallest trump card
-                    return trumpCardsList.get(trumpCardsList.size() - 1);
+                    return CardSet.lowest(trumpCardsList);
                 }
                 // if no lead and trump card, select smallest card of other suit
                 return smallestCardOnHand(hand);
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,142 @@
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * the images of the game board, loaded once and shared: the trump images and the overlays of the
+ * sprites directory, read in parallel as soon as the atlas is first used, and the score glyphs,
+ * rendered the first time a score is shown. The actors of the board switch between these images
+ * instead of being created again every round and every trick. The card faces and the card back are not
+ * in the atlas, the deck of JCardGame loads them once through the sprite store of JGameGrid
+ */
+final class SpriteAtlas {
+    private static final String directory = "sprites/";
+    private static final String[] trumpImages = {"bigspade.gif", "bigheart.gif", "bigdiamond.gif", "bigclub.gif"};
+    static final String gameOverImage = "gameover.gif";
+    private static final Font scoreFont = new Font("Serif", Font.BOLD, 36);
+    private static final Color scoreColor = Color.WHITE;
+    private static SpriteAtlas atlas;
+
+    private final Map<String, CompletableFuture<BufferedImage>> images = new ConcurrentHashMap<>();
+    private final Map<Integer, BufferedImage> scores = new ConcurrentHashMap<>();
+
+    private SpriteAtlas() {
+        for (String name : trumpImages) {
+            load(name);
+        }
+        load(gameOverImage);
+    }
+
+    /**
+     * make this class a singleton, created the first time it is needed.
+     *
+     * @return the only instance of the class, with its images loading
+     */
+    static synchronized SpriteAtlas getInstance() {
+        if (atlas == null) {
+            atlas = new SpriteAtlas();
+        }
+        return atlas;
+    }
+
+    /**
+     * start loading an image of the sprites directory, unless it is loaded or loading already
+     */
+    private CompletableFuture<BufferedImage> load(String name) {
+        return images.computeIfAbsent(name, key -> CompletableFuture.supplyAsync(() -> read(key)));
+    }
+
+    /**
+     * read an image from the sprites directory, or from the class path like JGameGrid does
+     */
+    private static BufferedImage read(String name) {
+        try {
+            Path path = Paths.get(directory + name);
+            if (Files.exists(path)) {
+                return ImageIO.read(path.toFile());
+            }
+            try (InputStream in = SpriteAtlas.class.getResourceAsStream("/" + directory + name)) {
+                if (in == null) {
+                    throw new IOException("no sprite " + directory + name);
+                }
+                return ImageIO.read(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * an image of the sprites directory, waiting for it if it is still loading
+     *
+     * @param name the file name of the image
+     * @return the image
+     */
+    BufferedImage getImage(String name) {
+        return load(name).join();
+    }
+
+    /**
+     * the images of the trump suits, indexed by the ordinal of the suit
+     *
+     * @return the images of the trumps
+     */
+    BufferedImage[] getTrumpImages() {
+        BufferedImage[] trumps = new BufferedImage[trumpImages.length];
+        for (int i = 0; i < trumpImages.length; i++) {
+            trumps[i] = getImage(trumpImages[i]);
+        }
+        return trumps;
+    }
+
+    /**
+     * the glyph of a score, white on a transparent background so it shows on any board
+     *
+     * @param value the score
+     * @return the image of the score
+     */
+    BufferedImage getScore(int value) {
+        return scores.computeIfAbsent(value, SpriteAtlas::render);
+    }
+
+    /**
+     * the glyphs of the scores from 0 to a maximum, indexed by the score
+     *
+     * @param max the highest score
+     * @return the images of the scores
+     */
+    BufferedImage[] getScores(int max) {
+        BufferedImage[] glyphs = new BufferedImage[max + 1];
+        for (int i = 0; i <= max; i++) {
+            glyphs[i] = getScore(i);
+        }
+        return glyphs;
+    }
+
+    private static BufferedImage render(int value) {
+        String text = String.valueOf(value);
+        BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scratch.createGraphics();
+        FontMetrics metrics = graphics.getFontMetrics(scoreFont);
+        graphics.dispose();
+        BufferedImage glyph = new BufferedImage(metrics.stringWidth(text), metrics.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        graphics = glyph.createGraphics();
+        graphics.setFont(scoreFont);
+        graphics.setColor(scoreColor);
+        graphics.drawString(text, 0, metrics.getAscent());
+        graphics.dispose();
+        return glyph;
+    }
+}
@@ -0,0 +1,55 @@
+import java.util.Properties;
+
+/**
+ * the time budgets of the players of a game: the most time a player may think over one card, and over all
+ * its cards of a game, like a chess clock. A player who is late for a card gets the smallest legal card
+ * played for it. The time of the pacing of a game board does not count
+ */
+final class TimeControl {
+    // no budget at all, the players think as long as they want
+    static final TimeControl NONE = new TimeControl(0, 0);
+
+    private final long moveNanos;
+    private final long gameNanos;
+
+    /**
+     * time control constructor.
+     *
+     * @param moveMillis the milliseconds a player has per card, or 0 for no limit
+     * @param gameMillis the milliseconds a player has for all its cards of a game, or 0 for no limit
+     */
+    TimeControl(long moveMillis, long gameMillis) {
+        this.moveNanos = moveMillis > 0 ? moveMillis * 1_000_000 : Long.MAX_VALUE;
+        this.gameNanos = gameMillis > 0 ? gameMillis * 1_000_000 : Long.MAX_VALUE;
+    }
+
+    /**
+     * the time control of a game configuration, moveTime and gameTime in milliseconds
+     *
+     * @param properties the game configuration
+     * @return the time control, NONE if there is no budget
+     */
+    static TimeControl of(Properties properties) {
+        long moveMillis = Long.parseLong(properties.getProperty("moveTime", "0"));
+        long gameMillis = Long.parseLong(properties.getProperty("gameTime", "0"));
+        return moveMillis > 0 || gameMillis > 0 ? new TimeControl(moveMillis, gameMillis) : NONE;
+    }
+
+    /**
+     * the budget of one card
+     *
+     * @return the nanoseconds, or Long.MAX_VALUE for no limit
+     */
+    long getMoveNanos() {
+        return moveNanos;
+    }
+
+    /**
+     * the budget of all the cards of a player in a game
+     *
+     * @return the nanoseconds, or Long.MAX_VALUE for no limit
+     */
+    long getGameNanos() {
+        return gameNanos;
+    }
+}
@@ -0,0 +1,298 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * the tournament mode. Plays many headless games in parallel and sums up the wins, tricks, rule
+ * violations and time overruns of every seat and every player type. The seed of a game only depends on the base seed
+ * and the index of the game, so a game can be replayed alone and the totals do not depend on the
+ * number of threads.
+ */
+public class Tournament {
+    // number of games below which a task plays its games instead of splitting them
+    private static final int gamesPerTask = 64;
+
+    private final long baseSeed;
+    private final String[] playerConfiguration;
+    private final String[] playerTypes;
+    private final int nbStartCards;
+    private final int winningScore;
+    private final GameArchiveWriter archive;
+    private TimeControl timeControl = TimeControl.NONE;
+    private RulePolicy rulePolicy = RulePolicy.LOG;
+    // the event bus of the recorder, while the games are played
+    private GameEventBus bus;
+
+    /**
+     * Constructor of a tournament. Rule violations are counted, and only logged unless a rule policy is set
+     *
+     * @param baseSeed            the seed the seed of every game is derived from
+     * @param playerConfiguration the type and seat location of the players
+     * @param nbStartCards        number of cards on hand to play each round
+     * @param winningScore        number of scores to win a game
+     */
+    Tournament(long baseSeed, String[] playerConfiguration, int nbStartCards, int winningScore) {
+        this(baseSeed, playerConfiguration, nbStartCards, winningScore, null);
+    }
+
+    /**
+     * Constructor of a tournament that records its games
+     *
+     * @param archive the archive every game is appended to when it is over, or null
+     */
+    Tournament(long baseSeed, String[] playerConfiguration, int nbStartCards, int winningScore,
+               GameArchiveWriter archive) {
+        this.baseSeed = baseSeed;
+        this.playerConfiguration = playerConfiguration;
+        this.playerTypes = PlayerFactory.playerTypes(playerConfiguration);
+        this.nbStartCards = nbStartCards;
+        this.winningScore = winningScore;
+        this.archive = archive;
+    }
+
+    /**
+     * set the time budgets of the players of every game, before the games are played
+     *
+     * @param timeControl the budgets per card and per game
+     */
+    void setTimeControl(TimeControl timeControl) {
+        this.timeControl = timeControl;
+    }
+
+    /**
+     * set what happens when a player breaks the rules in every game, before the games are played
+     *
+     * @param rulePolicy the policy, LOG by default
+     */
+    void setRulePolicy(RulePolicy rulePolicy) {
+        this.rulePolicy = rulePolicy;
+    }
+
+    /**
+     * the seed of one game, mixed from the base seed and the index of the game (SplitMix64)
+     *
+     * @param baseSeed  the seed of the tournament
+     * @param gameIndex the index of the game in the tournament
+     * @return the seed of the game
+     */
+    static long gameSeed(long baseSeed, long gameIndex) {
+        long z = baseSeed + (gameIndex + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * play one game of the tournament and add its outcome to a result
+     *
+     * @param gameIndex the index of the game in the tournament
+     * @param result    the result the game is added to
+     */
+    void playGame(long gameIndex, Result result) {
+        WhistEngine game = new WhistEngine(gameSeed(baseSeed, gameIndex), playerConfiguration,
+                nbStartCards, winningScore, rulePolicy);
+        game.setTimeControl(timeControl);
+        game.setEventBus(bus);
+        result.add(game, game.play());
+    }
+
+    /**
+     * play the games of the tournament on a fork/join pool
+     *
+     * @param nbGames     number of games to play
+     * @param parallelism number of threads
+     * @return the totals of all games
+     */
+    Result play(long nbGames, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        bus = archive == null ? null : new GameEventBus(Whist.eventBusCapacity, new GameRecorder(archive));
+        try {
+            return pool.invoke(new Games(0, nbGames));
+        } finally {
+            pool.shutdown();
+            // all the records are appended when the games are played
+            if (bus != null) {
+                bus.close();
+            }
+        }
+    }
+
+    /**
+     * the games from index start (inclusive) to end (exclusive), split in halves until they are few enough
+     */
+    @SuppressWarnings("serial")
+    private class Games extends RecursiveTask<Result> {
+        private final long start;
+        private final long end;
+
+        Games(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Result compute() {
+            if (end - start <= gamesPerTask) {
+                Result result = new Result(playerTypes);
+                for (long i = start; i < end; i++) {
+                    playGame(i, result);
+                }
+                return result;
+            }
+            long middle = (start + end) >>> 1;
+            Games left = new Games(start, middle);
+            left.fork();
+            Result result = new Games(middle, end).compute();
+            result.merge(left.join());
+            return result;
+        }
+    }
+
+    /**
+     * the totals of a set of games, per seat
+     */
+    static class Result {
+        private final String[] playerTypes;
+        private long games;
+        // the games a rule policy stopped without a winner
+        private long aborted;
+        private final long[] wins = new long[Whist.nbPlayers];
+        private final long[] tricks = new long[Whist.nbPlayers];
+        private final long[] violations = new long[Whist.nbPlayers];
+        private final long[] overruns = new long[Whist.nbPlayers];
+
+        Result(String[] playerTypes) {
+            this.playerTypes = playerTypes;
+        }
+
+        void add(WhistEngine game, int winner) {
+            games++;
+            if (winner < 0) {
+                aborted++;
+            } else {
+                wins[winner]++;
+            }
+            for (int i = 0; i < Whist.nbPlayers; i++) {
+                tricks[i] += game.getScore(i);
+                violations[i] += game.getViolations(i);
+                overruns[i] += game.getOverruns(i);
+            }
+        }
+
+        void merge(Result other) {
+            games += other.games;
+            aborted += other.aborted;
+            for (int i = 0; i < Whist.nbPlayers; i++) {
+                wins[i] += other.wins[i];
+                tricks[i] += other.tricks[i];
+                violations[i] += other.violations[i];
+                overruns[i] += other.overruns[i];
+            }
+        }
+
+        long getGames() {
+            return games;
+        }
+
+        long getAborted() {
+            return aborted;
+        }
+
+        long getWins(int position) {
+            return wins[position];
+        }
+
+        long getTricks(int position) {
+            return tricks[position];
+        }
+
+        long getViolations(int position) {
+            return violations[position];
+        }
+
+        long getOverruns(int position) {
+            return overruns[position];
+        }
+
+        /**
+         * the totals of the seats grouped by player type
+         *
+         * @return for each player type, its number of seats, wins, tricks, rule violations and time overruns
+         */
+        Map<String, long[]> byPlayerType() {
+            Map<String, long[]> totals = new LinkedHashMap<>();
+            for (int i = 0; i < Whist.nbPlayers; i++) {
+                long[] total = totals.computeIfAbsent(playerTypes[i], type -> new long[5]);
+                total[0]++;
+                total[1] += wins[i];
+                total[2] += tricks[i];
+                total[3] += violations[i];
+                total[4] += overruns[i];
+            }
+            return totals;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append("games: ").append(games);
+            if (aborted > 0) {
+                builder.append(", aborted: ").append(aborted);
+            }
+            builder.append('\n');
+            for (int i = 0; i < Whist.nbPlayers; i++) {
+                builder.append(String.format("player %d (%s): wins = %d, tricks = %d, violations = %d, overruns = %d%n",
+                        i, playerTypes[i], wins[i], tricks[i], violations[i], overruns[i]));
+            }
+            for (Map.Entry<String, long[]> entry : byPlayerType().entrySet()) {
+                long[] total = entry.getValue();
+                builder.append(String.format("%s (%d seats): wins = %d, tricks = %d, violations = %d, overruns = %d%n",
+                        entry.getKey(), total[0], total[1], total[2], total[3], total[4]));
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * Main method. Plays a tournament with the players, seed and game settings of whist.properties
+     *
+     * @param args number of games, then optionally number of threads (all cores by default)
+     */
+    public static void main(String[] args) throws IOException {
+        Properties WhistProperties = Whist.readProperties();
+        long seed = Long.parseLong(WhistProperties.getProperty("seed"));
+        int nbStartCards = Integer.parseInt(WhistProperties.getProperty("nbStartCards"));
+        int winningScore = Integer.parseInt(WhistProperties.getProperty("winningScore"));
+        String[] playerConfiguration = WhistProperties.getProperty("players").trim().split(";");
+        boolean legalPlay = Boolean.parseBoolean(WhistProperties.getProperty("legalPlay"));
+        // reject, forfeit, log or abort, by default abort the game if the play must be legal, otherwise log
+        RulePolicy rulePolicy = RulePolicy.of(WhistProperties.getProperty("rulePolicy"), legalPlay);
+        long nbGames = Long.parseLong(args[0]);
+        int parallelism = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        String record = WhistProperties.getProperty("record");
+        // the file the metrics are written to in JSON at the end, if any
+        String metricsFile = WhistProperties.getProperty("metrics");
+        if (metricsFile != null) {
+            Metrics.getInstance().setEnabled(true);
+            Metrics.getInstance().writeJsonOnExit(Paths.get(metricsFile));
+        }
+
+        Result result;
+        long start = System.nanoTime();
+        try (GameArchiveWriter archive = record == null ? null : new GameArchiveWriter(Paths.get(record))) {
+            Tournament tournament = new Tournament(seed, playerConfiguration, nbStartCards, winningScore, archive);
+            tournament.setTimeControl(TimeControl.of(WhistProperties));
+            tournament.setRulePolicy(rulePolicy);
+            result = tournament.play(nbGames, parallelism);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.print(result);
+        System.out.printf("%d games in %.3f s, %.2f games per second on %d threads%n", nbGames, seconds,
+                nbGames / seconds, parallelism);
+    }
+}
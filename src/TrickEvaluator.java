@@ -0,0 +1,145 @@
+/**
+ * the trick-winner rule, on card indices. For every trump suit and lead suit a table gives each card its
+ * strength in the trick: a trump beats the lead suit, the lead suit beats the other suits, which never
+ * win, and inside a suit the higher rank wins. The winner of a trick is then the card with the highest
+ * strength, found with one table lookup per card. Tricks can be resolved one by one or in batches,
+ * four cards per trick in an int[] or one trick packed per long.
+ */
+final class TrickEvaluator {
+    // the row of a trump and a lead has a slot for every 6 bit card index
+    private static final int cardBits = 6;
+    private static final int cardMask = (1 << cardBits) - 1;
+    private static final int trumpShift = Whist.nbPlayers * cardBits;
+    private static final byte[] strengths = new byte[CardSet.nbSuits * CardSet.nbSuits << cardBits];
+
+    static {
+        for (int trump = 0; trump < CardSet.nbSuits; trump++) {
+            for (int lead = 0; lead < CardSet.nbSuits; lead++) {
+                for (int card = 0; card < CardSet.nbCards; card++) {
+                    int suit = card / CardSet.nbRanks;
+                    // the ACE is rank 0, so the higher the card the smaller the rank
+                    int height = CardSet.nbRanks - card % CardSet.nbRanks;
+                    int strength = suit == trump ? 2 * CardSet.nbRanks + height : suit == lead ? CardSet.nbRanks + height : 0;
+                    strengths[row(trump, lead) + card] = (byte) strength;
+                }
+            }
+        }
+    }
+
+    private TrickEvaluator() {
+    }
+
+    private static int row(int trump, int lead) {
+        return (trump * CardSet.nbSuits + lead) << cardBits;
+    }
+
+    /**
+     * the strength of a card in a trick, the card with the highest strength wins the trick
+     *
+     * @param trumps the trump suit
+     * @param lead   the suit of the lead
+     * @param card   the card
+     * @return 0 if the card cannot win the trick, otherwise a positive strength
+     */
+    static int strength(Whist.Suit trumps, Whist.Suit lead, int card) {
+        return strengths[row(trumps.ordinal(), lead.ordinal()) + card];
+    }
+
+    /**
+     * a card beats the winning card of a trick with a higher card of the same suit,
+     * or with a trump when a non-trump is winning
+     *
+     * @param card        the card played
+     * @param winningCard the card currently winning the trick
+     * @param trumps      the trump suit
+     * @return true if the card played wins the trick over the winning card
+     */
+    static boolean beats(int card, int winningCard, Whist.Suit trumps) {
+        // the winning card is of the lead suit or a trump, so its suit as the lead gives the same order
+        int row = row(trumps.ordinal(), winningCard / CardSet.nbRanks);
+        return strengths[row + card] > strengths[row + winningCard];
+    }
+
+    /**
+     * the winner of a trick
+     *
+     * @param cards  the cards of the trick from the lead, in an array
+     * @param from   the index of the lead in the array
+     * @param size   the number of cards of the trick, at least 1
+     * @param trumps the trump suit
+     * @return the position in the trick of the winning card, from 0 (the lead) to size - 1
+     */
+    static int winner(int[] cards, int from, int size, Whist.Suit trumps) {
+        int row = row(trumps.ordinal(), cards[from] / CardSet.nbRanks);
+        int winner = 0;
+        int best = strengths[row + cards[from]];
+        for (int i = 1; i < size; i++) {
+            int strength = strengths[row + cards[from + i]];
+            if (strength > best) {
+                best = strength;
+                winner = i;
+            }
+        }
+        return winner;
+    }
+
+    /**
+     * the winners of complete tricks, four cards each
+     *
+     * @param cards    the cards of the tricks one after the other, each from its lead
+     * @param trumps   the ordinal of the trump suit of every trick
+     * @param nbTricks number of tricks
+     * @param winners  filled with the position in its trick of the winning card of every trick
+     */
+    static void winners(int[] cards, int[] trumps, int nbTricks, int[] winners) {
+        for (int t = 0, c = 0; t < nbTricks; t++, c += Whist.nbPlayers) {
+            int row = row(trumps[t], cards[c] / CardSet.nbRanks);
+            int s0 = strengths[row + cards[c]];
+            int s1 = strengths[row + cards[c + 1]];
+            int s2 = strengths[row + cards[c + 2]];
+            int s3 = strengths[row + cards[c + 3]];
+            // the best of the halves, then of the pair; the lead has a strength, so a tie is two discards
+            int first = s1 > s0 ? 1 : 0;
+            int second = s3 > s2 ? 3 : 2;
+            winners[t] = Math.max(s0, s1) >= Math.max(s2, s3) ? first : second;
+        }
+    }
+
+    /**
+     * pack a complete trick in a long: the cards 6 bits each from the lead in the low bits, then the trump
+     *
+     * @param cards  the cards of the trick from the lead, in an array
+     * @param from   the index of the lead in the array
+     * @param trumps the trump suit
+     * @return the packed trick
+     */
+    static long pack(int[] cards, int from, Whist.Suit trumps) {
+        long trick = (long) trumps.ordinal() << trumpShift;
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            trick |= (long) cards[from + i] << i * cardBits;
+        }
+        return trick;
+    }
+
+    /**
+     * the winners of complete tricks packed by pack()
+     *
+     * @param tricks   the packed tricks
+     * @param nbTricks number of tricks
+     * @param winners  filled with the position in its trick of the winning card of every trick
+     */
+    static void winners(long[] tricks, int nbTricks, int[] winners) {
+        for (int t = 0; t < nbTricks; t++) {
+            long trick = tricks[t];
+            int lead = (int) trick & cardMask;
+            int row = row((int) (trick >>> trumpShift), lead / CardSet.nbRanks);
+            int s0 = strengths[row + lead];
+            int s1 = strengths[row + ((int) (trick >>> cardBits) & cardMask)];
+            int s2 = strengths[row + ((int) (trick >>> 2 * cardBits) & cardMask)];
+            int s3 = strengths[row + ((int) (trick >>> 3 * cardBits) & cardMask)];
+            int first = s1 > s0 ? 1 : 0;
+            int second = s3 > s2 ? 3 : 2;
+            winners[t] = Math.max(s0, s1) >= Math.max(s2, s3) ? first : second;
+        }
+    }
+}
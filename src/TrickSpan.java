@@ -0,0 +1,30 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * flight recorder event of a trick, from the lead to the trick won
+ */
+@Name("whist.Trick")
+@Label("Trick")
+@Category("Whist")
+@Description("A trick, from the lead to the trick won")
+class TrickSpan extends Event {
+    // the type tells if the event is recorded, the event is only created then
+    static final EventType type = EventType.getEventType(TrickSpan.class);
+
+    @Label("Round")
+    int round;
+
+    @Label("Trick")
+    int trick;
+
+    @Label("Lead")
+    String lead;
+
+    @Label("Winner")
+    int winner;
+}
@@ -1,18 +1,18 @@
 import ch.aplu.jcardgame.*;
 import ch.aplu.jgamegrid.*;
 
-import java.awt.Color;
-import java.awt.Font;
 import java.util.*;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Paths;
 
 /**
- * the facade object that receive the configuration and command of user, then run the game
+ * the facade object that receive the configuration and command of user, then run the game.
+ * The rules are run by the WhistEngine, this game board observes it and displays the game
  */
 
 @SuppressWarnings("serial")
-public class Whist extends CardGame {
+public class Whist extends CardGame implements IObserver {
     /**
      * The suit of card
      */
@@ -40,67 +40,42 @@ public class Whist extends CardGame {
         return card1.getRankId() < card2.getRankId();
     }
 
-    Suit getTrumps() {
-        return trumps;
-    }
-
     Deck getDeck() {
         return deck;
     }
 
-    Suit getLead() {
-        return lead;
-    }
-
-    /**
-     * Update method that notify listeners the change in the game
-     *
-     * @param cardPlayed the card has been played
-     */
-    private void update(Card cardPlayed) {
-        for (IObserver listener : listeners) {
-            listener.update(cardPlayed);
-        }
-    }
-
     /**
-     * add listener to the list
+     * the hand of a player displayed in the game board
      *
-     * @param player the object that want to observing the game
+     * @param position where the player seat
+     * @return the hand of the player
      */
-    private void addListener(IObserver player) {
-        listeners.add(player);
+    Hand getHand(int position) {
+        return hands[position];
     }
 
-    /**
-     * remove listener from the list
-     *
-     * @param player the listener on the list
-     */
-    private void removeListener(IObserver player) {
-        listeners.remove(player);
+    IPacing getPacing() {
+        return pacing;
     }
 
-    final int thinkingTime = 2000;
     static final int nbPlayers = 4;
+    static final int eventBusCapacity = 1024;
     private final String version = "1.0";
-    private int seed;
+    private long seed;
     private final String[] playerConfiguration;
     private final int nbStartCards;
     private final int winningScore;
-    private boolean enforceRules;
+    private final RulePolicy rulePolicy;
+    private final IPacing pacing;
     private Actor trumpsActor;
-    private Player[] players;
-    private Suit trumps;
-    private Suit lead;
-    private ArrayList<IObserver> listeners = new ArrayList<>();
+    private Hand[] hands = new Hand[nbPlayers];
+    private BoardRenderer renderer;
     private BoardLocation boardLocation = new BoardLocation();
+    // first, so that its images load while the deck loads the cards
+    private final SpriteAtlas atlas = SpriteAtlas.getInstance();
     private final Deck deck = new Deck(Suit.values(), Rank.values(), "cover");
-    private final String[] trumpImage = {"bigspade.gif", "bigheart.gif", "bigdiamond.gif", "bigclub.gif"};
+    // one actor per score with a sprite per value, and one actor with a sprite per trump
     private Actor[] scoreActors = {null, null, null, null};
-    private int[] scores = new int[nbPlayers];
-    Font bigFont = new Font("Serif", Font.BOLD, 36);
-    public final RandomSelection random = new RandomSelection(seed);
 
 
     /**
@@ -108,9 +83,9 @@ public class Whist extends CardGame {
      */
     private void initScore() {
         for (int i = 0; i < nbPlayers; i++) {
-            scores[i] = 0;
-            scoreActors[i] = new TextActor("0", Color.WHITE, bgColor, bigFont);
+            scoreActors[i] = new Actor(atlas.getScores(winningScore));
             addActor(scoreActors[i], boardLocation.scoreLocations[i]);
+            scoreActors[i].show(0);
         }
     }
 
@@ -118,171 +93,180 @@ public class Whist extends CardGame {
      * update player's score
      *
      * @param player the winning player of a trick
+     * @param score  the new score of the player
      */
-    private void updateScore(int player) {
-        removeActor(scoreActors[player]);
-        scoreActors[player] = new TextActor(String.valueOf(scores[player]), Color.WHITE, bgColor, bigFont);
-        addActor(scoreActors[player], boardLocation.scoreLocations[player]);
+    private void updateScore(int player, int score) {
+        scoreActors[player].show(score);
     }
 
     /**
-     * initialise the game, randomly select the trump, initialise hands and players,
-     * then display all of them in the game board
+     * display the trump selected by the game, and the hands dealt to the players
+     *
+     * @param event the round started, with the trumps and the hands dealt
      */
-    private void initRound() {
+    @Override
+    public void roundStarted(GameEvent event) {
         // Select and display trump suit
-        trumps = random.randomEnum(Suit.class);
-        trumpsActor = new Actor("sprites/" + trumpImage[trumps.ordinal()]);
-        addActor(trumpsActor, boardLocation.trumpsActorLocation);
-        // shuffle cards. Last element of hands is leftover cards; these are ignored
-        Hand[] hands = deck.dealingOut(nbPlayers, nbStartCards);
+        if (trumpsActor == null) {
+            trumpsActor = new Actor(atlas.getTrumpImages());
+            addActor(trumpsActor, boardLocation.trumpsActorLocation);
+        }
+        trumpsActor.show(event.getTrumps().ordinal());
         for (int i = 0; i < nbPlayers; i++) {
+            hands[i] = CardSet.toHand(deck, event.getHand(i));
             hands[i].sort(Hand.SortType.SUITPRIORITY, true);
         }
-        // create players and assign specific strategy to each player through factory
-        players = PlayerFactory.getInstance().createPlayers(this, playerConfiguration, hands);
-        // every player observing whist game, but players respond differently
-        listeners.clear();
-        for (Player onePlayer : players) {
-            addListener(onePlayer);
-        }
-        // graphics
-        RowLayout[] layouts = new RowLayout[nbPlayers];
-        for (int i = 0; i < nbPlayers; i++) {
-            layouts[i] = new RowLayout(boardLocation.handLocations[i], boardLocation.handWidth);
-            layouts[i].setRotationAngle(90 * i);
-            players[i].getHand().setView(this, layouts[i]);
-            players[i].getHand().setTargetArea(new TargetArea(boardLocation.trickLocation));
-            players[i].getHand().draw();
+        renderer.handsDealt(hands);
+    }
+
+    /**
+     * move the card played from the hand of the player to the trick
+     *
+     * @param event the card played, with the seat of the player who played it
+     */
+    @Override
+    public void cardPlayed(GameEvent event) {
+        int cardPlayed = event.getCard();
+        Card selected = hands[event.getSeat()].getCard(CardSet.suitOf(cardPlayed), CardSet.rankOf(cardPlayed));
+        renderer.cardPlayed(selected);
+    }
+
+    /**
+     * clear the trick and display the new score of its winner
+     *
+     * @param event the trick won, with its winner and the new score of the winner
+     */
+    @Override
+    public void trickWon(GameEvent event) {
+        int winner = event.getWinner();
+        pacing.trickShown(winner);
+        renderer.trickCleared();
+        setStatusText("Player " + winner + " wins trick.");
+        updateScore(winner, event.getScore());
+    }
+
+    @Override
+    public void gameOver(GameEvent event) {
+        addActor(new Actor(atlas.getImage(SpriteAtlas.gameOverImage)), boardLocation.textLocation);
+        if (event.getWinner() < 0) {
+            setStatusText("Game aborted. " + event.getGame().getAbortCause().getMessage());
+        } else {
+            setStatusText("Game over. Winner is player: " + event.getWinner());
         }
-        // visually hide the cards in a hand (make them face down)
-       for (int i = 1; i < nbPlayers; i++)
-            hands[i].setVerso(true);
-        // End graphics
+        refresh();
     }
 
     /**
-     * Play the game till there is a winner.
+     * turn the repaint of the board after every change of its actors on or off
      *
-     * @return return the winner of the game
+     * @param enabled if the board repaints itself when its actors change
      */
-    private Optional<Integer> playRound() {
-        Hand trick;
-        int winner;
-        Card winningCard;
-        // randomly select player to lead for this round
-        int nextPlayer = random.getRandom().nextInt(nbPlayers);
-        //looping through all cards
-        for (int i = 0; i < nbStartCards; i++) {
-            trick = new Hand(deck);
-            Card selected;
-            lead = null;
-            // player select a card to play, then the game update the changes
-            selected = players[nextPlayer].playerSelectCard();
-            update(selected);
-            // Lead with selected card
-            trick.setView(this, new RowLayout(boardLocation.trickLocation,
-                    (trick.getNumberOfCards() + 2) * boardLocation.trickWidth));
-            trick.draw();
-            selected.setVerso(false);
-            // No restrictions on the card being lead
-            lead = (Suit) selected.getSuit();
-            // transfer to trick (includes graphic effect)
-            selected.transfer(trick, true);
-            winner = nextPlayer;
-            winningCard = selected;
+    void setAutoRefresh(boolean enabled) {
+        setRefreshEnable(enabled);
+    }
 
-            //rest players follows the lead through looping
-            for (int j = 1; j < nbPlayers; j++) {
-                // From last back to first
-                if (++nextPlayer >= nbPlayers) nextPlayer = 0;
-                // player select a card to play, then the game notify the changes to listeners
-                selected = players[nextPlayer].playerSelectCard();
-                update(selected);
-                // Follow with selected card
-                trick.setView(this, new RowLayout(boardLocation.trickLocation,
-                        (trick.getNumberOfCards() + 2) * boardLocation.trickWidth));
-                trick.draw();
-                // In case it is upside down
-                selected.setVerso(false);
-                // Check: Following card must follow suit if possible
-                if (selected.getSuit() != lead && players[nextPlayer].getHand().getNumberOfCardsWithSuit(lead) > 0) {
-                    // Rule violation
-                    String violation = "Follow rule broken by player " + nextPlayer + " attempting to play " + selected;
-                    System.out.println(violation);
-                    if (enforceRules)
-                        try {
-                            throw (new BrokeRuleException(violation));
-                        } catch (BrokeRuleException e) {
-                            e.printStackTrace();
-                            System.out.println("A cheating player spoiled the game!");
-                            System.exit(0);
-                        }
-                }
-                // End Check
-                selected.transfer(trick, true); // transfer to trick (includes graphic effect)
-                System.out.println("winning: suit = " + winningCard.getSuit() + ", rank = " + winningCard.getRankId());
-                System.out.println(" played: suit = " + selected.getSuit() + ", rank = " + selected.getRankId());
-                if ( // beat current winner with higher card
-                        (selected.getSuit() == winningCard.getSuit() && rankGreater(selected, winningCard)) ||
-                                // trumped when non-trump was winning
-                                (selected.getSuit() == trumps && winningCard.getSuit() != trumps)) {
-                    System.out.println("NEW WINNER");
-                    winner = nextPlayer;
-                    winningCard = selected;
-                }
-                // End Follow
+    /**
+     * fast forward is only for games between computer players, a human needs to see the cards slide
+     */
+    private static boolean noHuman(String[] playerConfiguration) {
+        for (String player : playerConfiguration) {
+            if (player.trim().startsWith("human")) {
+                return false;
             }
-            delay(600);
-            trick.setView(this, new RowLayout(boardLocation.hideLocation, 0));
-            trick.draw();
-            nextPlayer = winner;
-            setStatusText("Player " + nextPlayer + " wins trick.");
-            scores[nextPlayer]++;
-            updateScore(nextPlayer);
-            if (winningScore == scores[nextPlayer]) return Optional.of(nextPlayer);
         }
-        removeActor(trumpsActor);
-        return Optional.empty();
+        return true;
     }
 
     /**
-     * Constructor of the game, but also the starter that run the game
+     * Constructor of the game, but also the starter that run the game. The game runs on its own thread,
+     * and waits on the events of the game board for the cards of human players
      *
      * @param seed                the seed of random object
      * @param playerConfiguration the type and seat location of the players
      * @param nbStartCards        number of cards on hand to play each round
      * @param winningScore        number of scores to win the game
-     * @param enforceRules        if breaking the rules is acceptable
+     * @param rulePolicy          what happens when a player breaks the rules
+     * @param timeControl         the time budgets of the players, the pacing excluded
+     * @param ponderQuota         the share of a core the players may ponder with, or 0
+     * @param pacing              how long the game waits so that people can follow it
+     * @param frameRate           the most frames per second the board paints
+     * @param fastForward         if the cards are played without sliding when no human plays
+     * @param archive             the archive the game is recorded in, or null. It is closed when the game is over
      */
-    Whist(int seed, String[] playerConfiguration, int nbStartCards, int winningScore, boolean enforceRules) {
+    Whist(long seed, String[] playerConfiguration, int nbStartCards, int winningScore, RulePolicy rulePolicy,
+          TimeControl timeControl, double ponderQuota, IPacing pacing, int frameRate, boolean fastForward,
+          GameArchiveWriter archive) {
+        this(seed, playerConfiguration, nbStartCards, winningScore, rulePolicy, timeControl, ponderQuota, pacing,
+                frameRate, fastForward && noHuman(playerConfiguration), null, archive);
+    }
+
+    /**
+     * Constructor of the game board replaying a recorded game
+     *
+     * @param record the record of the game
+     * @param pacing how long the game waits so that people can follow it
+     */
+    Whist(GameRecord record, IPacing pacing) {
+        this(record.getSeed(), record.getPlayerConfiguration(), record.getNbStartCards(), record.getWinningScore(),
+                record.getRulePolicy(), TimeControl.NONE, 0, pacing, BoardRenderer.defaultFrameRate, false, record,
+                null);
+    }
+
+    private Whist(long seed, String[] playerConfiguration, int nbStartCards, int winningScore, RulePolicy rulePolicy,
+                  TimeControl timeControl, double ponderQuota, IPacing pacing, int frameRate, boolean fastForward,
+                  GameRecord replay, GameArchiveWriter archive) {
         //initialisation
         super(700, 700, 30);
         this.seed = seed;
         this.nbStartCards = nbStartCards;
         this.winningScore = winningScore;
-        this.enforceRules = enforceRules;
+        this.rulePolicy = rulePolicy;
         this.playerConfiguration = playerConfiguration;
+        this.pacing = pacing;
         //run whist gun
         setTitle("Whist (V" + version + ") Constructed for UofM SWEN30006 with JGameGrid (www.aplu.ch)");
         setStatusText("Initializing...");
+        renderer = new BoardRenderer(this, deck, boardLocation, frameRate, fastForward);
         initScore();
-        Optional<Integer> winner;
-        do {
-            initRound();
-            winner = playRound();
-        } while (!winner.isPresent());
-        addActor(new Actor("sprites/gameover.gif"), boardLocation.textLocation);
-        setStatusText("Game over. Winner is player: " + winner.get());
-        refresh();
+        WhistEngine game = replay != null ? new GameReplayer(replay, this)
+                : new WhistEngine(seed, playerConfiguration, nbStartCards, winningScore, rulePolicy, this);
+        game.setTimeControl(timeControl);
+        game.setPonderQuota(ponderQuota);
+        // the console log and the recorder follow the game from the event bus, the game board is notified directly
+        GameEventBus bus = archive == null ? new GameEventBus(eventBusCapacity, new GameLogger())
+                : new GameEventBus(eventBusCapacity, new GameLogger(), new GameRecorder(archive));
+        game.setEventBus(bus);
+        new Thread(() -> play(game, bus, archive), "whist game").start();
     }
 
     /**
-     * Main method. input game configurations and starts the game
+     * play a game on the board, then close its event bus once the events are delivered, and its archive
+     *
+     * @param game    the game
+     * @param bus     the event bus of the game
+     * @param archive the archive the game is recorded in, or null
      */
-    public static void main(String[] args) throws IOException {
-        //System.out.println("Working Directory = " + System.getProperty("user.dir"));
-        /* read the property file, and pass to the game constructor */
+    private static void play(WhistEngine game, GameEventBus bus, GameArchiveWriter archive) {
+        try {
+            game.play();
+        } finally {
+            bus.close();
+            if (archive != null) {
+                try {
+                    archive.close();
+                } catch (IOException e) {
+                    System.out.println("The game record was not closed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * read the property file of the game
+     *
+     * @return the game configurations
+     */
+    static Properties readProperties() throws IOException {
         Properties WhistProperties = new Properties();
         FileReader inStream = null;
         try {
@@ -293,13 +277,67 @@ public class Whist extends CardGame {
                 inStream.close();
             }
         }
-        int seed = Integer.parseInt(WhistProperties.getProperty("seed"));
+        return WhistProperties;
+    }
+
+    /**
+     * Main method. input game configurations and starts the game
+     */
+    public static void main(String[] args) throws IOException {
+        //System.out.println("Working Directory = " + System.getProperty("user.dir"));
+        /* read the property file, and pass to the game constructor */
+        Properties WhistProperties = readProperties();
+        long seed = Long.parseLong(WhistProperties.getProperty("seed"));
         int nbStartCards = Integer.parseInt(WhistProperties.getProperty("nbStartCards"));
         int winningScore = Integer.parseInt(WhistProperties.getProperty("winningScore"));
         boolean legalPlay = Boolean.parseBoolean(WhistProperties.getProperty("legalPlay"));
+        // reject, forfeit, log or abort, by default abort the game if the play must be legal, otherwise log
+        RulePolicy rulePolicy = RulePolicy.of(WhistProperties.getProperty("rulePolicy"), legalPlay);
+        boolean headless = Boolean.parseBoolean(WhistProperties.getProperty("headless", "false"));
+        // milliseconds a computer player thinks and a complete trick is shown on the game board
+        int thinkingTime = Integer.parseInt(WhistProperties.getProperty("thinkingTime", "2000"));
+        int trickTime = Integer.parseInt(WhistProperties.getProperty("trickTime", "600"));
+        // milliseconds a player has per card and per game, none by default
+        TimeControl timeControl = TimeControl.of(WhistProperties);
+        // the share of a core the computer players may think with while the others select their card, none by default
+        double ponderQuota = Double.parseDouble(WhistProperties.getProperty("ponderQuota", "0"));
+        // frames per second of the game board, and if games between computer players skip the sliding cards
+        int frameRate = Integer.parseInt(WhistProperties.getProperty("frameRate",
+                String.valueOf(BoardRenderer.defaultFrameRate)));
+        boolean fastForward = Boolean.parseBoolean(WhistProperties.getProperty("fastForward", "false"));
         String[] playerConfiguration = WhistProperties.getProperty("players").trim().split(";");
+        // the archive the game is recorded in, if any
+        String record = WhistProperties.getProperty("record");
+        GameArchiveWriter archive = record == null ? null : new GameArchiveWriter(Paths.get(record));
+        // the file the metrics are written to in JSON when the program exits, if any
+        String metricsFile = WhistProperties.getProperty("metrics");
+        if (metricsFile != null) {
+            Metrics.getInstance().setEnabled(true);
+            Metrics.getInstance().writeJsonOnExit(Paths.get(metricsFile));
+        }
 
-        new Whist(seed, playerConfiguration, nbStartCards, winningScore, legalPlay);
+        if (headless) {
+            WhistEngine game = new WhistEngine(seed, playerConfiguration, nbStartCards, winningScore, rulePolicy);
+            game.setTimeControl(timeControl);
+            game.setPonderQuota(ponderQuota);
+            GameEventBus bus = archive == null ? null : new GameEventBus(eventBusCapacity, new GameRecorder(archive));
+            game.setEventBus(bus);
+            int winner = game.play();
+            if (winner < 0) {
+                System.out.println(game.getAbortCause().getMessage());
+                System.out.println("A cheating player spoiled the game!");
+            } else {
+                System.out.println("Game over. Winner is player: " + winner);
+            }
+            if (archive != null) {
+                bus.close();
+                archive.close();
+            }
+        } else {
+            // the game board closes the archive when the game is over
+            new Whist(seed, playerConfiguration, nbStartCards, winningScore, rulePolicy, timeControl, ponderQuota,
+                    new DelayPacing(thinkingTime, trickTime), frameRate, fastForward, archive);
+        }
     }
 
 }
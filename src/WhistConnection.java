@@ -0,0 +1,157 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/**
+ * one end of a connection between the game server and a client playing a seat. Messages are frames of
+ * an int with the length of the rest of the frame, a byte with the type of the message, then its fields:
+ * <pre>
+ * HELLO     client to server, int table, byte seat: the client plays the seat at the table
+ * DEAL      server to client, int round, byte trumps, long hand: a round starts with the CardSet of the hand
+ * CARD      server to client, byte seat, byte card: a card was played, by the client too
+ * TURN      server to client, byte lead (-1 to lead the trick), long hand: the client must play a card
+ * PLAY      client to server, byte card: the card the client plays
+ * GAME_OVER server to client, byte winner (-1 if the game was aborted): the game is over, the next one
+ *           starts with a DEAL
+ * </pre>
+ * The server closes the connection after the last game of the table. CARD messages are only buffered,
+ * they go with the next message sent or flush(). A connection is not thread-safe, each end reads and
+ * writes it from one thread
+ */
+final class WhistConnection implements Closeable {
+    static final byte HELLO = 1;
+    static final byte DEAL = 2;
+    static final byte CARD = 3;
+    static final byte TURN = 4;
+    static final byte PLAY = 5;
+    static final byte GAME_OVER = 6;
+    private static final int maxFrame = 64;
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final ByteBuffer frame = ByteBuffer.allocate(maxFrame);
+    private final ByteBuffer message = ByteBuffer.allocate(Integer.BYTES + maxFrame);
+
+    /**
+     * connection constructor.
+     *
+     * @param socket the connected socket, moves are small and sent without delay
+     */
+    WhistConnection(Socket socket) throws IOException {
+        this.socket = socket;
+        socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * read the next message, its fields are then read in order with getByte, getInt and getLong
+     *
+     * @return the type of the message, or -1 if the other end closed the connection
+     */
+    byte read() throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return -1;
+        }
+        if (length < 1 || length > maxFrame) {
+            throw new IOException("bad frame length " + length);
+        }
+        frame.clear();
+        in.readFully(frame.array(), 0, length);
+        frame.limit(length);
+        return frame.get();
+    }
+
+    byte getByte() {
+        return frame.get();
+    }
+
+    int getInt() {
+        return frame.getInt();
+    }
+
+    long getLong() {
+        return frame.getLong();
+    }
+
+    /**
+     * start a message, its fields are then added to the buffer returned
+     */
+    private ByteBuffer begin(byte type) {
+        message.clear();
+        message.putInt(0);
+        message.put(type);
+        return message;
+    }
+
+    /**
+     * write the length of the message in front of it and buffer it
+     */
+    private void write() throws IOException {
+        message.putInt(0, message.position() - Integer.BYTES);
+        out.write(message.array(), 0, message.position());
+    }
+
+    /**
+     * write the message and send it with the messages buffered before
+     */
+    private void send() throws IOException {
+        write();
+        out.flush();
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    void sendHello(int table, int seat) throws IOException {
+        begin(HELLO).putInt(table).put((byte) seat);
+        send();
+    }
+
+    void sendDeal(int round, Whist.Suit trumps, long hand) throws IOException {
+        begin(DEAL).putInt(round).put((byte) trumps.ordinal()).putLong(hand);
+        send();
+    }
+
+    void sendCard(int seat, int card) throws IOException {
+        begin(CARD).put((byte) seat).put((byte) card);
+        write();
+    }
+
+    /**
+     * ask the client to play a card
+     *
+     * @param lead the suit of the lead, or null to lead the trick
+     * @param hand the cards of the client
+     */
+    void sendTurn(Whist.Suit lead, long hand) throws IOException {
+        begin(TURN).put((byte) (lead == null ? -1 : lead.ordinal())).putLong(hand);
+        send();
+    }
+
+    void sendPlay(int card) throws IOException {
+        begin(PLAY).put((byte) card);
+        send();
+    }
+
+    void sendGameOver(int winner) throws IOException {
+        begin(GAME_OVER).put((byte) winner);
+        send();
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
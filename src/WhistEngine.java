@@ -0,0 +1,528 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * the headless engine of the game. It owns the rules (trump selection, dealing, following suit,
+ * winning tricks and scores) and runs them without graphics or delays, so the game board is just
+ * one of its observers. Cards are represented by their index in a CardSet, which is the card
+ * number JCardGame gives the same card in the deck of the game board, and hands are CardSets.
+ */
+public class WhistEngine {
+    // independent random streams, split from the seed of the game in a fixed order
+    private final RandomSelection dealRandom;
+    private final RandomSelection trumpRandom;
+    private final RandomSelection leadRandom;
+    private final RandomSelection[] seatRandoms = new RandomSelection[Whist.nbPlayers];
+    private final long seed;
+    private final String[] playerConfiguration;
+    private final int nbStartCards;
+    private final int winningScore;
+    private final RulePolicy rulePolicy;
+    private final Whist board;
+    private Player[] players;
+    private Whist.Suit trumps;
+    // the hands, the current trick and the tricks of the round being played
+    private final GameState state = new GameState();
+    // the seats whose card cannot win the current trick, under the forfeit policy
+    private int forfeits;
+    private final int[] deck = new int[CardSet.nbCards];
+    // the cards dealt in the round
+    private final long[] hands = new long[Whist.nbPlayers];
+    private final int[] scores = new int[Whist.nbPlayers];
+    private final int[] violations = new int[Whist.nbPlayers];
+    private TimeControl timeControl = TimeControl.NONE;
+    // the time every player has left for the game, and its cards that came late
+    private final long[] clocks = new long[Whist.nbPlayers];
+    private final int[] overruns = new int[Whist.nbPlayers];
+    // the deadline of the card being selected, for cancelMove
+    private volatile Deadline deadline;
+    // the pondering of the other players while a player selects its card, or null
+    private Ponderer ponderer;
+    private final ArrayList<IObserver> observers = new ArrayList<>();
+    // the observers and the players of the round, notified synchronously
+    private IObserver[] listeners = new IObserver[0];
+    private GameEventBus bus;
+    private final GameEvent event = new GameEvent();
+    private final Metrics metrics = Metrics.getInstance();
+    private int round = -1;
+    private BrokeRuleException abortCause;
+
+    /**
+     * Constructor of a headless game, nothing is displayed or printed
+     *
+     * @param seed                the seed of random object
+     * @param playerConfiguration the type and seat location of the players
+     * @param nbStartCards        number of cards on hand to play each round
+     * @param winningScore        number of scores to win the game
+     * @param rulePolicy          what happens when a player breaks the rules
+     */
+    WhistEngine(long seed, String[] playerConfiguration, int nbStartCards, int winningScore, RulePolicy rulePolicy) {
+        this(seed, playerConfiguration, nbStartCards, winningScore, rulePolicy, null);
+    }
+
+    /**
+     * Constructor of a game displayed on a game board. The board observes the game,
+     * and human players choose their cards on it
+     *
+     * @param board the game board, or null for a headless game
+     */
+    WhistEngine(long seed, String[] playerConfiguration, int nbStartCards, int winningScore, RulePolicy rulePolicy,
+                Whist board) {
+        this.seed = seed;
+        RandomSelection random = new RandomSelection(seed);
+        this.dealRandom = random.split();
+        this.trumpRandom = random.split();
+        this.leadRandom = random.split();
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            seatRandoms[i] = random.split();
+        }
+        this.playerConfiguration = playerConfiguration;
+        this.nbStartCards = nbStartCards;
+        this.winningScore = winningScore;
+        this.rulePolicy = rulePolicy;
+        this.board = board;
+        for (int i = 0; i < CardSet.nbCards; i++) {
+            deck[i] = i;
+        }
+        Arrays.fill(clocks, timeControl.getGameNanos());
+        if (board != null) {
+            addObserver(board);
+        }
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    String[] getPlayerConfiguration() {
+        return playerConfiguration;
+    }
+
+    int getNbStartCards() {
+        return nbStartCards;
+    }
+
+    int getWinningScore() {
+        return winningScore;
+    }
+
+    Whist.Suit getTrumps() {
+        return trumps;
+    }
+
+    Whist.Suit getLead() {
+        return state.getLead();
+    }
+
+    Whist getBoard() {
+        return board;
+    }
+
+    /**
+     * the cards on the hand of a player
+     *
+     * @param position where the player seat
+     * @return the CardSet of the player
+     */
+    long getHand(int position) {
+        return state.getHand(position);
+    }
+
+    /**
+     * the random stream of a seat, for the random decisions of its player
+     *
+     * @param position where the player seat
+     * @return the random stream of the seat
+     */
+    RandomSelection getRandom(int position) {
+        return seatRandoms[position];
+    }
+
+    int getScore(int position) {
+        return scores[position];
+    }
+
+    /**
+     * the card played at a position of the current trick
+     *
+     * @param i the position in the trick, from 0 (the lead) to getTrickSize() - 1
+     * @return the card played
+     */
+    int getTrickCard(int i) {
+        return state.getTrickCard(i);
+    }
+
+    int getTrickSize() {
+        return state.getTrickSize();
+    }
+
+    int getTrickLeader() {
+        return state.getLeader();
+    }
+
+    RulePolicy getRulePolicy() {
+        return rulePolicy;
+    }
+
+    /**
+     * why the game was aborted
+     *
+     * @return the rule the player broke, or null if the game was not aborted
+     */
+    BrokeRuleException getAbortCause() {
+        return abortCause;
+    }
+
+    /**
+     * the number of cards a player selected but could not play, another suit than the lead
+     * although it could follow suit, or a card it does not hold
+     *
+     * @param position where the player seat
+     * @return the number of rule violations of the player
+     */
+    int getViolations(int position) {
+        return violations[position];
+    }
+
+    /**
+     * the number of cards a player selected after its time budget, the game played another card for it
+     *
+     * @param position where the player seat
+     * @return the number of overruns of the player
+     */
+    int getOverruns(int position) {
+        return overruns[position];
+    }
+
+    /**
+     * the time a player has left for its cards of the game
+     *
+     * @param position where the player seat
+     * @return the nanoseconds left, or Long.MAX_VALUE for no limit
+     */
+    long getClock(int position) {
+        return clocks[position];
+    }
+
+    /**
+     * set the time budgets of the players, before the game is played
+     *
+     * @param timeControl the budgets per card and per game
+     */
+    void setTimeControl(TimeControl timeControl) {
+        this.timeControl = timeControl;
+        Arrays.fill(clocks, timeControl.getGameNanos());
+    }
+
+    /**
+     * let the players ponder while another player selects its card, on a thread of the game, before the
+     * game is played
+     *
+     * @param quota the share of a core the pondering may use, or 0 not to ponder
+     */
+    void setPonderQuota(double quota) {
+        ponderer = quota > 0 ? new Ponderer(quota) : null;
+    }
+
+    /**
+     * tell the player selecting a card to play it now, from any thread. Only the strategies that search
+     * watch their deadline
+     */
+    void cancelMove() {
+        Deadline current = deadline;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    /**
+     * add an observer that is notified of every event of the game, on the thread of the game.
+     * The game waits for it, so it should be quick or need to hold the game, like the game board
+     *
+     * @param observer the object that want to observing the game
+     */
+    void addObserver(IObserver observer) {
+        observers.add(observer);
+    }
+
+    /**
+     * publish every event of the game on a bus too, for the observers that should not slow down the game
+     *
+     * @param bus the event bus, or null
+     */
+    void setEventBus(GameEventBus bus) {
+        this.bus = bus;
+    }
+
+    void setStatusText(String text) {
+        if (board != null) {
+            board.setStatusText(text);
+        }
+    }
+
+    /**
+     * notify the listeners of an event, then publish it on the bus
+     *
+     * @param event the event, the one event of the game filled for this event
+     */
+    private void publish(GameEvent event) {
+        for (IObserver listener : listeners) {
+            event.dispatch(listener);
+        }
+        if (bus != null) {
+            bus.publish(event);
+        }
+    }
+
+    /**
+     * select the trump, deal the cards, notify the observers and create the players
+     */
+    private void initRound() {
+        trumps = selectTrumps();
+        deal();
+        // randomly select player to lead for this round
+        state.start(hands, trumps, selectLeader());
+        round++;
+        // the observers set up first, so that human players can find their hand on the game board
+        listeners = observers.toArray(new IObserver[0]);
+        publish(event.roundStarted(this, round, trumps, hands, state.getLeader()));
+        players = createPlayers(hands);
+        // every player observing whist game, but players respond differently
+        ArrayList<IObserver> roundListeners = new ArrayList<>(observers);
+        Collections.addAll(roundListeners, players);
+        listeners = roundListeners.toArray(new IObserver[0]);
+    }
+
+    /**
+     * randomly select the trump of a round
+     *
+     * @return the trump suit
+     */
+    Whist.Suit selectTrumps() {
+        return trumpRandom.randomEnum(Whist.Suit.class);
+    }
+
+    /**
+     * randomly select the player to lead the first trick of a round
+     *
+     * @return the position of the leader
+     */
+    int selectLeader() {
+        return leadRandom.nextInt(Whist.nbPlayers);
+    }
+
+    /**
+     * create players and assign specific strategy to each player through factory. The players of the last
+     * round play the new one when their strategy can, with the buffers they already have
+     *
+     * @param hands the cards dealt to the players
+     * @return the players indexed by position
+     */
+    Player[] createPlayers(long[] hands) {
+        return PlayerFactory.getInstance().createPlayers(this, playerConfiguration, hands, players);
+    }
+
+    /**
+     * give a player its cards, for a deal that does not shuffle
+     *
+     * @param position where the player seat
+     * @param cards    the cards of the player
+     */
+    void setHand(int position, long cards) {
+        hands[position] = cards;
+    }
+
+    /**
+     * shuffle cards, then deal the first cards to the players. The leftover cards are ignored
+     */
+    void deal() {
+        for (int i = CardSet.nbCards - 1; i > 0; i--) {
+            int j = dealRandom.nextInt(i + 1);
+            int card = deck[i];
+            deck[i] = deck[j];
+            deck[j] = card;
+        }
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            hands[i] = CardSet.EMPTY;
+            for (int j = 0; j < nbStartCards; j++) {
+                hands[i] = CardSet.add(hands[i], deck[i * nbStartCards + j]);
+            }
+        }
+    }
+
+    /**
+     * ask a player for a card before its deadline, the budget per card or the time left on its clock if
+     * shorter, then take the time it thought off its clock. A card that comes after the budget is an overrun:
+     * it is published, and the smallest legal card is played instead
+     *
+     * @param seat  where the player seat
+     * @param legal the cards the player may play
+     * @param trick the index of the trick in the round
+     * @return the card of the player, or the card played for it
+     */
+    private int selectCard(int seat, long legal, int trick) {
+        long budget = Math.min(timeControl.getMoveNanos(), Math.max(0, clocks[seat]));
+        Deadline turn = new Deadline(budget);
+        deadline = turn;
+        int selected;
+        if (ponderer == null) {
+            selected = players[seat].playerSelectCard(legal, turn);
+        } else {
+            ponderer.start(players, seat);
+            try {
+                selected = players[seat].playerSelectCard(legal, turn);
+            } finally {
+                ponderer.stop();
+            }
+        }
+        deadline = null;
+        if (clocks[seat] != Long.MAX_VALUE) {
+            clocks[seat] -= turn.elapsed();
+        }
+        if (turn.isOverrun()) {
+            overruns[seat]++;
+            publish(event.moveOverrun(this, round, trick, seat, selected, state.getLead(), trumps));
+            return CardSet.lowestRank(legal);
+        }
+        return selected;
+    }
+
+    /**
+     * ask a player for a card until it selects a card it may play, or the rule policy lets it play
+     * another one
+     *
+     * @param seat  where the player seat
+     * @param trick the index of the trick in the round
+     * @return the card played
+     * @throws BrokeRuleException if the player broke the rules and the policy aborts the game
+     */
+    private int playTurn(int seat, int trick) throws BrokeRuleException {
+        long hand = state.getHand(seat);
+        Whist.Suit lead = state.getLead();
+        long legal = CardSet.legal(hand, lead);
+        for (int attempt = 1; ; attempt++) {
+            int selected = selectCard(seat, legal, trick);
+            // a set only holds the cards of the deck, a shift wraps other numbers onto them
+            boolean card = selected >= 0 && selected < CardSet.nbCards;
+            if (card && CardSet.contains(legal, selected)) {
+                return selected;
+            }
+            violations[seat]++;
+            publish(event.ruleViolation(this, round, trick, seat, selected, lead, trumps));
+            boolean held = card && CardSet.contains(hand, selected);
+            switch (rulePolicy) {
+                case ABORT:
+                    throw new BrokeRuleException("Follow rule broken by player " + seat + " attempting to play "
+                            + (held ? CardSet.cardToString(selected) : "card " + selected));
+                case FORFEIT:
+                    if (held) {
+                        forfeits |= 1 << seat;
+                        return selected;
+                    }
+                    break;
+                case LOG:
+                    if (held) {
+                        return selected;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (attempt >= RulePolicy.maxAttempts) {
+                return CardSet.lowestRank(legal);
+            }
+        }
+    }
+
+    /**
+     * Play the round till there is a winner or the players have no cards left.
+     *
+     * @return return the winner of the game
+     * @throws BrokeRuleException if a player broke the rules and the policy aborts the game
+     */
+    private int playRound() throws BrokeRuleException {
+        for (int i = 0; i < nbStartCards; i++) {
+            Whist.Suit lead = null;
+            forfeits = 0;
+            TrickSpan span = TrickSpan.type.isEnabled() ? new TrickSpan() : null;
+            if (span != null) {
+                span.begin();
+            }
+            // the leader plays any card, the rest follow the lead, the rule policy deals with the cards not following suit
+            for (int j = 0; j < Whist.nbPlayers; j++) {
+                int nextPlayer = state.getToMove();
+                int selected = playTurn(nextPlayer, i);
+                if ((forfeits & 1 << nextPlayer) == 0) {
+                    state.play(selected);
+                } else {
+                    state.forfeit(selected);
+                }
+                if (j == 0) {
+                    lead = CardSet.suitOf(selected);
+                }
+                publish(event.cardPlayed(this, round, i, nextPlayer, selected, lead, trumps, state.getWinner()));
+            }
+            int winner = state.getWinner();
+            scores[winner]++;
+            metrics.trickPlayed();
+            if (span != null) {
+                span.end();
+                if (span.shouldCommit()) {
+                    span.round = round;
+                    span.trick = i;
+                    span.lead = lead.name();
+                    span.winner = winner;
+                    span.commit();
+                }
+            }
+            publish(event.trickWon(this, round, i, lead, trumps, winner, scores[winner]));
+            if (winningScore == scores[winner]) return winner;
+        }
+        return -1;
+    }
+
+    /**
+     * play rounds until a player reaches the winning score, or a player breaks the rules and the policy
+     * aborts the game. Only this game is over then, the observers are told the game is over without a winner
+     *
+     * @return the winner of the game, or -1 if the game was aborted
+     */
+    int play() {
+        // the clock and the allocations are only read for the metrics
+        boolean metered = metrics.isEnabled();
+        long start = metered ? System.nanoTime() : 0;
+        long allocated = metered ? Metrics.allocatedBytes() : 0;
+        int winner = -1;
+        try {
+            do {
+                RoundSpan span = RoundSpan.type.isEnabled() ? new RoundSpan() : null;
+                if (span != null) {
+                    span.begin();
+                }
+                initRound();
+                winner = playRound();
+                if (span != null) {
+                    span.end();
+                    if (span.shouldCommit()) {
+                        span.seed = seed;
+                        span.round = round;
+                        span.trumps = trumps.name();
+                        span.commit();
+                    }
+                }
+            } while (winner < 0);
+        } catch (BrokeRuleException e) {
+            abortCause = e;
+        } finally {
+            if (ponderer != null) {
+                ponderer.close();
+            }
+        }
+        publish(event.gameOver(this, round, winner));
+        if (metered) {
+            metrics.gamePlayed(System.nanoTime() - start, Metrics.allocatedBytes() - allocated);
+        }
+        return winner;
+    }
+}
@@ -0,0 +1,314 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * the game server. It hosts many tables in one JVM, each playing headless games with the players of
+ * whist.properties, and the seats of type "remote" are played by clients connected on localhost (see
+ * WhistConnection for the protocol). A table starts when a client sits at every remote seat, and runs on
+ * its own thread: a virtual thread when the JVM has them, so that thousands of tables are cheap, or a
+ * platform thread before.
+ */
+public class WhistServer {
+    static final String remote = "remote";
+    // stack of the platform threads of the tables, when there are no virtual threads
+    private static final long platformStackSize = 256 * 1024;
+
+    private final long baseSeed;
+    private final String[] playerConfiguration;
+    private final String[] playerTypes;
+    private final int nbStartCards;
+    private final int winningScore;
+    private final int gamesPerTable;
+    private final Table[] tables;
+    private final ExecutorService executor = newThreadPerTaskExecutor();
+    private final CountDownLatch tablesOver;
+    private final Tournament.Result result;
+    private TimeControl timeControl = TimeControl.NONE;
+    private RulePolicy rulePolicy = RulePolicy.LOG;
+    private double ponderQuota;
+
+    /**
+     * Constructor of a server
+     *
+     * @param baseSeed            the seed the seed of every game is derived from
+     * @param playerConfiguration the type and seat location of the players
+     * @param nbStartCards        number of cards on hand to play each round
+     * @param winningScore        number of scores to win a game
+     * @param nbTables            number of tables
+     * @param gamesPerTable       number of games played at every table
+     */
+    WhistServer(long baseSeed, String[] playerConfiguration, int nbStartCards, int winningScore,
+                int nbTables, int gamesPerTable) {
+        this.baseSeed = baseSeed;
+        this.playerConfiguration = playerConfiguration;
+        this.playerTypes = PlayerFactory.playerTypes(playerConfiguration);
+        this.nbStartCards = nbStartCards;
+        this.winningScore = winningScore;
+        this.gamesPerTable = gamesPerTable;
+        this.tables = new Table[nbTables];
+        for (int i = 0; i < nbTables; i++) {
+            tables[i] = new Table(i);
+        }
+        this.tablesOver = new CountDownLatch(nbTables);
+        this.result = new Tournament.Result(playerTypes);
+    }
+
+    /**
+     * set the time budgets of the players of every game, the remote players included, before serving
+     *
+     * @param timeControl the budgets per card and per game
+     */
+    void setTimeControl(TimeControl timeControl) {
+        this.timeControl = timeControl;
+    }
+
+    /**
+     * set what happens when a player breaks the rules in every game, the remote players included, before serving
+     *
+     * @param rulePolicy the policy, LOG by default
+     */
+    void setRulePolicy(RulePolicy rulePolicy) {
+        this.rulePolicy = rulePolicy;
+    }
+
+    /**
+     * let the computer players of every table ponder while the others select their card, before serving.
+     * The games of a table are played one after the other, so the quota is the table's
+     *
+     * @param ponderQuota the share of a core the pondering of a table may use, or 0 not to ponder
+     */
+    void setPonderQuota(double ponderQuota) {
+        this.ponderQuota = ponderQuota;
+    }
+
+    /**
+     * an executor running every task on a new virtual thread, or on a new platform thread before Java 21
+     *
+     * @return the executor
+     */
+    static ExecutorService newThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(null, task, "whist table " + count.getAndIncrement(), platformStackSize);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * the seats of a configuration played by clients
+     *
+     * @param playerTypes the player types indexed by position
+     * @return the positions of the remote seats
+     */
+    static int[] remoteSeats(String[] playerTypes) {
+        int count = 0;
+        int[] seats = new int[Whist.nbPlayers];
+        for (int i = 0; i < Whist.nbPlayers; i++) {
+            if (remote.equals(playerTypes[i])) {
+                seats[count++] = i;
+            }
+        }
+        int[] result = new int[count];
+        System.arraycopy(seats, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * accept the clients until every table is over
+     *
+     * @param server the socket the clients connect to
+     * @return the totals of all games
+     */
+    Tournament.Result serve(ServerSocket server) throws InterruptedException {
+        for (Table table : tables) {
+            table.startIfReady();
+        }
+        Thread acceptor = new Thread(() -> {
+            try {
+                while (true) {
+                    Socket socket = server.accept();
+                    executor.execute(() -> hello(socket));
+                }
+            } catch (IOException e) {
+                // the server socket is closed once the tables are over
+            }
+        }, "whist server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        tablesOver.await();
+        executor.shutdown();
+        return result;
+    }
+
+    /**
+     * read the table and the seat of a new client and sit it there. The connection is closed if the seat
+     * does not exist, is not remote or is taken
+     */
+    private void hello(Socket socket) {
+        try {
+            WhistConnection connection = new WhistConnection(socket);
+            if (connection.read() == WhistConnection.HELLO) {
+                int table = connection.getInt();
+                int seat = connection.getByte();
+                if (table >= 0 && table < tables.length && tables[table].sit(seat, connection)) {
+                    return;
+                }
+            }
+            connection.close();
+        } catch (IOException e) {
+            System.out.println("client refused: " + e);
+        }
+    }
+
+    /**
+     * a table: the clients of its remote seats, and the games it plays once they are all seated
+     */
+    private class Table implements Runnable {
+        private final int id;
+        private final WhistConnection[] connections = new WhistConnection[Whist.nbPlayers];
+        private int missing;
+        private boolean started;
+
+        Table(int id) {
+            this.id = id;
+            this.missing = remoteSeats(playerTypes).length;
+        }
+
+        /**
+         * sit a client, and start the table when it is the last one
+         *
+         * @return false if the seat cannot be taken
+         */
+        synchronized boolean sit(int seat, WhistConnection connection) {
+            if (seat < 0 || seat >= Whist.nbPlayers || !remote.equals(playerTypes[seat]) || connections[seat] != null) {
+                return false;
+            }
+            connections[seat] = connection;
+            missing--;
+            startIfReady();
+            return true;
+        }
+
+        synchronized void startIfReady() {
+            if (missing == 0 && !started) {
+                started = true;
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            Tournament.Result tableResult = new Tournament.Result(playerTypes);
+            try {
+                for (int i = 0; i < gamesPerTable; i++) {
+                    TableGame game = new TableGame(Tournament.gameSeed(baseSeed, (long) id * gamesPerTable + i), connections);
+                    int winner = game.play();
+                    tableResult.add(game, winner);
+                    for (WhistConnection connection : connections) {
+                        if (connection != null) {
+                            connection.sendGameOver(winner);
+                        }
+                    }
+                }
+            } catch (IOException | UncheckedIOException e) {
+                System.out.println("table " + id + " stopped: " + e.getMessage());
+            } finally {
+                for (WhistConnection connection : connections) {
+                    try {
+                        if (connection != null) {
+                            connection.close();
+                        }
+                    } catch (IOException e) {
+                        // the client is gone already
+                    }
+                }
+                synchronized (result) {
+                    result.merge(tableResult);
+                }
+                tablesOver.countDown();
+            }
+        }
+    }
+
+    /**
+     * a game of a table, its remote seats are played by the clients
+     */
+    private class TableGame extends WhistEngine {
+        private final WhistConnection[] connections;
+        private int round = -1;
+
+        TableGame(long seed, WhistConnection[] connections) {
+            super(seed, playerConfiguration, nbStartCards, winningScore, rulePolicy);
+            this.connections = connections;
+            setTimeControl(timeControl);
+            setPonderQuota(ponderQuota);
+        }
+
+        @Override
+        Player[] createPlayers(long[] hands) {
+            Player[] players = super.createPlayers(hands);
+            round++;
+            for (int i = 0; i < Whist.nbPlayers; i++) {
+                if (connections[i] != null) {
+                    ISelectCard selection = new RemoteStrategy(connections[i], i, round, getTrumps(), hands[i]);
+                    players[i] = new Player(new MeteredStrategy(selection, remote), this, i);
+                }
+            }
+            return players;
+        }
+    }
+
+    /**
+     * Main method. Serves tables of the players and game settings of whist.properties on localhost
+     *
+     * @param args the port, the number of tables, then optionally the number of games per table (1 by default)
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Properties WhistProperties = Whist.readProperties();
+        long seed = Long.parseLong(WhistProperties.getProperty("seed"));
+        int nbStartCards = Integer.parseInt(WhistProperties.getProperty("nbStartCards"));
+        int winningScore = Integer.parseInt(WhistProperties.getProperty("winningScore"));
+        String[] playerConfiguration = WhistProperties.getProperty("players").trim().split(";");
+        boolean legalPlay = Boolean.parseBoolean(WhistProperties.getProperty("legalPlay"));
+        // reject, forfeit, log or abort, by default abort the game if the play must be legal, otherwise log
+        RulePolicy rulePolicy = RulePolicy.of(WhistProperties.getProperty("rulePolicy"), legalPlay);
+        int port = Integer.parseInt(args[0]);
+        int nbTables = Integer.parseInt(args[1]);
+        int gamesPerTable = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        String metricsFile = WhistProperties.getProperty("metrics");
+        if (metricsFile != null) {
+            Metrics.getInstance().setEnabled(true);
+            Metrics.getInstance().writeJsonOnExit(Paths.get(metricsFile));
+        }
+
+        WhistServer whistServer = new WhistServer(seed, playerConfiguration, nbStartCards, winningScore,
+                nbTables, gamesPerTable);
+        whistServer.setTimeControl(TimeControl.of(WhistProperties));
+        whistServer.setRulePolicy(rulePolicy);
+        whistServer.setPonderQuota(Double.parseDouble(WhistProperties.getProperty("ponderQuota", "0")));
+        Tournament.Result result;
+        long start = System.nanoTime();
+        try (ServerSocket server = new ServerSocket(port, nbTables * Whist.nbPlayers, InetAddress.getLoopbackAddress())) {
+            System.out.println("serving " + nbTables + " tables on port " + server.getLocalPort());
+            result = whistServer.serve(server);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.print(result);
+        System.out.printf("%d games in %.3f s, %.2f games per second on %d tables%n", result.getGames(), seconds,
+                result.getGames() / seconds, nbTables);
+    }
+}